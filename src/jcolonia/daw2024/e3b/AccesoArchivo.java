@@ -1,30 +1,331 @@
 package jcolonia.daw2024.e3b;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Archivo para importar o exportar texto.
- * 
+ * <div>Los archivos pueden estar comprimidos: al leer se reconoce el formato
+ * por sus primeros bytes –gzip o deflate con cabecera zlib– y al escribir se
+ * elige por la extensión –«.gz» o «.zz»–. La compresión se realiza sobre la
+ * marcha, sin reunir nunca el contenido completo en memoria, y su nivel permite
+ * elegir entre tamaño y velocidad.</div>
+ *
  * @version 1.1 (20240502000)
  * @author <a href="mailto:dmartin.jcolonia@gmail.com">David H. Martín</a>
  */
 public class AccesoArchivo {
+	/** Tamaño de los búferes de lectura, escritura y compresión. */
+	private static final int TAMAÑO_BÚFER = 1 << 16;
+
 	/** El nombre o ruta al archivo. */
 	private String rutaArchivo;
 
 	/**
-	 * Recoge el nombre o ruta al archivo.
-	 * 
+	 * El nivel de compresión al escribir, entre {@link Deflater#BEST_SPEED} y
+	 * {@link Deflater#BEST_COMPRESSION}, o {@link Deflater#DEFAULT_COMPRESSION}.
+	 */
+	private int nivelCompresión;
+
+	/**
+	 * Formatos de compresión reconocidos.
+	 */
+	public enum Compresión {
+		/** Texto sin comprimir. */
+		NINGUNA(""),
+		/** Formato gzip –RFC 1952–. */
+		GZIP(".gz"),
+		/** Formato deflate con cabecera zlib –RFC 1950–. */
+		DEFLATE(".zz");
+
+		/** La extensión de los archivos en este formato. */
+		private final String extensión;
+
+		/**
+		 * Asocia la extensión al formato.
+		 *
+		 * @param extensión la extensión, con el punto inicial
+		 */
+		private Compresión(String extensión) {
+			this.extensión = extensión;
+		}
+
+		/**
+		 * Facilita la extensión de los archivos en este formato.
+		 *
+		 * @return la extensión, con el punto inicial; vacía si no se comprime
+		 */
+		public String getExtensión() {
+			return extensión;
+		}
+
+		/**
+		 * Elige el formato por la extensión de un archivo.
+		 *
+		 * @param rutaArchivo el nombre o ruta al archivo
+		 * @return el formato; {@link #NINGUNA} si la extensión no es de ningún
+		 *         formato comprimido
+		 */
+		public static Compresión deExtensión(String rutaArchivo) {
+			Compresión formato = NINGUNA;
+			String nombre;
+
+			nombre = rutaArchivo.toLowerCase();
+			if (nombre.endsWith(GZIP.extensión)) {
+				formato = GZIP;
+			} else if (nombre.endsWith(DEFLATE.extensión) || nombre.endsWith(".deflate")) {
+				formato = DEFLATE;
+			}
+			return formato;
+		}
+
+		/**
+		 * Reconoce el formato por los dos primeros bytes de un archivo.
+		 *
+		 * @param byte0 el primer byte, o -1 si el archivo está vacío
+		 * @param byte1 el segundo byte, o -1 si no lo hay
+		 * @return el formato; {@link #NINGUNA} si no es ningún formato comprimido
+		 */
+		public static Compresión deCabecera(int byte0, int byte1) {
+			Compresión formato = NINGUNA;
+
+			if (byte0 == 0x1F && byte1 == 0x8B) {
+				formato = GZIP;
+			} else if (byte0 == 0x78 && (byte1 == 0x01 || byte1 == 0x5E || byte1 == 0x9C || byte1 == 0xDA)) {
+				formato = DEFLATE; // Las cuatro cabeceras zlib que genera Deflater
+			}
+			return formato;
+		}
+	}
+
+	/**
+	 * Salida gzip con un nivel de compresión a elección.
+	 */
+	private static class SalidaGzip extends GZIPOutputStream {
+		/**
+		 * Prepara la salida.
+		 *
+		 * @param salida el destino de los datos comprimidos
+		 * @param nivel  el nivel de compresión
+		 * @throws IOException si no se puede escribir la cabecera
+		 */
+		private SalidaGzip(OutputStream salida, int nivel) throws IOException {
+			super(salida, TAMAÑO_BÚFER);
+			def.setLevel(nivel);
+		}
+	}
+
+	/**
+	 * Salida deflate que libera el compresor al cerrarse: con un compresor propio
+	 * {@link DeflaterOutputStream} no lo hace.
+	 */
+	private static class SalidaDeflate extends DeflaterOutputStream {
+		/**
+		 * Prepara la salida.
+		 *
+		 * @param salida el destino de los datos comprimidos
+		 * @param nivel  el nivel de compresión
+		 */
+		private SalidaDeflate(OutputStream salida, int nivel) {
+			super(salida, new Deflater(nivel), TAMAÑO_BÚFER);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				def.end();
+			}
+		}
+	}
+
+	/**
+	 * Entrada deflate que libera el descompresor al cerrarse: con un descompresor
+	 * propio {@link InflaterInputStream} no lo hace.
+	 */
+	private static class EntradaDeflate extends InflaterInputStream {
+		/**
+		 * Prepara la entrada.
+		 *
+		 * @param entrada el origen de los datos comprimidos
+		 */
+		private EntradaDeflate(InputStream entrada) {
+			super(entrada, new Inflater(), TAMAÑO_BÚFER);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				inf.end();
+			}
+		}
+	}
+
+	/**
+	 * Entrada que cuenta los bytes que entrega: tras la descompresión, los del
+	 * texto.
+	 */
+	private static class EntradaContada extends FilterInputStream {
+		/** El número de bytes entregados. */
+		private long bytes;
+
+		/**
+		 * Prepara la entrada.
+		 *
+		 * @param entrada el origen de los datos
+		 */
+		private EntradaContada(InputStream entrada) {
+			super(entrada);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int dato;
+
+			dato = super.read();
+			if (dato >= 0) {
+				bytes++;
+			}
+			return dato;
+		}
+
+		@Override
+		public int read(byte[] datos, int desde, int longitud) throws IOException {
+			int leídos;
+
+			leídos = super.read(datos, desde, longitud);
+			if (leídos > 0) {
+				bytes += leídos;
+			}
+			return leídos;
+		}
+
+		@Override
+		public long skip(long longitud) throws IOException {
+			long saltados;
+
+			saltados = super.skip(longitud);
+			bytes += saltados;
+			return saltados;
+		}
+
+		/**
+		 * Informa del número de bytes entregados.
+		 *
+		 * @return el valor correspondiente
+		 */
+		private long getBytes() {
+			return bytes;
+		}
+	}
+
+	/**
+	 * Recoge el nombre o ruta al archivo. Al escribir se emplea el nivel de
+	 * compresión predeterminado.
+	 *
 	 * @param rutaArchivo el texto correspondiente
 	 */
 	public AccesoArchivo(String rutaArchivo) {
+		this(rutaArchivo, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Recoge el nombre o ruta al archivo y el nivel de compresión al escribir:
+	 * {@link Deflater#BEST_SPEED} prima la velocidad y
+	 * {@link Deflater#BEST_COMPRESSION} el tamaño.
+	 *
+	 * @param rutaArchivo     el texto correspondiente
+	 * @param nivelCompresión el nivel, de 1 a 9, o
+	 *                        {@link Deflater#DEFAULT_COMPRESSION}
+	 */
+	public AccesoArchivo(String rutaArchivo, int nivelCompresión) {
 		this.rutaArchivo = rutaArchivo;
+		this.nivelCompresión = nivelCompresión;
+	}
+
+	/**
+	 * Abre el archivo para leerlo línea a línea, descomprimiéndolo sobre la marcha
+	 * si está comprimido.
+	 *
+	 * @return el lector, que debe cerrarse
+	 * @throws IOException si no se puede abrir el archivo
+	 */
+	public BufferedReader abrirLectura() throws IOException {
+		return new BufferedReader(new InputStreamReader(abrirEntrada(), StandardCharsets.UTF_8), TAMAÑO_BÚFER);
+	}
+
+	/**
+	 * Abre el archivo para leer sus bytes, descomprimiéndolo sobre la marcha si
+	 * está comprimido.
+	 *
+	 * @return la entrada del texto, que debe cerrarse
+	 * @throws IOException si no se puede abrir el archivo
+	 */
+	private InputStream abrirEntrada() throws IOException {
+		BufferedInputStream bytes;
+		InputStream entrada;
+		Compresión formato;
+
+		bytes = new BufferedInputStream(Files.newInputStream(Path.of(rutaArchivo)), TAMAÑO_BÚFER);
+		try {
+			bytes.mark(2);
+			formato = Compresión.deCabecera(bytes.read(), bytes.read());
+			bytes.reset();
+			entrada = switch (formato) {
+			case GZIP -> new GZIPInputStream(bytes, TAMAÑO_BÚFER);
+			case DEFLATE -> new EntradaDeflate(bytes);
+			case NINGUNA -> bytes;
+			};
+		} catch (IOException ex) {
+			bytes.close();
+			throw ex;
+		}
+		return entrada;
+	}
+
+	/**
+	 * Abre el archivo para escribirlo, comprimiendo sobre la marcha según su
+	 * extensión. Si el archivo existe lo sobreescribe.
+	 *
+	 * @return el escritor, que debe cerrarse para completar el archivo
+	 * @throws IOException si no se puede crear el archivo
+	 */
+	public BufferedWriter abrirEscritura() throws IOException {
+		OutputStream bytes, salida;
+
+		bytes = Files.newOutputStream(Path.of(rutaArchivo));
+		try {
+			salida = switch (Compresión.deExtensión(rutaArchivo)) {
+			case GZIP -> new SalidaGzip(bytes, nivelCompresión);
+			case DEFLATE -> new SalidaDeflate(bytes, nivelCompresión);
+			case NINGUNA -> bytes;
+			};
+		} catch (IOException ex) {
+			bytes.close();
+			throw ex;
+		}
+		return new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMAÑO_BÚFER);
 	}
 
 	/**
@@ -32,33 +333,50 @@ public class AccesoArchivo {
 	 * existe lo sobreescribe con el nuevo contenido. En caso de producirse algún
 	 * error de acceso se envía el mensaje a la salida de error estándar y el
 	 * programa continua.
-	 * 
+	 *
+	 * @see #abrirEscritura()
 	 * @param listaTextos el texto a escribir, línea a línea
 	 * @return si se ha completado la operación
 	 */
 	public boolean escribir(List<String> listaTextos) {
-		VistaGeneral.mostrarAviso("PENDIENTE: programador ocupado…");
-		return false;
+		boolean completado = false;
+
+		try (BufferedWriter out = abrirEscritura()) {
+			for (String línea : listaTextos) {
+				out.write(línea);
+				out.newLine();
+			}
+			completado = true;
+		} catch (IOException ex) {
+			System.err.printf("Error de exportación: %s%n", ex.getLocalizedMessage());
+		}
+		return completado;
 	}
 
 	/**
-	 * Crea y carga una lista de líneas de texto con el contenido del archivo.. En
-	 * caso de producirse algún error de acceso se envía el mensaje a la salida de
-	 * error estándar y el programa continua.
-	 * 
+	 * Crea y carga una lista de líneas de texto con el contenido del archivo,
+	 * descomprimiéndolo si es necesario. En caso de producirse algún error de
+	 * acceso se envía el mensaje a la salida de error estándar y el programa
+	 * continua. El evento JFR de lectura anota los bytes del texto ya
+	 * descomprimido.
+	 *
+	 * @see #abrirLectura()
 	 * @return la colección de líneas de texto; <code>null<code> en caso de error de
 	 *         acceso o si el archivo está vacío
 	 */
 	public List<String> leer() {
-		File refArchivo;
+		EventosImportacion.Lectura evento;
 		List<String> listaTextos;
 		String línea;
+		long bytesTexto = 0;
 
 		boolean finArchivo = false;
 
-		refArchivo = new File(rutaArchivo);
-		try (FileReader fr = new FileReader(refArchivo, Charset.forName("UTF-8"));
-				BufferedReader in = new BufferedReader(fr);) {
+		evento = new EventosImportacion.Lectura();
+		evento.begin();
+		try (EntradaContada entrada = new EntradaContada(abrirEntrada());
+				BufferedReader in = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8),
+						TAMAÑO_BÚFER)) {
 			listaTextos = new ArrayList<String>();
 
 			do {
@@ -70,6 +388,7 @@ public class AccesoArchivo {
 					finArchivo = true;
 				}
 			} while (!finArchivo);
+			bytesTexto = entrada.getBytes();
 
 			if (listaTextos.size() == 0) {
 				System.err.printf("Error de importación: archivo «%s» vacío%n", rutaArchivo);
@@ -79,6 +398,88 @@ public class AccesoArchivo {
 			System.err.printf("Error de importación: %s%n", ex.getLocalizedMessage());
 			listaTextos = null;
 		}
+
+		evento.end();
+		if (evento.shouldCommit()) {
+			evento.archivo = rutaArchivo;
+			evento.líneas = listaTextos == null ? 0 : listaTextos.size();
+			evento.bytes = bytesTexto;
+			evento.commit();
+		}
 		return listaTextos;
 	}
+
+	/**
+	 * Mide la velocidad de escritura y de lectura de un inventario, en MB/s de
+	 * texto sin comprimir, y el tamaño resultante sin compresión y con cada formato
+	 * y nivel. Si no se indica el archivo se genera uno sintético.
+	 *
+	 * @param argumentos opciones de ejecución: archivo de inventario a emplear
+	 */
+	public static void main(String[] argumentos) {
+		Compresión[] formatos = { Compresión.NINGUNA, Compresión.GZIP, Compresión.GZIP, Compresión.GZIP,
+				Compresión.DEFLATE };
+		int[] niveles = { Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION,
+				Deflater.BEST_COMPRESSION, Deflater.BEST_SPEED };
+		AccesoArchivo archivo;
+		List<String> líneas;
+		Path directorio = null, destino;
+		long inicio, bytesTexto = 0, control = 0;
+		double escritura, lectura;
+		String línea;
+
+		try {
+			directorio = Files.createTempDirectory("compresion");
+			if (argumentos.length > 0) {
+				líneas = new AccesoArchivo(argumentos[0]).leer();
+			} else {
+				new GeneradorInventario(1, 200_000, 1, 0).escribirArchivos(directorio);
+				try (var archivos = Files.list(directorio)) {
+					líneas = new AccesoArchivo(archivos.findFirst().orElseThrow().toString()).leer();
+				}
+			}
+			if (líneas != null) {
+				for (String texto : líneas) {
+					bytesTexto += texto.getBytes(StandardCharsets.UTF_8).length + 1;
+				}
+				System.out.printf("%d líneas, %.1f MB de texto%n", líneas.size(), bytesTexto / 1e6);
+
+				for (int i = 0; i < formatos.length; i++) {
+					destino = directorio.resolve("prueba" + i + ".txt" + formatos[i].getExtensión());
+					archivo = new AccesoArchivo(destino.toString(), niveles[i]);
+					escritura = lectura = 0;
+					for (int vuelta = 0; vuelta < 2; vuelta++) { // La primera vuelta sirve de calentamiento
+						inicio = System.nanoTime();
+						archivo.escribir(líneas);
+						escritura = bytesTexto * 1e3 / (System.nanoTime() - inicio);
+
+						inicio = System.nanoTime();
+						try (BufferedReader in = archivo.abrirLectura()) {
+							while ((línea = in.readLine()) != null) {
+								control += línea.length();
+							}
+						}
+						lectura = bytesTexto * 1e3 / (System.nanoTime() - inicio);
+					}
+					System.out.printf("%-7s nivel %2d: %6.1f MB (%5.1f %%) · escritura %6.1f MB/s · lectura %6.1f MB/s%n",
+							formatos[i], niveles[i], Files.size(destino) / 1e6,
+							Files.size(destino) * 100.0 / bytesTexto, escritura, lectura);
+				}
+				System.out.printf("(control: %d)%n", control);
+			}
+		} catch (IOException e) {
+			System.err.printf("Error en la medición: %s%n", e.getLocalizedMessage());
+		} finally {
+			if (directorio != null) {
+				try (var archivos = Files.list(directorio)) {
+					for (Path temporal : archivos.toList()) {
+						Files.deleteIfExists(temporal);
+					}
+					Files.deleteIfExists(directorio);
+				} catch (IOException e) {
+					System.err.printf("No se ha podido borrar «%s»: %s%n", directorio, e.getLocalizedMessage());
+				}
+			}
+		}
+	}
 }
@@ -11,30 +11,335 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utilidades de acceso a una base de datos SQLite para gestión de
  * {@link InventarioAula puestos de un aula de informática}.
  * 
+ * @see AlmacenInventario
  * @version 09.08 (20250525000)
  * @author <a href="dmartin.jcolonia@gmail.com">David H. Martín</a>
  */
-public class AccesoBD implements AutoCloseable {
-	/** Sentencia SQL para crear la tabla «Puestos» –vacía– si no existe. */
-	private static final String SQL_CREAR_TABLA = "CREATE TABLE IF NOT EXISTS Puestos (código_puesto TEXT NOT NULL, ordenador TEXT NOT NULL, nombre TEXT NOT NULL, apellidos TEXT NOT NULL)";
+public class AccesoBD implements AlmacenInventario {
+	/**
+	 * Puesto encontrado en una búsqueda de texto.
+	 * 
+	 * @param código     el código del puesto
+	 * @param puesto     los datos del puesto
+	 * @param relevancia la puntuación FTS5 de la coincidencia; cuanto menor, más
+	 *                   relevante
+	 */
+	record Coincidencia(String código, PuestoUsuario puesto, double relevancia) {
+	}
+
+	/**
+	 * Resumen de un aula almacenada.
+	 * 
+	 * @see AccesoBD#resumen()
+	 * @param prefijo    el prefijo del aula
+	 * @param puestos    el número de puestos
+	 * @param modificado el instante de la última alta, baja o modificación de
+	 *                   alguno de sus puestos
+	 */
+	public record ResumenAula(String prefijo, int puestos, Instant modificado) {
+		/**
+		 * Genera una descripción con el mismo formato que
+		 * {@link InventarioAula#toString()}.<div>Ejemplo:
+		 * 
+		 * <pre>
+		 *   IC* – 12 puestos
+		 * </pre>
+		 * 
+		 * </div>
+		 * 
+		 * @return el texto correspondiente
+		 */
+		@Override
+		public String toString() {
+			return String.format("%s* – %d puestos", prefijo, puestos);
+		}
+	}
+
+	/**
+	 * Destinatario de los puestos leídos de uno en uno, sin reunirlos antes en un
+	 * inventario.
+	 * 
+	 * @see AccesoBD#recorrer(String, ReceptorPuestos)
+	 */
+	@FunctionalInterface
+	public interface ReceptorPuestos {
+		/**
+		 * Recibe un puesto.
+		 * 
+		 * @param código el código del puesto
+		 * @param puesto los datos del puesto
+		 * @throws IOException si no se puede entregar el puesto a su destino
+		 */
+		void recibir(String código, PuestoUsuario puesto) throws IOException;
+	}
+
+	/**
+	 * Destinatario de los puestos leídos de uno en uno junto con el prefijo del
+	 * aula a la que pertenecen, tal como está almacenado.
+	 * 
+	 * @see AccesoBD#recorrerTramo(String, String, ReceptorPuestosAula)
+	 */
+	@FunctionalInterface
+	public interface ReceptorPuestosAula {
+		/**
+		 * Recibe un puesto.
+		 * 
+		 * @param prefijoAula el prefijo del aula del puesto
+		 * @param código      el código del puesto
+		 * @param puesto      los datos del puesto
+		 * @throws IOException si no se puede entregar el puesto a su destino
+		 */
+		void recibir(String prefijoAula, String código, PuestoUsuario puesto) throws IOException;
+	}
+
+	/**
+	 * Sentencia SQL para crear la tabla «Puestos» –vacía– si no existe. Cada
+	 * puesto guarda el prefijo del aula a la que pertenece: no siempre se puede
+	 * deducir del código, ya que el prefijo puede contener cifras –«IC2»– y la
+	 * posición del puesto, letras.
+	 */
+	private static final String SQL_CREAR_TABLA = "CREATE TABLE IF NOT EXISTS Puestos (código_puesto TEXT NOT NULL, ordenador TEXT NOT NULL, nombre TEXT NOT NULL, apellidos TEXT NOT NULL, prefijo_aula TEXT NOT NULL DEFAULT '')";
+
+	/**
+	 * Sentencia SQL para comprobar si la tabla «Puestos» ya tiene la columna del
+	 * prefijo de aula.
+	 */
+	private static final String SQL_EXISTE_COLUMNA_AULA = "SELECT 1 FROM pragma_table_info('Puestos') WHERE name = 'prefijo_aula'";
+
+	/**
+	 * Sentencias SQL para añadir la columna del prefijo de aula a una tabla
+	 * «Puestos» creada por versiones anteriores. El aula real de esos puestos no
+	 * se llegó a anotar; se les asigna la que se deducía antes, el código sin las
+	 * cifras finales. Los disparadores y la tabla de resumen anteriores, que
+	 * empleaban esa misma deducción, se eliminan para crearlos de nuevo.
+	 */
+	private static final String[] SQL_MIGRAR_COLUMNA_AULA = { "DROP TRIGGER IF EXISTS PuestosResumen_ai",
+			"DROP TRIGGER IF EXISTS PuestosResumen_ad", "DROP TRIGGER IF EXISTS PuestosResumen_au",
+			"DROP TABLE IF EXISTS PuestosResumen",
+			"ALTER TABLE Puestos ADD COLUMN prefijo_aula TEXT NOT NULL DEFAULT ''",
+			"UPDATE Puestos SET prefijo_aula = upper(rtrim(código_puesto, '0123456789'))" };
+
+	/**
+	 * Prototipo de sentenciaSQL preparada para insertar puestos. Si no se indica
+	 * el prefijo del aula –quinto parámetro nulo–, se toma el del aula almacenada
+	 * de prefijo más largo con el que comience el código; y si no hay ninguna, el
+	 * código sin las cifras finales.
+	 */
+	private static final String SQL_INSERTAR_CONTACTO = "INSERT INTO Puestos (código_puesto, ordenador, nombre, apellidos, prefijo_aula) VALUES (?1, ?2, ?3, ?4, coalesce(?5, (SELECT prefijo FROM PuestosResumen WHERE prefijo <> '' AND substr(?1, 1, length(prefijo)) = prefijo ORDER BY length(prefijo) DESC LIMIT 1), rtrim(?1, '0123456789')))";
 
-	/** Prototipo de sentenciaSQL preparada para insertar puestos. */
-	private static final String SQL_INSERTAR_CONTACTO = "INSERT INTO Puestos VALUES (?, ?, ?, ?)";
+	/**
+	 * Sentencia SQL para obtener los puestos de un aula, según el prefijo anotado
+	 * en cada uno.
+	 */
+	private static final String SQL_LISTADO_AULA = "SELECT * FROM Puestos WHERE prefijo_aula = ?";
+
+	/**
+	 * Sentencia SQL para recorrer, en orden, los puestos con el código dentro de
+	 * un tramo.
+	 */
+	private static final String SQL_LISTADO_TRAMO = "SELECT * FROM Puestos WHERE código_puesto >= ? AND código_puesto < ? ORDER BY código_puesto";
 
-	/** Sentencia SQL para obtener un volcado completo de los resultados. */
-	private static final String SQL_LISTADO_AULA = "SELECT * FROM Puestos WHERE códigoPuesto LIKE ?";
+	/**
+	 * Sentencia SQL para recorrer, en orden, los puestos desde un código hasta el
+	 * final.
+	 */
+	private static final String SQL_LISTADO_TRAMO_FINAL = "SELECT * FROM Puestos WHERE código_puesto >= ? ORDER BY código_puesto";
 
 	/** Sentencia SQL para vaciar los resultados. */
 	private static final String SQL_VACIAR_TABLA = "DELETE FROM Puestos";
 
+	/**
+	 * Prototipo de sentencia SQL para crear el índice por código de puesto sobre
+	 * una tabla. Admite como argumentos el nombre del índice y el de la tabla.
+	 */
+	private static final String SQL_CREAR_ÍNDICE_CÓDIGO = "CREATE INDEX %s ON %s (código_puesto)";
+
+	/**
+	 * Sentencia SQL para obtener el nombre del índice por código de puesto vigente.
+	 * Su nombre alterna entre recargas completas.
+	 * 
+	 * @see #recargar(Collection)
+	 */
+	private static final String SQL_NOMBRE_ÍNDICE_CÓDIGO = "SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'Puestos' AND name LIKE 'Puestos_código%'";
+
+	/** Nombres alternativos del índice por código de puesto. */
+	private static final String[] NOMBRES_ÍNDICE_CÓDIGO = { "Puestos_código", "Puestos_código_b" };
+
+	/**
+	 * Prototipo de sentencia SQL para crear el índice por prefijo de aula sobre
+	 * una tabla. Admite como argumentos el nombre del índice y el de la tabla.
+	 */
+	private static final String SQL_CREAR_ÍNDICE_AULA = "CREATE INDEX %s ON %s (prefijo_aula)";
+
+	/**
+	 * Sentencia SQL para obtener el nombre del índice por prefijo de aula vigente.
+	 * Su nombre alterna entre recargas completas.
+	 * 
+	 * @see #recargar(Collection)
+	 */
+	private static final String SQL_NOMBRE_ÍNDICE_AULA = "SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'Puestos' AND name LIKE 'Puestos_aula%'";
+
+	/** Nombres alternativos del índice por prefijo de aula. */
+	private static final String[] NOMBRES_ÍNDICE_AULA = { "Puestos_aula", "Puestos_aula_b" };
+
+	/** Sentencia SQL para activar el registro de escritura anticipada –WAL–. */
+	private static final String SQL_MODO_WAL = "PRAGMA journal_mode = WAL";
+
+	/** Sentencias SQL para preparar las tablas de carga de una recarga completa. */
+	private static final String[] SQL_CREAR_TABLAS_CARGA = { "DROP TABLE IF EXISTS PuestosCarga",
+			"DROP TABLE IF EXISTS PuestosCargaTexto",
+			"CREATE TABLE PuestosCarga (código_puesto TEXT NOT NULL, ordenador TEXT NOT NULL, nombre TEXT NOT NULL, apellidos TEXT NOT NULL, prefijo_aula TEXT NOT NULL DEFAULT '')" };
+
+	/** Prototipo de sentencia SQL preparada para insertar puestos en la carga. */
+	private static final String SQL_INSERTAR_CARGA = "INSERT INTO PuestosCarga (código_puesto, ordenador, nombre, apellidos, prefijo_aula) VALUES (?, ?, ?, ?, ?)";
+
+	/**
+	 * Sentencias SQL para generar el índice de texto de la carga. Apunta ya a la
+	 * tabla «Puestos» como contenido externo, que es el nombre que tendrá la carga
+	 * tras el intercambio; las filas conservan su «rowid».
+	 */
+	private static final String[] SQL_CREAR_ÍNDICE_TEXTO_CARGA = {
+			"CREATE VIRTUAL TABLE PuestosCargaTexto USING fts5(código_puesto UNINDEXED, ordenador, nombre, apellidos, content='Puestos', content_rowid='rowid', tokenize='unicode61 remove_diacritics 2')",
+			"INSERT INTO PuestosCargaTexto(rowid, código_puesto, ordenador, nombre, apellidos) SELECT rowid, código_puesto, ordenador, nombre, apellidos FROM PuestosCarga" };
+
+	/**
+	 * Sentencias SQL para intercambiar las tablas de carga por las vigentes. Al
+	 * eliminar la tabla «Puestos» se eliminan también su índice y sus disparadores,
+	 * que se vuelven a crear a continuación.
+	 */
+	private static final String[] SQL_INTERCAMBIAR_TABLAS = { "DROP TABLE Puestos", "DROP TABLE PuestosTexto",
+			"ALTER TABLE PuestosCarga RENAME TO Puestos", "ALTER TABLE PuestosCargaTexto RENAME TO PuestosTexto" };
+
+	/** Sentencia SQL para contar los puestos almacenados. */
+	private static final String SQL_CONTAR_PUESTOS = "SELECT COUNT(*) FROM Puestos";
+
+	/** Sentencia SQL para obtener todos los códigos de puesto almacenados. */
+	private static final String SQL_LISTADO_CÓDIGOS = "SELECT código_puesto FROM Puestos";
+
+	/** Sentencia SQL para comprobar si un código de puesto ya está almacenado. */
+	private static final String SQL_EXISTE_CÓDIGO = "SELECT 1 FROM Puestos WHERE código_puesto = ? LIMIT 1";
+
+	/** Plantilla SQL para leer un puesto por su código. */
+	private static final String SQL_LEER_PUESTO = "SELECT * FROM Puestos WHERE código_puesto = ? LIMIT 1";
+
+	/** Plantilla SQL para sustituir los datos de un puesto. */
+	private static final String SQL_ACTUALIZAR_PUESTO = "UPDATE Puestos SET ordenador = ?, nombre = ?, apellidos = ? WHERE código_puesto = ?";
+
+	/** Plantilla SQL para eliminar un puesto. */
+	private static final String SQL_ELIMINAR_PUESTO = "DELETE FROM Puestos WHERE código_puesto = ?";
+
+	/** Tasa de falsos positivos objetivo del filtro de duplicados. */
+	private static final double TASA_FALSOS_POSITIVOS = 0.01;
+
+	/** Capacidad mínima del filtro de duplicados. */
+	private static final int CAPACIDAD_MÍNIMA_FILTRO = 1 << 16;
+
+	/**
+	 * Sentencia SQL para crear –si no existe– el índice de texto completo FTS5
+	 * sobre la tabla «Puestos». Emplea la tabla original como contenido externo y
+	 * un separador de palabras Unicode que elimina tildes y diéresis.
+	 */
+	private static final String SQL_CREAR_ÍNDICE_TEXTO = "CREATE VIRTUAL TABLE IF NOT EXISTS PuestosTexto USING fts5(código_puesto UNINDEXED, ordenador, nombre, apellidos, content='Puestos', content_rowid='rowid', tokenize='unicode61 remove_diacritics 2')";
+
+	/** Sentencias SQL de los disparadores que sincronizan el índice de texto. */
+	private static final String[] SQL_CREAR_DISPARADORES_TEXTO = {
+			"CREATE TRIGGER IF NOT EXISTS PuestosTexto_ai AFTER INSERT ON Puestos BEGIN INSERT INTO PuestosTexto(rowid, código_puesto, ordenador, nombre, apellidos) VALUES (new.rowid, new.código_puesto, new.ordenador, new.nombre, new.apellidos); END",
+			"CREATE TRIGGER IF NOT EXISTS PuestosTexto_ad AFTER DELETE ON Puestos BEGIN INSERT INTO PuestosTexto(PuestosTexto, rowid, código_puesto, ordenador, nombre, apellidos) VALUES ('delete', old.rowid, old.código_puesto, old.ordenador, old.nombre, old.apellidos); END",
+			"CREATE TRIGGER IF NOT EXISTS PuestosTexto_au AFTER UPDATE ON Puestos BEGIN INSERT INTO PuestosTexto(PuestosTexto, rowid, código_puesto, ordenador, nombre, apellidos) VALUES ('delete', old.rowid, old.código_puesto, old.ordenador, old.nombre, old.apellidos); INSERT INTO PuestosTexto(rowid, código_puesto, ordenador, nombre, apellidos) VALUES (new.rowid, new.código_puesto, new.ordenador, new.nombre, new.apellidos); END" };
+
+	/** Sentencia SQL para comprobar si ya existe el índice de texto. */
+	private static final String SQL_EXISTE_ÍNDICE_TEXTO = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'PuestosTexto'";
+
+	/** Sentencia SQL para reconstruir el índice de texto desde la tabla original. */
+	private static final String SQL_RECONSTRUIR_ÍNDICE_TEXTO = "INSERT INTO PuestosTexto(PuestosTexto) VALUES ('rebuild')";
+
+	/** Sentencia SQL para buscar puestos por texto, ordenados por relevancia. */
+	private static final String SQL_BUSCAR_TEXTO = "SELECT código_puesto, ordenador, nombre, apellidos, rank FROM PuestosTexto WHERE PuestosTexto MATCH ? ORDER BY rank LIMIT ?";
+
+	/**
+	 * Sentencia SQL para crear –si no existe– la tabla de resumen por aula, con el
+	 * número de puestos y el instante de la última modificación –en milisegundos
+	 * desde 1970– de cada prefijo.
+	 */
+	private static final String SQL_CREAR_TABLA_RESUMEN = "CREATE TABLE IF NOT EXISTS PuestosResumen (prefijo TEXT PRIMARY KEY, puestos INTEGER NOT NULL, modificado INTEGER NOT NULL) WITHOUT ROWID";
+
+	/** Sentencia SQL para comprobar si ya existe la tabla de resumen. */
+	private static final String SQL_EXISTE_TABLA_RESUMEN = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'PuestosResumen'";
+
+	/**
+	 * Sentencias SQL de los disparadores que mantienen la tabla de resumen al
+	 * insertar, eliminar o modificar puestos, según el prefijo de aula anotado en
+	 * cada puesto.
+	 */
+	private static final String[] SQL_CREAR_DISPARADORES_RESUMEN = {
+			"CREATE TRIGGER IF NOT EXISTS PuestosResumen_ai AFTER INSERT ON Puestos BEGIN INSERT INTO PuestosResumen VALUES (new.prefijo_aula, 1, CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)) ON CONFLICT(prefijo) DO UPDATE SET puestos = puestos + 1, modificado = excluded.modificado; END",
+			"CREATE TRIGGER IF NOT EXISTS PuestosResumen_ad AFTER DELETE ON Puestos BEGIN UPDATE PuestosResumen SET puestos = puestos - 1, modificado = CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER) WHERE prefijo = old.prefijo_aula; DELETE FROM PuestosResumen WHERE prefijo = old.prefijo_aula AND puestos <= 0; END",
+			"CREATE TRIGGER IF NOT EXISTS PuestosResumen_au AFTER UPDATE ON Puestos BEGIN UPDATE PuestosResumen SET puestos = puestos - 1 WHERE prefijo = old.prefijo_aula; DELETE FROM PuestosResumen WHERE prefijo = old.prefijo_aula AND puestos <= 0; INSERT INTO PuestosResumen VALUES (new.prefijo_aula, 1, CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)) ON CONFLICT(prefijo) DO UPDATE SET puestos = puestos + 1, modificado = excluded.modificado; END" };
+
+	/**
+	 * Sentencias SQL para reconstruir por completo la tabla de resumen a partir de
+	 * la tabla «Puestos».
+	 */
+	private static final String[] SQL_RECONSTRUIR_RESUMEN = { "DELETE FROM PuestosResumen",
+			"INSERT INTO PuestosResumen SELECT prefijo_aula, COUNT(*), CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER) FROM Puestos GROUP BY 1" };
+
+	/** Sentencia SQL para obtener el resumen de todas las aulas. */
+	private static final String SQL_LISTADO_RESUMEN = "SELECT prefijo, puestos, modificado FROM PuestosResumen ORDER BY prefijo";
+
+	/**
+	 * Sentencia SQL para crear –si no existe– el registro de importaciones: la
+	 * huella de cada archivo importado.
+	 * 
+	 * @see HuellaArchivo
+	 */
+	private static final String SQL_CREAR_TABLA_IMPORTACIONES = "CREATE TABLE IF NOT EXISTS Importaciones (ruta TEXT PRIMARY KEY, tamaño INTEGER NOT NULL, modificado INTEGER NOT NULL, posición INTEGER NOT NULL, resumen INTEGER NOT NULL, prefijo TEXT NOT NULL, líneas INTEGER NOT NULL, resumen_cola INTEGER)";
+
+	/**
+	 * Sentencia SQL para comprobar si el registro de importaciones ya tiene la
+	 * columna del resumen de la cola.
+	 */
+	private static final String SQL_EXISTE_COLUMNA_COLA = "SELECT 1 FROM pragma_table_info('Importaciones') WHERE name = 'resumen_cola'";
+
+	/**
+	 * Sentencia SQL para añadir la columna del resumen de la cola a un registro
+	 * de importaciones creado por versiones anteriores. Sus huellas quedan sin
+	 * ese resumen y se comprueban con el del archivo completo.
+	 */
+	private static final String SQL_MIGRAR_COLUMNA_COLA = "ALTER TABLE Importaciones ADD COLUMN resumen_cola INTEGER";
+
+	/** Sentencia SQL para obtener la huella de un archivo importado. */
+	private static final String SQL_LEER_HUELLA = "SELECT * FROM Importaciones WHERE ruta = ?";
+
+	/** Prototipo de sentencia SQL preparada para anotar la huella de un archivo. */
+	private static final String SQL_GRABAR_HUELLA = "INSERT OR REPLACE INTO Importaciones (ruta, tamaño, modificado, posición, resumen, prefijo, líneas, resumen_cola) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	/** Prototipo de sentencia SQL preparada para olvidar la huella de un archivo. */
+	private static final String SQL_ELIMINAR_HUELLA = "DELETE FROM Importaciones WHERE ruta = ?";
+
+	/** Prototipo de sentencia SQL preparada para eliminar los puestos de un aula. */
+	private static final String SQL_ELIMINAR_AULA = "DELETE FROM Puestos WHERE prefijo_aula = ?";
+
+	/**
+	 * Sentencia SQL para olvidar todas las huellas, ya que tras una recarga
+	 * completa no se corresponden con el contenido.
+	 */
+	private static final String SQL_VACIAR_IMPORTACIONES = "DELETE FROM Importaciones";
+
 	/** Sentencia SQL para compactar espacio en el archivo de la base de datos. */
 	private static final String SQL_COMPACTAR_ESPACIO = "VACUUM";
 
@@ -47,9 +352,26 @@ public class AccesoBD implements AutoCloseable {
 	/** Nombre predeterminado del archivo de la base de datos. */
 	public static final String ARCHIVO_BD_PREDETERMINADO = "inventarioPuestosIC.db";
  
+	/** Número máximo de líneas descartadas que se detallan tras una importación. */
+	private static final int MÁX_RECHAZOS_DETALLADOS = 10;
+
 	/** Nombre del archivo de datos para impotación/exportación. */
 	private static final String NOMBRE_ARCHIVO = "Inventario ICXX.txt";
 
+	/** Prefijo de los URL JDBC de SQLite, seguido de la ruta del archivo. */
+	private static final String PREFIJO_URL_SQLITE = "jdbc:sqlite:";
+
+	/** Sentencia SQL para activar la compactación incremental de espacio. */
+	private static final String SQL_MODO_COMPACTACIÓN_INCREMENTAL = "PRAGMA auto_vacuum = INCREMENTAL";
+
+	/**
+	 * Instante –según {@link System#nanoTime()}– de la última consulta o
+	 * modificación realizada desde cualquier acceso del programa.
+	 * 
+	 * @see MantenimientoBD
+	 */
+	private static final AtomicLong ÚLTIMA_ACTIVIDAD = new AtomicLong(System.nanoTime());
+
 	/** Configuración del acceso a la base de datos. */
 	private Properties configuración;
 
@@ -71,6 +393,91 @@ public class AccesoBD implements AutoCloseable {
 	 * @see #SQL_LISTADO_AULA
 	 */
 	private PreparedStatement preConsultaSQL;
+	/**
+	 * Sentencia preparada SQL, para búsquedas de texto en la base de datos.
+	 * 
+	 * @see #SQL_BUSCAR_TEXTO
+	 */
+	private PreparedStatement preBúsquedaSQL;
+	/**
+	 * Sentencia preparada SQL, para comprobar códigos duplicados.
+	 * 
+	 * @see #SQL_EXISTE_CÓDIGO
+	 */
+	private PreparedStatement preExisteCódigoSQL;
+	/**
+	 * Sentencia preparada SQL, para leer un puesto por su código.
+	 * 
+	 * @see #SQL_LEER_PUESTO
+	 */
+	private PreparedStatement preLeerPuestoSQL;
+	/**
+	 * Sentencia preparada SQL, para recorrer un tramo de códigos.
+	 * 
+	 * @see #SQL_LISTADO_TRAMO
+	 */
+	private PreparedStatement preTramoSQL;
+	/**
+	 * Sentencia preparada SQL, para recorrer el último tramo de códigos.
+	 * 
+	 * @see #SQL_LISTADO_TRAMO_FINAL
+	 */
+	private PreparedStatement preTramoFinalSQL;
+	/**
+	 * Sentencia preparada SQL, para sustituir los datos de un puesto.
+	 * 
+	 * @see #SQL_ACTUALIZAR_PUESTO
+	 */
+	private PreparedStatement preActualizarSQL;
+	/**
+	 * Sentencia preparada SQL, para eliminar un puesto.
+	 * 
+	 * @see #SQL_ELIMINAR_PUESTO
+	 */
+	private PreparedStatement preEliminarSQL;
+	/**
+	 * Sentencia preparada SQL, para consultar el registro de importaciones.
+	 * 
+	 * @see #SQL_LEER_HUELLA
+	 */
+	private PreparedStatement preLeerHuellaSQL;
+	/**
+	 * Sentencia preparada SQL, para anotar en el registro de importaciones.
+	 * 
+	 * @see #SQL_GRABAR_HUELLA
+	 */
+	private PreparedStatement preGrabarHuellaSQL;
+
+	/**
+	 * Filtro de Bloom con los códigos de puesto almacenados; <code>null</code>
+	 * hasta la primera inserción o la activación expresa del control de
+	 * duplicados.
+	 * 
+	 * @see #activarControlDuplicados()
+	 */
+	private FiltroBloom filtroDuplicados;
+
+	/**
+	 * Número de puestos descartados por tener un código ya almacenado, desde que
+	 * se abrió la conexión.
+	 */
+	private long númDuplicados;
+
+	/**
+	 * Registro de sentencias lentas; <code>null</code> si está desactivado o
+	 * mientras no se abra la conexión.
+	 * 
+	 * @see RegistroConsultasLentas
+	 */
+	private RegistroConsultasLentas registroLentas;
+
+	/**
+	 * Destinatarios de los cambios en los puestos. Se pueden registrar y dar de
+	 * baja desde cualquier hilo.
+	 * 
+	 * @see #añadirObservador(CambioInventario.Observador)
+	 */
+	private final List<CambioInventario.Observador> observadores = new CopyOnWriteArrayList<>();
 
 	/**
 	 * Carga la configuración desde el archivo de configuración predeterminado.
@@ -104,6 +511,109 @@ public class AccesoBD implements AutoCloseable {
 		}
 	}
 
+	/**
+	 * Facilita la ruta del archivo de la base de datos, obtenida del URL JDBC de la
+	 * configuración.
+	 * 
+	 * @return la ruta correspondiente; <code>null</code> si el URL no corresponde
+	 *         a un archivo SQLite
+	 */
+	public Path getRutaBD() {
+		String jdbcURL;
+		Path ruta = null;
+
+		jdbcURL = configuración.getProperty("jdbc.url", "");
+		if (jdbcURL.startsWith(PREFIJO_URL_SQLITE) && !jdbcURL.contains(":memory:")) {
+			ruta = Path.of(jdbcURL.substring(PREFIJO_URL_SQLITE.length()));
+		}
+		return ruta;
+	}
+
+	/**
+	 * Anota el instante actual como el de la última actividad.
+	 */
+	private static void anotarActividad() {
+		ÚLTIMA_ACTIVIDAD.set(System.nanoTime());
+	}
+
+	/**
+	 * Comprueba la duración de una sentencia recién ejecutada y, si supera el
+	 * umbral configurado, la anota en el registro de sentencias lentas junto con
+	 * su plan de ejecución.
+	 * 
+	 * @see RegistroConsultasLentas
+	 * @param sql        la sentencia
+	 * @param inicio     el instante de comienzo, según {@link System#nanoTime()}
+	 * @param filas      el número de filas leídas o modificadas
+	 * @param parámetros los parámetros asociados, en orden
+	 */
+	private void medirSentencia(String sql, long inicio, long filas, Object... parámetros) {
+		long nanosegundos;
+
+		nanosegundos = System.nanoTime() - inicio;
+		if (registroLentas != null && registroLentas.esLenta(nanosegundos)) {
+			registroLentas.anotar(conexión, sql, parámetros, filas, nanosegundos);
+		}
+	}
+
+	/**
+	 * Comprueba la duración de un lote de ejecuciones de una sentencia preparada
+	 * recién terminado y, si supera el umbral configurado, lo anota en el
+	 * registro de sentencias lentas con el tamaño del lote en lugar de los
+	 * parámetros. Un lote vacío no se anota.
+	 * 
+	 * @see RegistroConsultasLentas#anotarLote(Connection, String, int, long, long)
+	 * @param sql        la sentencia
+	 * @param inicio     el instante de comienzo, según {@link System#nanoTime()}
+	 * @param filas      el número de filas modificadas
+	 * @param sentencias el número de ejecuciones del lote
+	 */
+	private void medirLote(String sql, long inicio, long filas, int sentencias) {
+		long nanosegundos;
+
+		nanosegundos = System.nanoTime() - inicio;
+		if (sentencias > 0 && registroLentas != null && registroLentas.esLenta(nanosegundos)) {
+			registroLentas.anotarLote(conexión, sql, sentencias, filas, nanosegundos);
+		}
+	}
+
+	/**
+	 * Ejecuta una sentencia sin parámetros comprobando su duración.
+	 * 
+	 * @see #medirSentencia(String, long, long, Object...)
+	 * @param sentencia la sentencia general donde ejecutarla
+	 * @param sql       el texto de la sentencia
+	 * @throws SQLException si se produce alguna incidencia
+	 */
+	private void ejecutar(Statement sentencia, String sql) throws SQLException {
+		long inicio;
+
+		inicio = System.nanoTime();
+		sentencia.execute(sql);
+		medirSentencia(sql, inicio, Math.max(sentencia.getUpdateCount(), 0));
+	}
+
+	/**
+	 * Informa del tiempo transcurrido desde la última consulta o modificación
+	 * realizada desde cualquier acceso del programa.
+	 * 
+	 * @return el tiempo en milisegundos
+	 */
+	public static long getMilisegundosInactividad() {
+		return (System.nanoTime() - ÚLTIMA_ACTIVIDAD.get()) / 1_000_000;
+	}
+
+	/**
+	 * Emplea directamente una configuración ya cargada o generada, sin archivo de
+	 * configuración.
+	 * 
+	 * @see #generarConfiguración(String)
+	 * @param configuración la configuración del acceso a la base de datos
+	 */
+	public AccesoBD(Properties configuración) {
+		this.configuración = configuración;
+	}
+
 	/**
 	 * Lee un archivo de configuración.
 	 * 
@@ -145,11 +655,7 @@ public class AccesoBD implements AutoCloseable {
 		Path rutaConfig;
 		rutaConfig = Path.of(archivoConfiguración);
 
-		Properties configuración = new Properties();
-		configuración.setProperty("jdbc.url", "jdbc:sqlite:" + archivoBD);
-		configuración.setProperty("jdbc.user", "");
-		configuración.setProperty("jdbc.password", "");
-		configuración.setProperty("jdbc.codificación", "UTF-8");
+		Properties configuración = generarConfiguración(archivoBD);
 
 		try (FileOutputStream out = new FileOutputStream(rutaConfig.toFile())) {
 			configuración.storeToXML(out, "Configuración BD", "UTF-8");
@@ -162,6 +668,22 @@ public class AccesoBD implements AutoCloseable {
 		return configuración;
 	}
 
+	/**
+	 * Genera la configuración de acceso a una base de datos en formato SQLite, sin
+	 * guardarla en ningún archivo.
+	 * 
+	 * @param archivoBD el nombre, ruta del archivo de la base de datos
+	 * @return la configuración generada
+	 */
+	public static Properties generarConfiguración(String archivoBD) {
+		Properties configuración = new Properties();
+		configuración.setProperty("jdbc.url", PREFIJO_URL_SQLITE + archivoBD);
+		configuración.setProperty("jdbc.user", "");
+		configuración.setProperty("jdbc.password", "");
+		configuración.setProperty("jdbc.codificación", "UTF-8");
+		return configuración;
+	}
+
 	/**
 	 * Comprueba la existencia de un archivo.
 	 * 
@@ -185,7 +707,8 @@ public class AccesoBD implements AutoCloseable {
 	/**
 	 * Abre la conexión a la base de datos si no ha sido abierta previamente. Crea
 	 * también una sentencia SQL genérica –disponible para ejecutar consultas no
-	 * preparadas– y la tabla principal en caso de no existir.
+	 * preparadas– y la tabla principal en caso de no existir, junto con su índice
+	 * de texto completo.
 	 * 
 	 * @return la conexión existente o creada
 	 * @throws AccesoBDException si no se completa o se produce alguna incidencia
@@ -197,7 +720,7 @@ public class AccesoBD implements AutoCloseable {
 			String jdbcUser = configuración.getProperty("jdbc.user");
 			String jdbcPassword = configuración.getProperty("jdbc.password");
 
-			try {
+			try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.CONEXIÓN)) {
 				conexión = DriverManager.getConnection(jdbcURL, jdbcUser, jdbcPassword);
 
 				if (conexión == null) { // Conexión fallida
@@ -205,9 +728,26 @@ public class AccesoBD implements AutoCloseable {
 					throw new AccesoBDException(mensaje);
 				}
 
+				registroLentas = RegistroConsultasLentas.of(configuración);
 				sentenciaGeneralSQL = conexión.createStatement();
 				sentenciaGeneralSQL.setQueryTimeout(5);
+				// Antes que el modo WAL, que ya escribe la cabecera del archivo: solo es
+				// efectivo en archivos nuevos; los existentes requieren compactar()
+				sentenciaGeneralSQL.execute(SQL_MODO_COMPACTACIÓN_INCREMENTAL);
+				sentenciaGeneralSQL.execute(SQL_MODO_WAL);
 				sentenciaGeneralSQL.execute(SQL_CREAR_TABLA);
+				migrarColumnaAula();
+				if (buscarÍndice(SQL_NOMBRE_ÍNDICE_CÓDIGO) == null) {
+					sentenciaGeneralSQL.execute(String.format(SQL_CREAR_ÍNDICE_CÓDIGO, NOMBRES_ÍNDICE_CÓDIGO[0], "Puestos"));
+				}
+				if (buscarÍndice(SQL_NOMBRE_ÍNDICE_AULA) == null) {
+					sentenciaGeneralSQL.execute(String.format(SQL_CREAR_ÍNDICE_AULA, NOMBRES_ÍNDICE_AULA[0], "Puestos"));
+				}
+				crearÍndiceTexto();
+				crearResumen();
+				sentenciaGeneralSQL.execute(SQL_CREAR_TABLA_IMPORTACIONES);
+				migrarColumnaCola();
+				medición.terminar(0);
 			} catch (SQLException e) {
 				String mensaje = String.format("%s — Conexión fallida: %s", jdbcURL, e.getLocalizedMessage());
 				throw new AccesoBDException(mensaje, e);
@@ -217,73 +757,1303 @@ public class AccesoBD implements AutoCloseable {
 	}
 
 	/**
-	 * Lee el contenido de la base de datos y crea un inventario con los puestos de
-	 * un aula.
+	 * Añade la columna del prefijo de aula a la tabla «Puestos» si se creó con una
+	 * versión anterior, en una única transacción.
 	 * 
-	 * @param prefijo el prefijo del aula
-	 * @return el aula recién creada
-	 * @throws AccesoBDException si se produce alguna incidencia
+	 * @see #SQL_MIGRAR_COLUMNA_AULA
+	 * @throws SQLException si se produce alguna incidencia
 	 */
-	public InventarioAula leer(String prefijo) throws AccesoBDException {
-		ResultSet resultado;
-		InventarioAula aula;
+	private void migrarColumnaAula() throws SQLException {
+		boolean existe;
 
-		String códigoPuesto, ordenador, nombre, apellidos;
+		try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(SQL_EXISTE_COLUMNA_AULA)) {
+			existe = resultado.next();
+		}
 
-		try {
-			if (preConsultaSQL == null) {
-				preConsultaSQL = conexión.prepareStatement(SQL_LISTADO_AULA);
-				preConsultaSQL.setQueryTimeout(5);
+		if (!existe) {
+			conexión.setAutoCommit(false);
+			try {
+				for (String sql : SQL_MIGRAR_COLUMNA_AULA) {
+					sentenciaGeneralSQL.execute(sql);
+				}
+				conexión.commit();
+			} catch (SQLException ex) {
+				deshacer();
+				throw ex;
+			} finally {
+				restablecerConfirmación(true);
 			}
+		}
+	}
 
-			aula = InventarioAula.of(prefijo);
-			preConsultaSQL.setString(1, prefijo + "%"); // Comodín SQL en «LIKE»
-
-			resultado = preConsultaSQL.executeQuery(SQL_LISTADO_AULA);
-			while (resultado.next()) {
-				códigoPuesto = resultado.getString("código_puesto");
+	/**
+	 * Añade la columna del resumen de la cola al registro de importaciones si se
+	 * creó con una versión anterior.
+	 * 
+	 * @see #SQL_MIGRAR_COLUMNA_COLA
+	 * @throws SQLException si se produce alguna incidencia
+	 */
+	private void migrarColumnaCola() throws SQLException {
+		boolean existe;
 
-				ordenador = resultado.getString("ordenador");
-				nombre = resultado.getString("nombre");
-				apellidos = resultado.getString("apellidos");
-				aula.añadir(códigoPuesto, new PuestoUsuario(ordenador, nombre, apellidos));
-			}
-		} catch (SQLException | InventarioException ex) {
-			String mensaje = String.format("Error al cargar aula «%s»: %s", prefijo, ex.getLocalizedMessage());
-			throw new AccesoBDException(mensaje, ex);
+		try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(SQL_EXISTE_COLUMNA_COLA)) {
+			existe = resultado.next();
 		}
 
-		return aula;
+		if (!existe) {
+			sentenciaGeneralSQL.execute(SQL_MIGRAR_COLUMNA_COLA);
+		}
 	}
 
 	/**
-	 * Inserta un resultado en la base de datos. En caso de no existir la sentencia
-	 * preparada se crea -permitiendo así que se pueda compartir en caso de realizar
-	 * varias inserciones consecutivas.
-	 * 
-	 * @param código el código del puesto
-	 * @param puesto los datos del puesto
+	 * Localiza un índice vigente de la tabla «Puestos».
 	 * 
-	 * @return el número de filas afectadas –cero o una…–
-	 * @throws AccesoBDException si se produce alguna incidencia
+	 * @param sqlNombre la sentencia SQL que obtiene su nombre
+	 * @return su nombre; <code>null</code> si no existe
+	 * @throws SQLException si se produce alguna incidencia
 	 */
-	public int insertar(String código, PuestoUsuario puesto) throws AccesoBDException {
-		int númFilas = 0;
-		try {
-			if (preInserciónSQL == null) {
-				preInserciónSQL = conexión.prepareStatement(SQL_INSERTAR_CONTACTO);
+	private String buscarÍndice(String sqlNombre) throws SQLException {
+		String nombre = null;
+
+		try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(sqlNombre)) {
+			if (resultado.next()) {
+				nombre = resultado.getString(1);
+			}
+		}
+		return nombre;
+	}
+
+	/**
+	 * Reemplaza todo el contenido de la base de datos por los puestos de varias
+	 * aulas sin que los lectores lleguen a ver la tabla vacía o a medio cargar.
+	 * <div>Los puestos se cargan primero en una tabla aparte, sin índices, en una
+	 * sola transacción; después se generan sus índices y, finalmente, se
+	 * intercambia por la tabla vigente dentro de otra transacción, que solo
+	 * modifica el esquema. Hasta ese momento los lectores siguen viendo el
+	 * inventario anterior y, a partir de él, el nuevo.</div>
+	 * 
+	 * @param aulas las aulas con los puestos a grabar
+	 * @return el número de puestos grabados
+	 * @throws AccesoBDException si se produce alguna incidencia; en tal caso el
+	 *                           contenido anterior se conserva
+	 */
+	public int recargar(Collection<InventarioAula> aulas) throws AccesoBDException {
+		boolean confirmaciónAutomática = true, controlDuplicados;
+		String nombreÍndice, nombreÍndiceAula;
+		PuestoUsuario puesto;
+		int númFilas = 0, filasAula;
+		long inicio;
+
+		anotarActividad();
+		if (aulas == null) {
+			throw new AccesoBDException("Lista nula");
+		}
+
+		abrirConexión();
+		controlDuplicados = filtroDuplicados != null;
+		try (Statement sentenciaCarga = conexión.createStatement()) {
+			for (String sql : SQL_CREAR_TABLAS_CARGA) {
+				ejecutar(sentenciaCarga, sql);
+			}
+
+			confirmaciónAutomática = conexión.getAutoCommit();
+			conexión.setAutoCommit(false);
+			try (PreparedStatement preCargaSQL = conexión.prepareStatement(SQL_INSERTAR_CARGA)) {
+				for (InventarioAula aula : aulas) {
+					for (String código : aula.generarListaCódigos()) {
+						puesto = aula.get(código);
+						preCargaSQL.setString(1, código);
+						preCargaSQL.setString(2, puesto.ordenador());
+						preCargaSQL.setString(3, puesto.nombre());
+						preCargaSQL.setString(4, puesto.apellidos());
+						preCargaSQL.setString(5, aula.getPrefijo());
+						preCargaSQL.addBatch();
+					}
+					filasAula = 0;
+					inicio = System.nanoTime();
+					for (int filas : preCargaSQL.executeBatch()) {
+						filasAula += Math.max(filas, 0);
+					}
+					medirLote(SQL_INSERTAR_CARGA, inicio, filasAula, aula.getNúmElementos());
+					númFilas += filasAula;
+				}
+			}
+			conexión.commit();
+
+			nombreÍndice = NOMBRES_ÍNDICE_CÓDIGO[0].equals(buscarÍndice(SQL_NOMBRE_ÍNDICE_CÓDIGO))
+					? NOMBRES_ÍNDICE_CÓDIGO[1]
+					: NOMBRES_ÍNDICE_CÓDIGO[0];
+			nombreÍndiceAula = NOMBRES_ÍNDICE_AULA[0].equals(buscarÍndice(SQL_NOMBRE_ÍNDICE_AULA))
+					? NOMBRES_ÍNDICE_AULA[1]
+					: NOMBRES_ÍNDICE_AULA[0];
+			ejecutar(sentenciaCarga, String.format(SQL_CREAR_ÍNDICE_CÓDIGO, nombreÍndice, "PuestosCarga"));
+			ejecutar(sentenciaCarga, String.format(SQL_CREAR_ÍNDICE_AULA, nombreÍndiceAula, "PuestosCarga"));
+			for (String sql : SQL_CREAR_ÍNDICE_TEXTO_CARGA) {
+				ejecutar(sentenciaCarga, sql);
+			}
+			conexión.commit();
+
+			descartarSentenciasPreparadas();
+			for (String sql : SQL_INTERCAMBIAR_TABLAS) {
+				ejecutar(sentenciaCarga, sql);
+			}
+			for (String disparador : SQL_CREAR_DISPARADORES_TEXTO) {
+				ejecutar(sentenciaCarga, disparador);
+			}
+			for (String disparador : SQL_CREAR_DISPARADORES_RESUMEN) {
+				ejecutar(sentenciaCarga, disparador);
+			}
+			for (String sql : SQL_RECONSTRUIR_RESUMEN) {
+				ejecutar(sentenciaCarga, sql);
+			}
+			ejecutar(sentenciaCarga, SQL_VACIAR_IMPORTACIONES);
+			conexión.commit();
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error en la recarga completa: %s", ex.getLocalizedMessage());
+			deshacer();
+			throw new AccesoBDException(mensaje, ex);
+		} finally {
+			restablecerConfirmación(confirmaciónAutomática);
+		}
+
+		filtroDuplicados = null;
+		if (controlDuplicados) {
+			activarControlDuplicados();
+		}
+		notificar(CambioInventario.RECARGA);
+		return númFilas;
+	}
+
+	/**
+	 * Elimina todos los puestos de la base de datos, junto con el registro de
+	 * importaciones, en una única transacción. Los disparadores vacían a su vez el
+	 * índice de texto y el resumen por aulas.
+	 * 
+	 * @return el número de puestos eliminados
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	@Override
+	public int vaciar() throws AccesoBDException {
+		boolean confirmaciónAutomática = true, controlDuplicados;
+		int númFilas = 0;
+
+		anotarActividad();
+		abrirConexión();
+		controlDuplicados = filtroDuplicados != null;
+		try {
+			confirmaciónAutomática = conexión.getAutoCommit();
+			conexión.setAutoCommit(false);
+			// El controlador calcula el recuento del borrado con total_changes(), que
+			// suma también las filas de los índices de texto y de resumen que modifican
+			// los disparadores; se cuentan antes los puestos, en la misma transacción
+			try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(SQL_CONTAR_PUESTOS)) {
+				if (resultado.next()) {
+					númFilas = resultado.getInt(1);
+				}
+			}
+			sentenciaGeneralSQL.executeUpdate(SQL_VACIAR_TABLA);
+			sentenciaGeneralSQL.executeUpdate(SQL_VACIAR_IMPORTACIONES);
+			conexión.commit();
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al vaciar la base de datos: %s", ex.getLocalizedMessage());
+			deshacer();
+			throw new AccesoBDException(mensaje, ex);
+		} finally {
+			restablecerConfirmación(confirmaciónAutomática);
+		}
+
+		filtroDuplicados = null;
+		if (controlDuplicados) {
+			activarControlDuplicados();
+		}
+		notificar(CambioInventario.RECARGA);
+		return númFilas;
+	}
+
+	/**
+	 * Compacta el archivo de la base de datos reconstruyéndolo por completo. Deja
+	 * además activada la compactación incremental, de modo que en adelante el
+	 * espacio libre se pueda recuperar por tramos sin una nueva reconstrucción.
+	 * Los archivos creados sin ella solo cambian de modo así: basta con una
+	 * compactación completa expresa, una sola vez.
+	 * Bloquea la base de datos mientras dura: debe realizarse expresamente, sin
+	 * otros programas en uso.
+	 * <div>La tabla «Puestos» no tiene una clave entera explícita, así que la
+	 * reconstrucción puede renumerar sus filas; el índice de texto, que las
+	 * referencia por número de fila, se vuelve a generar a continuación.</div>
+	 * 
+	 * @see MantenimientoBD
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public void compactar() throws AccesoBDException {
+		boolean índiceTexto;
+
+		anotarActividad();
+		abrirConexión();
+		descartarSentenciasPreparadas(); // No admite sentencias a medio recorrer
+		try (Statement sentenciaCompactar = conexión.createStatement()) {
+			sentenciaCompactar.execute(SQL_MODO_COMPACTACIÓN_INCREMENTAL);
+			sentenciaCompactar.execute(SQL_COMPACTAR_ESPACIO);
+			try (ResultSet resultado = sentenciaCompactar.executeQuery(SQL_EXISTE_ÍNDICE_TEXTO)) {
+				índiceTexto = resultado.next();
+			}
+			if (índiceTexto) {
+				sentenciaCompactar.execute(SQL_RECONSTRUIR_ÍNDICE_TEXTO);
+			}
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al compactar la base de datos: %s", ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+	}
+
+	/**
+	 * Descarta las sentencias preparadas, que se volverán a preparar al usarlas.
+	 * Necesario tras modificar el esquema de la base de datos.
+	 */
+	private void descartarSentenciasPreparadas() {
+		for (PreparedStatement sentencia : new PreparedStatement[] { preInserciónSQL, preConsultaSQL, preBúsquedaSQL,
+				preExisteCódigoSQL, preLeerPuestoSQL, preTramoSQL, preTramoFinalSQL, preActualizarSQL, preEliminarSQL, preLeerHuellaSQL,
+				preGrabarHuellaSQL }) {
+			try {
+				if (sentencia != null) {
+					sentencia.close();
+				}
+			} catch (SQLException e) {
+				System.err.printf("Error al descartar sentencia: %s%n", e.getLocalizedMessage());
+			}
+		}
+		preInserciónSQL = null;
+		preConsultaSQL = null;
+		preBúsquedaSQL = null;
+		preExisteCódigoSQL = null;
+		preLeerPuestoSQL = null;
+		preTramoSQL = null;
+		preTramoFinalSQL = null;
+		preActualizarSQL = null;
+		preEliminarSQL = null;
+		preLeerHuellaSQL = null;
+		preGrabarHuellaSQL = null;
+	}
+
+	/**
+	 * Crea el índice de texto completo y los disparadores que lo mantienen
+	 * sincronizado con la tabla «Puestos». Si el índice no existía se carga con
+	 * los puestos ya almacenados.
+	 * 
+	 * @throws SQLException si se produce alguna incidencia
+	 */
+	private void crearÍndiceTexto() throws SQLException {
+		boolean existía;
+
+		try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(SQL_EXISTE_ÍNDICE_TEXTO)) {
+			existía = resultado.next();
+		}
+
+		sentenciaGeneralSQL.execute(SQL_CREAR_ÍNDICE_TEXTO);
+		for (String disparador : SQL_CREAR_DISPARADORES_TEXTO) {
+			sentenciaGeneralSQL.execute(disparador);
+		}
+
+		if (!existía) {
+			sentenciaGeneralSQL.execute(SQL_RECONSTRUIR_ÍNDICE_TEXTO);
+		}
+	}
+
+	/**
+	 * Crea la tabla de resumen por aula y los disparadores que la mantienen al día
+	 * con cada escritura en la tabla «Puestos». Si la tabla no existía se carga
+	 * con los puestos ya almacenados.
+	 * 
+	 * @throws SQLException si se produce alguna incidencia
+	 */
+	private void crearResumen() throws SQLException {
+		boolean existía;
+
+		try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(SQL_EXISTE_TABLA_RESUMEN)) {
+			existía = resultado.next();
+		}
+
+		sentenciaGeneralSQL.execute(SQL_CREAR_TABLA_RESUMEN);
+		for (String disparador : SQL_CREAR_DISPARADORES_RESUMEN) {
+			sentenciaGeneralSQL.execute(disparador);
+		}
+
+		if (!existía) {
+			for (String sql : SQL_RECONSTRUIR_RESUMEN) {
+				sentenciaGeneralSQL.execute(sql);
+			}
+		}
+	}
+
+	/**
+	 * Obtiene el número de puestos y la fecha de la última modificación de cada
+	 * aula mediante una única lectura de la tabla de resumen, sin recorrer los
+	 * puestos. Cada puesto cuenta en el aula con la que se grabó.
+	 * 
+	 * @return el resumen de cada aula, por orden de prefijo
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public List<ResumenAula> resumen() throws AccesoBDException {
+		List<ResumenAula> resúmenes;
+		long inicio;
+
+		anotarActividad();
+		abrirConexión();
+		resúmenes = new ArrayList<>();
+		inicio = System.nanoTime();
+		try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(SQL_LISTADO_RESUMEN)) {
+			while (resultado.next()) {
+				resúmenes.add(new ResumenAula(resultado.getString("prefijo"), resultado.getInt("puestos"),
+						Instant.ofEpochMilli(resultado.getLong("modificado"))));
+			}
+			medirSentencia(SQL_LISTADO_RESUMEN, inicio, resúmenes.size());
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al leer el resumen de aulas: %s", ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+		return resúmenes;
+	}
+
+	/**
+	 * Busca puestos en toda la base de datos por el nombre o apellidos del usuario
+	 * o por la identificación del equipo, sin distinguir mayúsculas, minúsculas ni
+	 * tildes. Cada palabra del texto se interpreta como comienzo de palabra y han
+	 * de aparecer todas.<div>Ejemplo:
+	 * 
+	 * <pre>
+	 * "jose gar" → José García Pérez, Josefa Garrido…
+	 * </pre>
+	 * 
+	 * </div>
+	 * 
+	 * @param texto  las palabras a buscar
+	 * @param límite el número máximo de resultados
+	 * @return los puestos encontrados, como pares código–datos, del más al menos
+	 *         relevante
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	@Override
+	public List<Map.Entry<String, PuestoUsuario>> buscar(String texto, int límite) throws AccesoBDException {
+		List<Map.Entry<String, PuestoUsuario>> resultados;
+
+		resultados = new ArrayList<>();
+		for (Coincidencia coincidencia : buscarCoincidencias(texto, límite)) {
+			resultados.add(Map.entry(coincidencia.código(), coincidencia.puesto()));
+		}
+		return resultados;
+	}
+
+	/**
+	 * Busca puestos por texto conservando la puntuación de cada coincidencia, de
+	 * modo que se puedan combinar los resultados de varias bases de datos.
+	 * 
+	 * @see #buscar(String, int)
+	 * @param texto  las palabras a buscar
+	 * @param límite el número máximo de resultados
+	 * @return los puestos encontrados, del más al menos relevante
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	List<Coincidencia> buscarCoincidencias(String texto, int límite) throws AccesoBDException {
+		List<Coincidencia> resultados;
+		String consulta, códigoPuesto;
+		PuestoUsuario puesto;
+		long inicio;
+
+		anotarActividad();
+		resultados = new ArrayList<>();
+		consulta = generarConsultaTexto(texto);
+		if (!consulta.isEmpty() && límite > 0) {
+			try {
+				abrirConexión();
+				if (preBúsquedaSQL == null) {
+					preBúsquedaSQL = conexión.prepareStatement(SQL_BUSCAR_TEXTO);
+					preBúsquedaSQL.setQueryTimeout(5);
+				}
+
+				preBúsquedaSQL.setString(1, consulta);
+				preBúsquedaSQL.setInt(2, límite);
+				inicio = System.nanoTime();
+				try (ResultSet resultado = preBúsquedaSQL.executeQuery()) {
+					while (resultado.next()) {
+						códigoPuesto = resultado.getString("código_puesto");
+						puesto = new PuestoUsuario(resultado.getString("ordenador"), resultado.getString("nombre"),
+								resultado.getString("apellidos"));
+						resultados.add(new Coincidencia(códigoPuesto, puesto, resultado.getDouble("rank")));
+					}
+				}
+				medirSentencia(SQL_BUSCAR_TEXTO, inicio, resultados.size(), consulta, límite);
+			} catch (SQLException ex) {
+				String mensaje = String.format("Error al buscar «%s»: %s", texto, ex.getLocalizedMessage());
+				throw new AccesoBDException(mensaje, ex);
+			}
+		}
+
+		return resultados;
+	}
+
+	/**
+	 * Cuenta los puestos almacenados en la base de datos.
+	 * 
+	 * @return el número de puestos
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	@Override
+	public int contar() throws AccesoBDException {
+		int númPuestos = 0;
+		long inicio;
+
+		anotarActividad();
+		abrirConexión();
+		inicio = System.nanoTime();
+		try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(SQL_CONTAR_PUESTOS)) {
+			if (resultado.next()) {
+				númPuestos = resultado.getInt(1);
+			}
+			medirSentencia(SQL_CONTAR_PUESTOS, inicio, 1);
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al contar puestos: %s", ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+		return númPuestos;
+	}
+
+	/**
+	 * Traduce un texto libre a una consulta FTS5: cada palabra se entrecomilla
+	 * –neutralizando así los operadores de la sintaxis de búsqueda– y se marca
+	 * como prefijo.
+	 * 
+	 * @param texto el texto original
+	 * @return la consulta resultante; vacía si no hay ninguna palabra
+	 */
+	private static String generarConsultaTexto(String texto) {
+		StringBuilder consulta;
+
+		consulta = new StringBuilder();
+		if (texto != null) {
+			for (String palabra : texto.trim().split("\\s+")) {
+				if (!palabra.isEmpty()) {
+					if (consulta.length() > 0) {
+						consulta.append(' ');
+					}
+					consulta.append('"').append(palabra.replace("\"", "\"\"")).append("\"*");
+				}
+			}
+		}
+		return consulta.toString();
+	}
+
+	/**
+	 * Lee el contenido de la base de datos y crea un inventario con los puestos de
+	 * un aula: los anotados con su prefijo, no todos los que empiezan por él.
+	 * 
+	 * @param prefijo el prefijo del aula
+	 * @return el aula recién creada
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	@Override
+	public InventarioAula leer(String prefijo) throws AccesoBDException {
+		InventarioAula aula;
+
+		String códigoPuesto, ordenador, nombre, apellidos;
+		long inicio;
+
+		anotarActividad();
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.LECTURA)) {
+			abrirConexión();
+			if (preConsultaSQL == null) {
+				preConsultaSQL = conexión.prepareStatement(SQL_LISTADO_AULA);
+				preConsultaSQL.setQueryTimeout(5);
+			}
+
+			aula = InventarioAula.of(prefijo);
+			preConsultaSQL.setString(1, aula.getPrefijo());
+
+			inicio = System.nanoTime();
+			try (ResultSet resultado = preConsultaSQL.executeQuery()) {
+				while (resultado.next()) {
+					códigoPuesto = resultado.getString("código_puesto");
+
+					ordenador = resultado.getString("ordenador");
+					nombre = resultado.getString("nombre");
+					apellidos = resultado.getString("apellidos");
+					aula.añadir(códigoPuesto, new PuestoUsuario(ordenador, nombre, apellidos));
+				}
+			}
+			medirSentencia(SQL_LISTADO_AULA, inicio, aula.getNúmElementos(), aula.getPrefijo());
+			medición.terminar(aula.getNúmElementos());
+		} catch (SQLException | InventarioException ex) {
+			String mensaje = String.format("Error al cargar aula «%s»: %s", prefijo, ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+
+		return aula;
+	}
+
+	/**
+	 * Recorre los puestos de un aula entregándolos de uno en uno según se leen,
+	 * sin reunirlos en memoria. Permite, por ejemplo, enviar un listado por la red
+	 * a medida que avanza la consulta.
+	 * 
+	 * @see #leer(String)
+	 * @param prefijo  el prefijo del aula
+	 * @param receptor el destinatario de cada puesto
+	 * @return el número de puestos entregados
+	 * @throws AccesoBDException si se produce alguna incidencia en la consulta
+	 * @throws IOException       si el destinatario no puede recibir algún puesto;
+	 *                           el recorrido se interrumpe
+	 */
+	public int recorrer(String prefijo, ReceptorPuestos receptor) throws AccesoBDException, IOException {
+		String prefijoAula;
+		int númPuestos = 0;
+		long inicio;
+
+		anotarActividad();
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.LECTURA)) {
+			abrirConexión();
+			if (preConsultaSQL == null) {
+				preConsultaSQL = conexión.prepareStatement(SQL_LISTADO_AULA);
+				preConsultaSQL.setQueryTimeout(5);
+			}
+
+			prefijoAula = InventarioAula.of(prefijo).getPrefijo();
+			preConsultaSQL.setString(1, prefijoAula);
+
+			inicio = System.nanoTime();
+			try (ResultSet resultado = preConsultaSQL.executeQuery()) {
+				while (resultado.next()) {
+					receptor.recibir(resultado.getString("código_puesto"), new PuestoUsuario(
+							resultado.getString("ordenador"), resultado.getString("nombre"), resultado.getString("apellidos")));
+					númPuestos++;
+				}
+			}
+			medirSentencia(SQL_LISTADO_AULA, inicio, númPuestos, prefijoAula);
+			medición.terminar(númPuestos);
+		} catch (SQLException | InventarioException ex) {
+			String mensaje = String.format("Error al recorrer aula «%s»: %s", prefijo, ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+		return númPuestos;
+	}
+
+	/**
+	 * Recorre en orden de código los puestos de un tramo de códigos, entregándolos
+	 * de uno en uno según se leen junto con el prefijo de su aula. El recorrido
+	 * sigue el índice por código, de modo que los puestos de cada aula llegan
+	 * seguidos salvo que el prefijo de otra aula prolongue el suyo –«IC» e
+	 * «IC2»–.
+	 * 
+	 * @see ExportadorParalelo
+	 * @param desde    el primer código del tramo, incluido
+	 * @param hasta    el código que cierra el tramo, excluido; <code>null</code>
+	 *                 para llegar hasta el final
+	 * @param receptor el destinatario de cada puesto
+	 * @return el número de puestos entregados
+	 * @throws AccesoBDException si se produce alguna incidencia en la consulta
+	 * @throws IOException       si el destinatario no puede recibir algún puesto;
+	 *                           el recorrido se interrumpe
+	 */
+	public int recorrerTramo(String desde, String hasta, ReceptorPuestosAula receptor)
+			throws AccesoBDException, IOException {
+		PreparedStatement sentencia;
+		String sql;
+		int númPuestos = 0;
+		long inicio;
+
+		anotarActividad();
+		sql = hasta == null ? SQL_LISTADO_TRAMO_FINAL : SQL_LISTADO_TRAMO;
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.LECTURA)) {
+			abrirConexión();
+			if (hasta == null) {
+				if (preTramoFinalSQL == null) {
+					preTramoFinalSQL = conexión.prepareStatement(sql); // Sin límite de tiempo
+				}
+				sentencia = preTramoFinalSQL;
+			} else {
+				if (preTramoSQL == null) {
+					preTramoSQL = conexión.prepareStatement(sql); // Sin límite de tiempo
+				}
+				sentencia = preTramoSQL;
+				sentencia.setString(2, hasta);
+			}
+
+			sentencia.setString(1, desde);
+			inicio = System.nanoTime();
+			try (ResultSet resultado = sentencia.executeQuery()) {
+				while (resultado.next()) {
+					receptor.recibir(resultado.getString("prefijo_aula"), resultado.getString("código_puesto"),
+							new PuestoUsuario(resultado.getString("ordenador"), resultado.getString("nombre"),
+									resultado.getString("apellidos")));
+					númPuestos++;
+				}
+			}
+			if (hasta == null) {
+				medirSentencia(sql, inicio, númPuestos, desde);
+			} else {
+				medirSentencia(sql, inicio, númPuestos, desde, hasta);
+			}
+			medición.terminar(númPuestos);
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al recorrer tramo [«%s», %s): %s", desde,
+					hasta == null ? "final" : "«" + hasta + "»", ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+		return númPuestos;
+	}
+
+	/**
+	 * Lee un puesto por su código.
+	 * 
+	 * @param código el código del puesto
+	 * @return los datos del puesto; <code>null</code> si no está almacenado
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	@Override
+	public PuestoUsuario leerPuesto(String código) throws AccesoBDException {
+		PuestoUsuario puesto = null;
+		String códigoPuesto;
+		long inicio;
+
+		anotarActividad();
+		códigoPuesto = NormalizadorTexto.recortarMayúsculas(código);
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.LECTURA)) {
+			abrirConexión();
+			if (preLeerPuestoSQL == null) {
+				preLeerPuestoSQL = conexión.prepareStatement(SQL_LEER_PUESTO);
+				preLeerPuestoSQL.setQueryTimeout(5);
+			}
+
+			preLeerPuestoSQL.setString(1, códigoPuesto);
+			inicio = System.nanoTime();
+			try (ResultSet resultado = preLeerPuestoSQL.executeQuery()) {
+				if (resultado.next()) {
+					puesto = new PuestoUsuario(resultado.getString("ordenador"), resultado.getString("nombre"),
+							resultado.getString("apellidos"));
+				}
+			}
+			medirSentencia(SQL_LEER_PUESTO, inicio, puesto == null ? 0 : 1, códigoPuesto);
+			medición.terminar(puesto == null ? 0 : 1);
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al leer puesto «%s»: %s", código, ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+		return puesto;
+	}
+
+	/**
+	 * Inserta un resultado en la base de datos. En caso de no existir la sentencia
+	 * preparada se crea -permitiendo así que se pueda compartir en caso de realizar
+	 * varias inserciones consecutivas.
+	 * <div>Como exige {@link AlmacenInventario}, un código ya almacenado no se
+	 * inserta de nuevo: no se modifica nada, se devuelve cero y se cuenta en
+	 * {@link #getNúmDuplicados()}. La primera inserción activa por sí misma el
+	 * {@link #activarControlDuplicados() control de duplicados}.</div>
+	 * 
+	 * <div>El puesto se asigna al aula almacenada de prefijo más largo con el que
+	 * comience su código; si se conoce el aula es preferible indicarla con
+	 * {@link #insertar(String, String, PuestoUsuario)}.</div>
+	 * 
+	 * @param código el código del puesto
+	 * @param puesto los datos del puesto
+	 * 
+	 * @return el número de filas afectadas: una, o cero si se descarta por
+	 *         duplicado
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	@Override
+	public int insertar(String código, PuestoUsuario puesto) throws AccesoBDException {
+		return insertar(null, código, puesto);
+	}
+
+	/**
+	 * Inserta un puesto de un aula conocida en la base de datos, con las mismas
+	 * condiciones que {@link #insertar(String, PuestoUsuario)}. El código y el
+	 * prefijo se normalizan, y el código ha de comenzar por el prefijo.
+	 * 
+	 * @param prefijoAula el prefijo del aula del puesto; <code>null</code> para
+	 *                    deducirlo del código
+	 * @param código      el código del puesto
+	 * @param puesto      los datos del puesto
+	 * 
+	 * @return el número de filas afectadas: una, o cero si se descarta por
+	 *         duplicado
+	 * @throws AccesoBDException si el código no corresponde al aula o se produce
+	 *                           alguna incidencia
+	 */
+	public int insertar(String prefijoAula, String código, PuestoUsuario puesto) throws AccesoBDException {
+		String códigoPuesto, prefijo;
+		int númFilas = 0;
+		long inicio;
+
+		anotarActividad();
+		códigoPuesto = NormalizadorTexto.recortarMayúsculas(código);
+		prefijo = prefijoAula == null ? null : NormalizadorTexto.recortarMayúsculas(prefijoAula);
+		if (prefijo != null && !códigoPuesto.startsWith(prefijo)) {
+			throw new AccesoBDException(MotivoRechazo.CÓDIGO_AJENO.generarMensaje(códigoPuesto, prefijo));
+		}
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.INSERCIÓN)) {
+			abrirConexión();
+			if (preInserciónSQL == null) {
+				preInserciónSQL = conexión.prepareStatement(SQL_INSERTAR_CONTACTO);
 				preInserciónSQL.setQueryTimeout(5);
 			}
 
-			preInserciónSQL.setString(1, código);
-			preInserciónSQL.setString(2, puesto.ordenador());
-			preInserciónSQL.setString(3, puesto.nombre());
-			preInserciónSQL.setString(4, puesto.apellidos());
-			númFilas = preInserciónSQL.executeUpdate();
+			activarControlDuplicados();
+			if (!esDuplicado(códigoPuesto, Set.of())) {
+				preInserciónSQL.setString(1, códigoPuesto);
+				preInserciónSQL.setString(2, puesto.ordenador());
+				preInserciónSQL.setString(3, puesto.nombre());
+				preInserciónSQL.setString(4, puesto.apellidos());
+				preInserciónSQL.setString(5, prefijo);
+				inicio = System.nanoTime();
+				númFilas = preInserciónSQL.executeUpdate();
+				medirSentencia(SQL_INSERTAR_CONTACTO, inicio, númFilas, códigoPuesto, puesto.ordenador(),
+						puesto.nombre(), puesto.apellidos(), prefijo);
+
+				filtroDuplicados.añadir(códigoPuesto);
+				ampliarControlDuplicados();
+			}
+			medición.terminar(númFilas);
 		} catch (SQLException ex) {
 			String mensaje = String.format("Error al insertar contacto: %s", ex.getLocalizedMessage());
 			throw new AccesoBDException(mensaje, ex);
 		}
+
+		if (númFilas > 0) {
+			notificar(new CambioInventario(CambioInventario.Tipo.AÑADIDO, códigoPuesto, null, puesto));
+		}
+		return númFilas;
+	}
+
+	/**
+	 * Inserta un bloque de puestos en la base de datos dentro de una única
+	 * transacción, enviando las inserciones por lotes. Si se produce alguna
+	 * incidencia no se graba ningún puesto del bloque. Se descartan los códigos ya
+	 * almacenados o repetidos dentro del propio bloque. Cada puesto se asigna al
+	 * aula como en {@link #insertar(String, PuestoUsuario)}.
+	 * 
+	 * @param puestos los puestos a grabar, como pares código–datos
+	 * @return el número de filas afectadas
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	@Override
+	public int insertarLote(Collection<Map.Entry<String, PuestoUsuario>> puestos) throws AccesoBDException {
+		return insertarLote(null, puestos, null, null);
+	}
+
+	/**
+	 * Inserta un bloque de puestos de un aula conocida en la base de datos, con
+	 * las mismas condiciones que {@link #insertarLote(Collection)}.
+	 * 
+	 * @param prefijoAula el prefijo del aula de todos los puestos
+	 * @param puestos     los puestos a grabar, como pares código–datos
+	 * @return el número de filas afectadas
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	@Override
+	public int insertarLote(String prefijoAula, Collection<Map.Entry<String, PuestoUsuario>> puestos)
+			throws AccesoBDException {
+		return insertarLote(prefijoAula, puestos, null, null);
+	}
+
+	/**
+	 * Inserta un bloque de puestos procedentes de un archivo y anota en el
+	 * registro de importaciones, dentro de la misma transacción, hasta dónde se
+	 * ha procesado el archivo. Así el registro nunca indica como importadas líneas
+	 * que no se hayan grabado.
+	 * 
+	 * @see #insertarLote(Collection)
+	 * @param prefijoAula el prefijo del aula de todos los puestos;
+	 *                    <code>null</code> para deducirlo del código de cada uno
+	 * @param puestos     los puestos a grabar, como pares código–datos
+	 * @param huella      la huella del archivo tras procesar estos puestos;
+	 *                    <code>null</code> para no anotar nada
+	 * @param descartados la lista donde añadir, por orden, los códigos
+	 *                    descartados por estar ya almacenados o repetidos en el
+	 *                    bloque; <code>null</code> para no anotarlos
+	 * @return el número de filas afectadas
+	 * @throws AccesoBDException si algún código no corresponde al aula o se
+	 *                           produce alguna incidencia; no se graba ningún
+	 *                           puesto
+	 */
+	public int insertarLote(String prefijoAula, Collection<Map.Entry<String, PuestoUsuario>> puestos,
+			HuellaArchivo huella, List<String> descartados) throws AccesoBDException {
+		EventosImportacion.Grabación evento;
+		boolean confirmaciónAutomática = true;
+		Set<String> códigosLote;
+		List<Map.Entry<String, PuestoUsuario>> grabados;
+		PuestoUsuario puesto;
+		String código, prefijo;
+		int númFilas = 0;
+		long inicio;
+
+		anotarActividad();
+		prefijo = prefijoAula == null ? null : NormalizadorTexto.recortarMayúsculas(prefijoAula);
+		if (prefijo != null) {
+			for (Map.Entry<String, PuestoUsuario> entrada : puestos) {
+				código = NormalizadorTexto.recortarMayúsculas(entrada.getKey());
+				if (!código.startsWith(prefijo)) {
+					throw new AccesoBDException(String.format("Error al insertar lote de %d puestos: %s",
+							puestos.size(), MotivoRechazo.CÓDIGO_AJENO.generarMensaje(código, prefijo)));
+				}
+			}
+		}
+		evento = new EventosImportacion.Grabación();
+		evento.begin();
+		códigosLote = new HashSet<>();
+		grabados = observadores.isEmpty() ? null : new ArrayList<>(puestos.size());
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.INSERCIÓN_LOTE)) {
+			abrirConexión();
+			if (preInserciónSQL == null) {
+				preInserciónSQL = conexión.prepareStatement(SQL_INSERTAR_CONTACTO);
+				preInserciónSQL.setQueryTimeout(5);
+			}
+
+			activarControlDuplicados();
+			confirmaciónAutomática = conexión.getAutoCommit();
+			conexión.setAutoCommit(false);
+			for (Map.Entry<String, PuestoUsuario> entrada : puestos) {
+				código = NormalizadorTexto.recortarMayúsculas(entrada.getKey());
+				if (esDuplicado(código, códigosLote)) {
+					if (descartados != null) {
+						descartados.add(código);
+					}
+				} else {
+					puesto = entrada.getValue();
+					preInserciónSQL.setString(1, código);
+					preInserciónSQL.setString(2, puesto.ordenador());
+					preInserciónSQL.setString(3, puesto.nombre());
+					preInserciónSQL.setString(4, puesto.apellidos());
+					preInserciónSQL.setString(5, prefijo);
+					preInserciónSQL.addBatch();
+					códigosLote.add(código);
+					if (grabados != null) {
+						grabados.add(Map.entry(código, puesto));
+					}
+				}
+			}
+			inicio = System.nanoTime();
+			for (int filas : preInserciónSQL.executeBatch()) {
+				númFilas += Math.max(filas, 0);
+			}
+			medirLote(SQL_INSERTAR_CONTACTO, inicio, númFilas, códigosLote.size());
+			if (huella != null) {
+				grabarHuella(huella);
+			}
+			conexión.commit();
+
+			for (String códigoLote : códigosLote) {
+				filtroDuplicados.añadir(códigoLote);
+			}
+			ampliarControlDuplicados();
+			medición.terminar(númFilas);
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al insertar lote de %d puestos: %s", puestos.size(),
+					ex.getLocalizedMessage());
+			deshacer();
+			throw new AccesoBDException(mensaje, ex);
+		} finally {
+			restablecerConfirmación(confirmaciónAutomática);
+		}
+
+		evento.end();
+		if (evento.shouldCommit()) {
+			evento.operación = "insertarLote";
+			evento.puestos = puestos.size();
+			evento.filas = númFilas;
+			evento.commit();
+		}
+
+		if (grabados != null) {
+			for (Map.Entry<String, PuestoUsuario> grabado : grabados) {
+				notificar(new CambioInventario(CambioInventario.Tipo.AÑADIDO, grabado.getKey(), null,
+						grabado.getValue()));
+			}
+		}
+		return númFilas;
+	}
+
+	/**
+	 * Sustituye los datos de un puesto almacenado.
+	 * 
+	 * @param código el código del puesto
+	 * @param puesto los nuevos datos del puesto
+	 * @return el número de filas afectadas –cero si el puesto no estaba
+	 *         almacenado–
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public int actualizar(String código, PuestoUsuario puesto) throws AccesoBDException {
+		String códigoPuesto;
+		int númFilas;
+		long inicio;
+
+		anotarActividad();
+		códigoPuesto = NormalizadorTexto.recortarMayúsculas(código);
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.ESCRITURA)) {
+			abrirConexión();
+			if (preActualizarSQL == null) {
+				preActualizarSQL = conexión.prepareStatement(SQL_ACTUALIZAR_PUESTO);
+				preActualizarSQL.setQueryTimeout(5);
+			}
+
+			preActualizarSQL.setString(1, puesto.ordenador());
+			preActualizarSQL.setString(2, puesto.nombre());
+			preActualizarSQL.setString(3, puesto.apellidos());
+			preActualizarSQL.setString(4, códigoPuesto);
+			inicio = System.nanoTime();
+			númFilas = preActualizarSQL.executeUpdate();
+			medirSentencia(SQL_ACTUALIZAR_PUESTO, inicio, númFilas, puesto.ordenador(), puesto.nombre(),
+					puesto.apellidos(), códigoPuesto);
+			medición.terminar(númFilas);
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al actualizar puesto «%s»: %s", código, ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+
+		if (númFilas > 0) {
+			notificar(new CambioInventario(CambioInventario.Tipo.MODIFICADO, códigoPuesto, null, puesto));
+		}
+		return númFilas;
+	}
+
+	/**
+	 * Elimina un puesto almacenado.
+	 * 
+	 * @param código el código del puesto
+	 * @return el número de filas afectadas –cero si el puesto no estaba
+	 *         almacenado–
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public int eliminar(String código) throws AccesoBDException {
+		String códigoPuesto;
+		int númFilas;
+		long inicio;
+
+		anotarActividad();
+		códigoPuesto = NormalizadorTexto.recortarMayúsculas(código);
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.ESCRITURA)) {
+			abrirConexión();
+			if (preEliminarSQL == null) {
+				preEliminarSQL = conexión.prepareStatement(SQL_ELIMINAR_PUESTO);
+				preEliminarSQL.setQueryTimeout(5);
+			}
+
+			preEliminarSQL.setString(1, códigoPuesto);
+			inicio = System.nanoTime();
+			númFilas = preEliminarSQL.executeUpdate();
+			medirSentencia(SQL_ELIMINAR_PUESTO, inicio, númFilas, códigoPuesto);
+			medición.terminar(númFilas);
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al eliminar puesto «%s»: %s", código, ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+
+		if (númFilas > 0) {
+			notificar(new CambioInventario(CambioInventario.Tipo.RETIRADO, códigoPuesto, null, null));
+		}
+		return númFilas;
+	}
+
+	/**
+	 * Registra un destinatario de los cambios en los puestos: se le avisa de cada
+	 * puesto insertado, actualizado o eliminado una vez confirmado, y de las
+	 * recargas y vaciados completos. Los avisos llegan en el hilo que realiza el
+	 * cambio.
+	 * 
+	 * @see DespachadorCambios
+	 * @param observador el destinatario
+	 */
+	public void añadirObservador(CambioInventario.Observador observador) {
+		observadores.add(observador);
+	}
+
+	/**
+	 * Da de baja un destinatario de los cambios en los puestos.
+	 * 
+	 * @param observador el destinatario
+	 */
+	public void retirarObservador(CambioInventario.Observador observador) {
+		observadores.remove(observador);
+	}
+
+	/**
+	 * Avisa de un cambio a todos los observadores.
+	 * 
+	 * @param cambio el cambio realizado
+	 */
+	private void notificar(CambioInventario cambio) {
+		for (CambioInventario.Observador observador : observadores) {
+			observador.notificar(cambio);
+		}
+	}
+
+	/**
+	 * Activa el control de duplicados en las inserciones: carga todos los códigos
+	 * de puesto almacenados en un {@link FiltroBloom filtro de Bloom}, de modo que
+	 * la mayoría de los códigos nuevos se aceptan sin consultar la base de datos.
+	 * Solo los que el filtro da como posibles duplicados se comprueban con una
+	 * consulta. Si ya estaba activo no hace nada. Las inserciones lo activan por
+	 * sí mismas; llamarlo antes solo adelanta la carga de los códigos.
+	 * <div>El filtro solo conoce los códigos almacenados al activarlo y los que
+	 * graba después este mismo objeto. Los que se graben mientras tanto desde
+	 * otra conexión u otro proceso no se detectan como duplicados; para
+	 * incorporarlos hay que cerrar y volver a activar el control. Al
+	 * {@link #close() cerrar} se desactiva y se pone a cero la cuenta de
+	 * descartes.</div>
+	 * 
+	 * @return el filtro correspondiente
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public FiltroBloom activarControlDuplicados() throws AccesoBDException {
+		FiltroBloom filtro;
+		int númPuestos;
+		long inicio;
+
+		if (filtroDuplicados == null) {
+			abrirConexión();
+			try {
+				inicio = System.nanoTime();
+				try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(SQL_CONTAR_PUESTOS)) {
+					númPuestos = resultado.next() ? resultado.getInt(1) : 0;
+				}
+				medirSentencia(SQL_CONTAR_PUESTOS, inicio, 1);
+
+				filtro = new FiltroBloom(Math.max(2 * númPuestos, CAPACIDAD_MÍNIMA_FILTRO), TASA_FALSOS_POSITIVOS);
+				inicio = System.nanoTime();
+				try (ResultSet resultado = sentenciaGeneralSQL.executeQuery(SQL_LISTADO_CÓDIGOS)) {
+					while (resultado.next()) {
+						filtro.añadir(resultado.getString(1));
+					}
+				}
+				medirSentencia(SQL_LISTADO_CÓDIGOS, inicio, filtro.getNúmElementos());
+				filtroDuplicados = filtro;
+			} catch (SQLException ex) {
+				String mensaje = String.format("Error al cargar códigos de puesto: %s", ex.getLocalizedMessage());
+				throw new AccesoBDException(mensaje, ex);
+			}
+		}
+		return filtroDuplicados;
+	}
+
+	/**
+	 * Regenera el filtro de duplicados con el doble de capacidad cuando el número
+	 * de códigos incorporados supera la prevista, para mantener la tasa de falsos
+	 * positivos. Las estadísticas de uso comienzan de nuevo.
+	 * 
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	private void ampliarControlDuplicados() throws AccesoBDException {
+		if (filtroDuplicados.getNúmElementos() > filtroDuplicados.getCapacidad()) {
+			filtroDuplicados = null;
+			activarControlDuplicados();
+		}
+	}
+
+	/**
+	 * Facilita el filtro del control de duplicados, con sus estadísticas de uso.
+	 * 
+	 * @return el filtro correspondiente; <code>null</code> si el control no está
+	 *         activo todavía
+	 */
+	public FiltroBloom getFiltroDuplicados() {
+		return filtroDuplicados;
+	}
+
+	/**
+	 * Informa del número de puestos descartados por el control de duplicados
+	 * desde que se abrió la conexión.
+	 * 
+	 * @return el valor correspondiente
+	 */
+	public long getNúmDuplicados() {
+		return númDuplicados;
+	}
+
+	/**
+	 * Comprueba si un código de puesto ya está almacenado o pendiente de
+	 * grabación. Solo consulta la base de datos cuando el filtro de duplicados
+	 * no lo descarta.
+	 * 
+	 * @param código     el código a comprobar
+	 * @param pendientes los códigos pendientes de grabación en la transacción
+	 *                   actual
+	 * @return si es un duplicado
+	 * @throws SQLException si se produce alguna incidencia
+	 */
+	private boolean esDuplicado(String código, Set<String> pendientes) throws SQLException {
+		boolean duplicado = false;
+		long inicio;
+
+		if (pendientes.contains(código)) {
+			duplicado = true;
+		} else if (filtroDuplicados.puedeContener(código)) {
+			if (preExisteCódigoSQL == null) {
+				preExisteCódigoSQL = conexión.prepareStatement(SQL_EXISTE_CÓDIGO);
+				preExisteCódigoSQL.setQueryTimeout(5);
+			}
+
+			preExisteCódigoSQL.setString(1, código);
+			inicio = System.nanoTime();
+			try (ResultSet resultado = preExisteCódigoSQL.executeQuery()) {
+				duplicado = resultado.next();
+			}
+			medirSentencia(SQL_EXISTE_CÓDIGO, inicio, duplicado ? 1 : 0, código);
+			if (!duplicado) {
+				filtroDuplicados.anotarFalsoPositivo();
+			}
+		}
+
+		if (duplicado) {
+			númDuplicados++;
+		}
+		return duplicado;
+	}
+
+	/**
+	 * Deshace la transacción en curso, si la hay, ignorando cualquier incidencia.
+	 */
+	private void deshacer() {
+		try {
+			if (conexión != null && !conexión.getAutoCommit()) {
+				conexión.rollback();
+			}
+		} catch (SQLException e) {
+			System.err.printf("Error al deshacer transacción: %s%n", e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Restablece el modo de confirmación automática de la conexión, ignorando
+	 * cualquier incidencia.
+	 * 
+	 * @param confirmaciónAutomática el modo a restablecer
+	 */
+	private void restablecerConfirmación(boolean confirmaciónAutomática) {
+		try {
+			if (conexión != null) {
+				conexión.setAutoCommit(confirmaciónAutomática);
+			}
+		} catch (SQLException e) {
+			System.err.printf("Error al restablecer confirmación automática: %s%n", e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Consulta en el registro de importaciones la huella de un archivo.
+	 * 
+	 * @param ruta la ruta absoluta del archivo
+	 * @return la huella anotada; <code>null</code> si no se ha importado nunca
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public HuellaArchivo leerHuella(String ruta) throws AccesoBDException {
+		HuellaArchivo huella = null;
+		Long resumenCola;
+		long inicio;
+
+		abrirConexión();
+		try {
+			if (preLeerHuellaSQL == null) {
+				preLeerHuellaSQL = conexión.prepareStatement(SQL_LEER_HUELLA);
+				preLeerHuellaSQL.setQueryTimeout(5);
+			}
+
+			preLeerHuellaSQL.setString(1, ruta);
+			inicio = System.nanoTime();
+			try (ResultSet resultado = preLeerHuellaSQL.executeQuery()) {
+				if (resultado.next()) {
+					resumenCola = resultado.getLong("resumen_cola");
+					if (resultado.wasNull()) {
+						resumenCola = null;
+					}
+					huella = new HuellaArchivo(ruta, resultado.getLong("tamaño"), resultado.getLong("modificado"),
+							resultado.getLong("posición"), resultado.getLong("resumen"), resultado.getString("prefijo"),
+							resultado.getInt("líneas"), resumenCola);
+				}
+			}
+			medirSentencia(SQL_LEER_HUELLA, inicio, huella == null ? 0 : 1, ruta);
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al consultar importación de «%s»: %s", ruta,
+					ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+		return huella;
+	}
+
+	/**
+	 * Anota la huella de un archivo en el registro de importaciones, dentro de la
+	 * transacción en curso si la hay.
+	 * 
+	 * @param huella la huella del archivo
+	 * @throws SQLException si se produce alguna incidencia
+	 */
+	private void grabarHuella(HuellaArchivo huella) throws SQLException {
+		long inicio;
+		int filas;
+
+		if (preGrabarHuellaSQL == null) {
+			preGrabarHuellaSQL = conexión.prepareStatement(SQL_GRABAR_HUELLA);
+			preGrabarHuellaSQL.setQueryTimeout(5);
+		}
+
+		preGrabarHuellaSQL.setString(1, huella.ruta());
+		preGrabarHuellaSQL.setLong(2, huella.tamaño());
+		preGrabarHuellaSQL.setLong(3, huella.modificado());
+		preGrabarHuellaSQL.setLong(4, huella.posición());
+		preGrabarHuellaSQL.setLong(5, huella.resumen());
+		preGrabarHuellaSQL.setString(6, huella.prefijo());
+		preGrabarHuellaSQL.setInt(7, huella.líneas());
+		preGrabarHuellaSQL.setObject(8, huella.resumenCola());
+		inicio = System.nanoTime();
+		filas = preGrabarHuellaSQL.executeUpdate();
+		medirSentencia(SQL_GRABAR_HUELLA, inicio, filas, huella.ruta(), huella.tamaño(), huella.modificado(),
+				huella.posición(), huella.resumen(), huella.prefijo(), huella.líneas(), huella.resumenCola());
+	}
+
+	/**
+	 * Deshace la importación anterior de un archivo que ha cambiado: elimina los
+	 * puestos de su aula y olvida su huella, en una única transacción. Un archivo
+	 * de exportación es el listado completo de su aula, así que tras volver a
+	 * importarlo el aula queda tal como figura en él.
+	 * <div>Los códigos eliminados permanecen en el filtro de duplicados; solo
+	 * suponen una consulta adicional a la base de datos si vuelven a
+	 * aparecer.</div>
+	 * 
+	 * @see ImportadorIncremental
+	 * @param anterior la huella de la importación anterior del archivo
+	 * @return el número de puestos eliminados
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public int descartarImportación(HuellaArchivo anterior) throws AccesoBDException {
+		boolean confirmaciónAutomática = true;
+		int númFilas;
+		long inicio;
+
+		anotarActividad();
+		abrirConexión();
+		try (PreparedStatement eliminarAula = conexión.prepareStatement(SQL_ELIMINAR_AULA);
+				PreparedStatement eliminarHuella = conexión.prepareStatement(SQL_ELIMINAR_HUELLA)) {
+			confirmaciónAutomática = conexión.getAutoCommit();
+			conexión.setAutoCommit(false);
+			eliminarAula.setString(1, anterior.prefijo());
+			inicio = System.nanoTime();
+			númFilas = eliminarAula.executeUpdate();
+			medirSentencia(SQL_ELIMINAR_AULA, inicio, númFilas, anterior.prefijo());
+
+			eliminarHuella.setString(1, anterior.ruta());
+			inicio = System.nanoTime();
+			medirSentencia(SQL_ELIMINAR_HUELLA, inicio, eliminarHuella.executeUpdate(), anterior.ruta());
+			conexión.commit();
+		} catch (SQLException ex) {
+			String mensaje = String.format("Error al descartar importación de «%s»: %s", anterior.ruta(),
+					ex.getLocalizedMessage());
+			deshacer();
+			throw new AccesoBDException(mensaje, ex);
+		} finally {
+			restablecerConfirmación(confirmaciónAutomática);
+		}
+
+		if (númFilas > 0) {
+			notificar(CambioInventario.RECARGA);
+		}
 		return númFilas;
 	}
 
@@ -291,11 +2061,14 @@ public class AccesoBD implements AutoCloseable {
 	 * Inserta los puestos de un aula en la base de datos.
 	 * 
 	 * @param aula el aula con los puestos a grabar
-	 * @return el número de filas afectadas, debería coincidir con el tamaño de la
-	 *         colección original
+	 * @return el número de filas afectadas; coincide con el tamaño de la
+	 *         colección original salvo que el control de duplicados descarte
+	 *         códigos ya almacenados
 	 * @throws AccesoBDException si se produce alguna incidencia
 	 */
+	@Override
 	public int escribir(InventarioAula aula) throws AccesoBDException {
+		EventosImportacion.Grabación evento;
 		Set<String> lista;
 		int númFilas = 0;
 
@@ -303,11 +2076,23 @@ public class AccesoBD implements AutoCloseable {
 			throw new AccesoBDException("Lista nula");
 		}
 
-		lista = aula.generarListaCódigos();
-		for (String código : lista) {
-			númFilas += insertar(código, aula.get(código));
+		evento = new EventosImportacion.Grabación();
+		evento.begin();
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.ESCRITURA)) {
+			lista = aula.generarListaCódigos();
+			for (String código : lista) {
+				númFilas += insertar(aula.getPrefijo(), código, aula.get(código));
+			}
+			medición.terminar(númFilas);
 		}
 
+		evento.end();
+		if (evento.shouldCommit()) {
+			evento.operación = "escribir";
+			evento.puestos = aula.getNúmElementos();
+			evento.filas = númFilas;
+			evento.commit();
+		}
 		return númFilas;
 	}
 
@@ -324,6 +2109,18 @@ public class AccesoBD implements AutoCloseable {
 				sentenciaGeneralSQL = null;
 				preInserciónSQL = null;
 				preConsultaSQL = null;
+				preBúsquedaSQL = null;
+				preExisteCódigoSQL = null;
+				preLeerPuestoSQL = null;
+				preTramoSQL = null;
+				preTramoFinalSQL = null;
+				preActualizarSQL = null;
+				preEliminarSQL = null;
+				preLeerHuellaSQL = null;
+				preGrabarHuellaSQL = null;
+				filtroDuplicados = null;
+				númDuplicados = 0;
+				registroLentas = null;
 			} catch (SQLException e) {
 				String mensaje = String.format("Error en cierre de conexión: %s", e.getLocalizedMessage());
 				throw new AccesoBDException(mensaje, e);
@@ -339,47 +2136,69 @@ public class AccesoBD implements AutoCloseable {
 	 * del inventario. En caso de producirse algún error de acceso o por el propio
 	 * formato del archivo, se envía el mensaje a la salida de error estándar y el
 	 * programa continúa sin perder el contenido anterior.
+	 * <div>Si el archivo ya se importó y no ha cambiado no se vuelve a leer; si
+	 * solo se le han añadido líneas, se importan únicamente las nuevas. Los
+	 * puestos se graban por bloques en transacciones independientes y, si la
+	 * importación se interrumpe, se reanuda desde el último bloque grabado. Los
+	 * archivos comprimidos se importan siempre por completo, sin registro.</div>
 	 * 
+	 * @see ImportadorIncremental
 	 * @param rutaArchivo la ubicación del archivo de texto original
 	 * 
 	 * @throws AccesoBDException si se produce alguna incidencia al acceder a la
 	 *                           base de datos
 	 */
 	private void generarBD(String rutaArchivo) throws AccesoBDException, IOException {
-		AccesoArchivo archivo;
-		InventarioAula nuevaLista;
-		List<String> contenido;
-		int númElementos;
+		ImportadorIncremental.Resultado resultado;
 		String mensaje;
 
-		try {
-			archivo = new AccesoArchivo(rutaArchivo);
-			contenido = archivo.leer();
-			númElementos = contenido.size() - 1; // 1 línea de cabecera, el prefijo
+		resultado = new ImportadorIncremental(this).importar(rutaArchivo, true); // Archivo ya terminado
+		mostrarRechazos(resultado.númRechazos(), resultado.rechazos());
 
-			if (númElementos < 1) {
-				VistaGeneral.mostrarAviso("No hay ningún elemento que importar");
-			} else {
-				nuevaLista = InventarioAula.of(contenido);
-				númElementos = nuevaLista.getNúmElementos();
+		if (resultado.estado() == ImportadorIncremental.Estado.SIN_CAMBIOS) {
+			mensaje = String.format("Archivo «%s» sin cambios desde la última importación", rutaArchivo);
+			VistaGeneral.mostrarTexto(mensaje);
+		} else if (resultado.líneasLeídas() < 1) {
+			VistaGeneral.mostrarAviso("No hay ningún elemento que importar");
+		} else if (resultado.puestosGrabados() > 0) {
+			mensaje = String.format("%d equipos importados%s", resultado.puestosGrabados(),
+					switch (resultado.estado()) {
+					case AMPLIADO -> " –solo líneas nuevas–";
+					case REANUDADO -> " –tras reanudar la importación interrumpida–";
+					case MODIFICADO -> " –en lugar del contenido anterior del aula–";
+					case COMPRIMIDO -> " –archivo comprimido, importado por completo sin registro–";
+					default -> "";
+					});
+			VistaGeneral.mostrarTexto(mensaje);
+			VistaGeneral.mostrarTexto(filtroDuplicados.toString());
+		} else {
+			VistaGeneral.mostrarAviso("0 equipos importados, transferencia fallida");
+		}
+	}
+
+	/**
+	 * Informa de las líneas descartadas en una importación: el total y el detalle
+	 * de las primeras.
+	 * 
+	 * @param númRechazos el número de líneas descartadas
+	 * @param rechazos    el detalle de las primeras líneas descartadas
+	 */
+	private static void mostrarRechazos(int númRechazos, List<InventarioAula.Rechazo> rechazos) {
+		String mensaje;
+		int númDetallados;
 
-				if (númElementos > 0) {
-					mensaje = String.format("%d equipos importados", númElementos);
-					VistaGeneral.mostrarTexto(mensaje);
+		if (númRechazos > 0) {
+			mensaje = String.format("%d líneas descartadas", númRechazos);
+			VistaGeneral.mostrarAviso(mensaje);
 
-					abrirConexión();
-					// vaciarBD();
-					escribir(nuevaLista);
-				} else {
-					mensaje = String.format("%d equipos importados, transferencia fallida", númElementos);
-					VistaGeneral.mostrarAviso(mensaje);
-				}
+			númDetallados = Math.min(rechazos.size(), MÁX_RECHAZOS_DETALLADOS);
+			for (InventarioAula.Rechazo rechazo : rechazos.subList(0, númDetallados)) {
+				mensaje = String.format("  línea %d – %s: %s", rechazo.númLínea(), rechazo.motivo(), rechazo.línea());
+				VistaGeneral.mostrarTexto(mensaje);
 			}
-		} catch (InventarioException ex) {
-			mensaje = String.format("Error de importación: %s", ex.getLocalizedMessage());
-			VistaGeneral.mostrarAviso(mensaje);
 		}
 	}
+
 	/**
 	 * Crea una conexión a la base de datos (alias para abrirConexión).
 	 * 
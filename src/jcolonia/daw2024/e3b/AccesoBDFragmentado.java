@@ -0,0 +1,319 @@
+package jcolonia.daw2024.e3b;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Almacenamiento del inventario repartido en varias bases de datos SQLite –una
+ * por edificio o rango de prefijos–, de modo que las importaciones de edificios
+ * distintos no compitan por el bloqueo de escritura de un único archivo.
+ * <div>Cada fragmento se identifica por el prefijo inicial de su rango: un aula
+ * corresponde al fragmento con el mayor prefijo inicial que no supera el
+ * prefijo del aula en orden alfabético. Todas las operaciones se dirigen por el
+ * prefijo del aula, nunca por el código del puesto: con fragmentos «IC» e
+ * «IC5», el puesto «IC51» del aula «IC» queda en el primero. Las consultas
+ * globales –búsqueda de texto y recuentos– se lanzan en paralelo sobre todos
+ * los fragmentos y se combinan sus resultados.</div> <div>Ejemplo:
+ *
+ * <pre>
+ * Map.of("A", "inventarioA.db", "IC", "inventarioIC.db", "M", "inventarioM.db")
+ * </pre>
+ *
+ * reparte los códigos de «A» a «IB…» en el primer archivo, de «IC» a «L…» en el
+ * segundo y de «M» en adelante en el tercero.</div>
+ *
+ * @see AccesoBD
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class AccesoBDFragmentado implements AutoCloseable {
+	/**
+	 * Los fragmentos, por el prefijo inicial de su rango. Cada {@link AccesoBD} se
+	 * usa en exclusiva –sincronizando sobre él– ya que su conexión y sentencias
+	 * preparadas no admiten uso concurrente.
+	 */
+	private final NavigableMap<String, AccesoBD> fragmentos;
+
+	/** Los hilos para las consultas en paralelo, uno por fragmento. */
+	private final ExecutorService hilos;
+
+	/**
+	 * Prepara el acceso a los fragmentos, sin abrir todavía ninguna conexión.
+	 *
+	 * @param archivosBD los archivos de base de datos por prefijo inicial de su
+	 *                   rango
+	 * @throws AccesoBDException si no se indica ningún fragmento
+	 */
+	public AccesoBDFragmentado(Map<String, String> archivosBD) throws AccesoBDException {
+		String prefijo;
+
+		if (archivosBD == null || archivosBD.isEmpty()) {
+			throw new AccesoBDException("Lista de fragmentos vacía");
+		}
+
+		fragmentos = new TreeMap<>();
+		for (Map.Entry<String, String> entrada : archivosBD.entrySet()) {
+			prefijo = NormalizadorTexto.recortarMayúsculas(entrada.getKey());
+			fragmentos.put(prefijo, new AccesoBD(AccesoBD.generarConfiguración(entrada.getValue())));
+		}
+
+		hilos = Executors.newFixedThreadPool(fragmentos.size(), tarea -> {
+			Thread hilo = new Thread(tarea, "AccesoBDFragmentado");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+	}
+
+	/**
+	 * Localiza el fragmento al que corresponde un aula. Los prefijos anteriores al
+	 * primer rango se asignan al primer fragmento.
+	 *
+	 * @param prefijoAula el prefijo del aula
+	 * @return el fragmento correspondiente
+	 */
+	AccesoBD localizar(String prefijoAula) {
+		Map.Entry<String, AccesoBD> entrada;
+
+		entrada = fragmentos.floorEntry(NormalizadorTexto.recortarMayúsculas(prefijoAula));
+		if (entrada == null) {
+			entrada = fragmentos.firstEntry();
+		}
+		return entrada.getValue();
+	}
+
+	/**
+	 * Inserta los puestos de un aula en su fragmento, en una única transacción.
+	 * Las aulas de fragmentos distintos pueden grabarse a la vez desde hilos
+	 * diferentes.
+	 *
+	 * @see AccesoBD#insertarLote(Collection)
+	 * @param aula el aula con los puestos a grabar
+	 * @return el número de puestos grabados
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public int escribir(InventarioAula aula) throws AccesoBDException {
+		AccesoBD fragmento;
+		int númFilas;
+
+		if (aula == null) {
+			throw new AccesoBDException("Lista nula");
+		}
+
+		fragmento = localizar(aula.getPrefijo());
+		synchronized (fragmento) {
+			númFilas = fragmento.insertarLote(aula.getPrefijo(), aula.stream().toList());
+		}
+		return númFilas;
+	}
+
+	/**
+	 * Inserta un puesto en el fragmento de su aula. El aula se indica aparte: el
+	 * código del puesto no basta para deducirla cuando un prefijo prolonga otro.
+	 *
+	 * @param prefijoAula el prefijo del aula del puesto
+	 * @param código      el código del puesto
+	 * @param puesto      los datos del puesto
+	 * @return el número de filas afectadas
+	 * @throws AccesoBDException si el código no corresponde al aula o se produce
+	 *                           alguna incidencia
+	 */
+	public int insertar(String prefijoAula, String código, PuestoUsuario puesto) throws AccesoBDException {
+		AccesoBD fragmento;
+		int númFilas;
+
+		if (!NormalizadorTexto.recortarMayúsculas(código)
+				.startsWith(NormalizadorTexto.recortarMayúsculas(prefijoAula))) {
+			throw new AccesoBDException(MotivoRechazo.CÓDIGO_AJENO.generarMensaje(código, prefijoAula));
+		}
+		fragmento = localizar(prefijoAula);
+		synchronized (fragmento) {
+			númFilas = fragmento.insertar(prefijoAula, código, puesto);
+		}
+		return númFilas;
+	}
+
+	/**
+	 * Carga los puestos de un aula desde su fragmento.
+	 *
+	 * @param prefijo el prefijo del aula
+	 * @return el aula con sus puestos
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public InventarioAula leer(String prefijo) throws AccesoBDException {
+		AccesoBD fragmento;
+		InventarioAula aula;
+
+		fragmento = localizar(prefijo);
+		synchronized (fragmento) {
+			aula = fragmento.leer(prefijo);
+		}
+		return aula;
+	}
+
+	/**
+	 * Busca puestos por texto en todos los fragmentos a la vez y combina los
+	 * resultados por relevancia.
+	 * <div>La combinación es aproximada: cada fragmento puntúa sus coincidencias
+	 * con las estadísticas de su propio índice –número de filas y frecuencia de
+	 * cada palabra–, así que las puntuaciones de fragmentos distintos no son del
+	 * todo comparables. El conjunto de resultados de cada fragmento es exacto,
+	 * pero entre fragmentos de tamaño muy diferente el orden final puede no
+	 * coincidir con el de un índice único.</div>
+	 *
+	 * @see AccesoBD#buscar(String, int)
+	 * @param texto  las palabras a buscar
+	 * @param límite el número máximo de resultados
+	 * @return los puestos encontrados, del más al menos relevante
+	 * @throws AccesoBDException si falla la consulta en algún fragmento
+	 */
+	public List<Map.Entry<String, PuestoUsuario>> buscar(String texto, int límite) throws AccesoBDException {
+		List<AccesoBD.Coincidencia> coincidencias;
+		List<Map.Entry<String, PuestoUsuario>> resultados;
+
+		coincidencias = new ArrayList<>();
+		for (List<AccesoBD.Coincidencia> parcial : repartir(fragmento -> fragmento.buscarCoincidencias(texto, límite))) {
+			coincidencias.addAll(parcial);
+		}
+		coincidencias.sort(Comparator.comparingDouble(AccesoBD.Coincidencia::relevancia));
+
+		resultados = new ArrayList<>();
+		for (int i = 0; i < coincidencias.size() && i < límite; i++) {
+			resultados.add(Map.entry(coincidencias.get(i).código(), coincidencias.get(i).puesto()));
+		}
+		return resultados;
+	}
+
+	/**
+	 * Cuenta los puestos de todos los fragmentos a la vez.
+	 *
+	 * @return el número total de puestos
+	 * @throws AccesoBDException si falla la consulta en algún fragmento
+	 */
+	public int contar() throws AccesoBDException {
+		int númPuestos = 0;
+
+		for (Integer parcial : repartir(AccesoBD::contar)) {
+			númPuestos += parcial;
+		}
+		return númPuestos;
+	}
+
+	/**
+	 * Obtiene el resumen por aula de todos los fragmentos a la vez.
+	 *
+	 * @see AccesoBD#resumen()
+	 * @return el resumen de cada aula, por orden de prefijo
+	 * @throws AccesoBDException si falla la consulta en algún fragmento
+	 */
+	public List<AccesoBD.ResumenAula> resumen() throws AccesoBDException {
+		List<AccesoBD.ResumenAula> resúmenes;
+
+		resúmenes = new ArrayList<>();
+		for (List<AccesoBD.ResumenAula> parcial : repartir(AccesoBD::resumen)) {
+			resúmenes.addAll(parcial);
+		}
+		resúmenes.sort(Comparator.comparing(AccesoBD.ResumenAula::prefijo));
+		return resúmenes;
+	}
+
+	/**
+	 * Operación de consulta sobre un único fragmento.
+	 *
+	 * @param <T> el tipo del resultado
+	 */
+	@FunctionalInterface
+	private interface Consulta<T> {
+		/**
+		 * Ejecuta la consulta.
+		 *
+		 * @param fragmento el fragmento consultado
+		 * @return el resultado parcial
+		 * @throws AccesoBDException si se produce alguna incidencia
+		 */
+		T ejecutar(AccesoBD fragmento) throws AccesoBDException;
+	}
+
+	/**
+	 * Lanza una consulta en paralelo sobre todos los fragmentos y espera a que
+	 * terminen.
+	 *
+	 * @param <T>      el tipo del resultado
+	 * @param consulta la consulta a ejecutar en cada fragmento
+	 * @return los resultados parciales, en el orden de los fragmentos
+	 * @throws AccesoBDException si falla la consulta en algún fragmento o se
+	 *                           interrumpe la espera
+	 */
+	private <T> List<T> repartir(Consulta<T> consulta) throws AccesoBDException {
+		List<Callable<T>> tareas;
+		List<T> resultados;
+
+		tareas = new ArrayList<>(fragmentos.size());
+		for (AccesoBD fragmento : fragmentos.values()) {
+			tareas.add(() -> {
+				synchronized (fragmento) {
+					return consulta.ejecutar(fragmento);
+				}
+			});
+		}
+
+		resultados = new ArrayList<>(tareas.size());
+		try {
+			for (Future<T> parcial : hilos.invokeAll(tareas)) {
+				resultados.add(parcial.get());
+			}
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof AccesoBDException causa) {
+				throw causa;
+			}
+			throw new AccesoBDException("Error en consulta fragmentada: " + ex.getCause(), ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new AccesoBDException("Consulta fragmentada interrumpida", ex);
+		}
+		return resultados;
+	}
+
+	/**
+	 * Informa de los fragmentos configurados.
+	 *
+	 * @return los prefijos iniciales de los rangos, en orden
+	 */
+	public Collection<String> getPrefijos() {
+		return List.copyOf(fragmentos.keySet());
+	}
+
+	/**
+	 * Detiene los hilos y cierra todas las conexiones.
+	 *
+	 * @throws AccesoBDException si se produce alguna incidencia en algún cierre
+	 */
+	@Override
+	public void close() throws AccesoBDException {
+		AccesoBDException error = null;
+
+		hilos.shutdownNow();
+		for (AccesoBD fragmento : fragmentos.values()) {
+			synchronized (fragmento) {
+				try {
+					fragmento.close();
+				} catch (AccesoBDException ex) {
+					error = ex;
+				}
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package jcolonia.daw2024.e3b;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones de almacenamiento persistente de los puestos del inventario,
+ * independientes del motor empleado. La implementación predeterminada es
+ * {@link AccesoBD}, sobre SQLite; {@link AlmacenMemoria} las resuelve en
+ * memoria, sin JDBC, para pruebas, mediciones y puestos de consulta.
+ * <div>Los códigos de puesto se comparan ya normalizados –sin espacios en los
+ * extremos y en mayúsculas–. Cada puesto queda anotado en un aula, cuyo
+ * prefijo es el comienzo de su código, y el contenido de un aula son los
+ * puestos anotados en ella: «IC21» puede pertenecer al aula «IC2» y no a
+ * «IC». Si no se indica el aula al almacenarlo, se toma la almacenada de
+ * prefijo más largo con la que comience el código o, si no hay ninguna, el
+ * código sin las cifras finales.</div> <div>Un código ya almacenado no se
+ * almacena de nuevo: las inserciones lo descartan sin error ni modificación y
+ * no lo cuentan entre los puestos almacenados. Todas las implementaciones lo
+ * cumplen sin preparación previa.</div>
+ *
+ * @see ComparativaAlmacenes
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public interface AlmacenInventario extends AutoCloseable {
+	/**
+	 * Carga los puestos de un aula.
+	 *
+	 * @param prefijo el prefijo del aula
+	 * @return el aula recién creada
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	InventarioAula leer(String prefijo) throws AccesoBDException;
+
+	/**
+	 * Lee un puesto por su código.
+	 *
+	 * @param código el código del puesto
+	 * @return los datos del puesto; <code>null</code> si no está almacenado
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	PuestoUsuario leerPuesto(String código) throws AccesoBDException;
+
+	/**
+	 * Almacena un puesto, salvo que su código ya esté almacenado.
+	 *
+	 * @param código el código del puesto
+	 * @param puesto los datos del puesto
+	 * @return el número de puestos almacenados: uno, o cero si el código ya
+	 *         estaba almacenado
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	int insertar(String código, PuestoUsuario puesto) throws AccesoBDException;
+
+	/**
+	 * Almacena un bloque de puestos de una sola vez: si se produce alguna
+	 * incidencia no se almacena ninguno. Se descartan los códigos ya almacenados
+	 * y, de los repetidos dentro del bloque, todos salvo el primero.
+	 *
+	 * @param puestos los puestos, como pares código–datos
+	 * @return el número de puestos almacenados, sin los descartados
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	int insertarLote(Collection<Map.Entry<String, PuestoUsuario>> puestos) throws AccesoBDException;
+
+	/**
+	 * Almacena de una sola vez un bloque de puestos de un aula conocida, en lugar
+	 * de deducirla del código. Si algún código no comienza por el prefijo del
+	 * aula no se almacena ninguno.
+	 *
+	 * @param prefijoAula el prefijo del aula de todos los puestos
+	 * @param puestos     los puestos, como pares código–datos
+	 * @return el número de puestos almacenados
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	int insertarLote(String prefijoAula, Collection<Map.Entry<String, PuestoUsuario>> puestos)
+			throws AccesoBDException;
+
+	/**
+	 * Almacena los puestos de un aula, salvo los de código ya almacenado.
+	 *
+	 * @param aula el aula con los puestos a grabar
+	 * @return el número de puestos almacenados, sin los descartados
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	int escribir(InventarioAula aula) throws AccesoBDException;
+
+	/**
+	 * Elimina todos los puestos.
+	 *
+	 * @return el número de puestos eliminados
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	int vaciar() throws AccesoBDException;
+
+	/**
+	 * Busca puestos por el nombre o apellidos del usuario o por la identificación
+	 * del equipo, sin distinguir mayúsculas, minúsculas ni tildes. Cada palabra
+	 * del texto se interpreta como comienzo de palabra y han de aparecer todas.
+	 *
+	 * @param texto  las palabras a buscar
+	 * @param límite el número máximo de resultados
+	 * @return los puestos encontrados, como pares código–datos, del más al menos
+	 *         relevante
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	List<Map.Entry<String, PuestoUsuario>> buscar(String texto, int límite) throws AccesoBDException;
+
+	/**
+	 * Cuenta los puestos almacenados.
+	 *
+	 * @return el número de puestos
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	int contar() throws AccesoBDException;
+
+	/**
+	 * Libera los recursos del almacenamiento.
+	 *
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	@Override
+	void close() throws AccesoBDException;
+}
@@ -0,0 +1,455 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Almacenamiento de los puestos del inventario en memoria, sin JDBC ni SQLite.
+ * Los puestos se guardan ordenados por código en un
+ * {@link ConcurrentSkipListMap}, junto con el aula en la que están anotados, de
+ * modo que los puestos de un aula quedan dentro del tramo del mapa que comienza
+ * por su prefijo y las lecturas no se bloquean nunca. Las escrituras se
+ * ordenan entre sí con un cerrojo único.
+ * <div>Opcionalmente se conserva en un archivo de instantánea: se carga al
+ * crear el almacén y se guarda al {@link #close() cerrarlo} o al
+ * {@link #guardar() pedirlo}, escribiendo primero en un archivo temporal que
+ * después sustituye al anterior de una sola vez. Como exige
+ * {@link AlmacenInventario}, los códigos ya almacenados se descartan sin
+ * error.</div>
+ *
+ * @see ComparativaAlmacenes
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class AlmacenMemoria implements AlmacenInventario {
+	/** Identificación de los archivos de instantánea: «INVM». */
+	private static final int MARCA_INSTANTÁNEA = 0x494E564D;
+
+	/**
+	 * Versión del formato de los archivos de instantánea. La versión 1 no
+	 * guardaba el aula de cada puesto.
+	 */
+	private static final int VERSIÓN_INSTANTÁNEA = 2;
+
+	/** Tamaño de los búferes de lectura y escritura de las instantáneas. */
+	private static final int TAMAÑO_BÚFER = 1 << 16;
+
+	/** Los puestos almacenados, por código normalizado. */
+	private final ConcurrentSkipListMap<String, Entrada> puestos;
+
+	/**
+	 * El número de puestos almacenados: el tamaño del mapa concurrente no se
+	 * calcula en tiempo constante.
+	 */
+	private final AtomicInteger númPuestos;
+
+	/**
+	 * Los prefijos de las aulas con algún puesto almacenado, para deducir el aula
+	 * de los puestos que llegan sin ella.
+	 */
+	private final ConcurrentSkipListSet<String> prefijosAulas;
+
+	/** Cerrojo que ordena las escrituras. */
+	private final Object cerrojoEscritura;
+
+	/** El archivo de instantánea; <code>null</code> si no se conserva. */
+	private final Path archivoInstantánea;
+
+	/**
+	 * Un puesto almacenado junto con el aula en la que está anotado y las
+	 * palabras normalizadas de sus datos, preparadas para las búsquedas.
+	 *
+	 * @param prefijoAula el prefijo del aula del puesto
+	 * @param puesto      los datos del puesto
+	 * @param palabras    las palabras de la identificación del equipo, el nombre
+	 *                    y los apellidos, en minúsculas y sin tildes
+	 */
+	private record Entrada(String prefijoAula, PuestoUsuario puesto, String[] palabras) {
+		/**
+		 * Prepara las palabras de búsqueda de un puesto.
+		 *
+		 * @param prefijoAula el prefijo del aula del puesto
+		 * @param puesto      los datos del puesto
+		 * @return la entrada
+		 */
+		private static Entrada of(String prefijoAula, PuestoUsuario puesto) {
+			List<String> palabras;
+
+			palabras = new ArrayList<>();
+			separarPalabras(puesto.ordenador(), palabras);
+			separarPalabras(puesto.nombre(), palabras);
+			separarPalabras(puesto.apellidos(), palabras);
+			return new Entrada(prefijoAula, puesto, palabras.toArray(new String[0]));
+		}
+
+		/**
+		 * Comprueba si cada una de las palabras buscadas es el comienzo de alguna
+		 * de las palabras del puesto.
+		 *
+		 * @param buscadas las palabras buscadas, ya normalizadas
+		 * @return <code>true</code> si aparecen todas
+		 */
+		private boolean coincide(List<String> buscadas) {
+			boolean coincide = true, encontrada;
+
+			for (int i = 0; coincide && i < buscadas.size(); i++) {
+				encontrada = false;
+				for (int j = 0; !encontrada && j < palabras.length; j++) {
+					encontrada = palabras[j].startsWith(buscadas.get(i));
+				}
+				coincide = encontrada;
+			}
+			return coincide;
+		}
+	}
+
+	/**
+	 * Crea un almacén vacío que no se conserva al cerrarlo.
+	 */
+	public AlmacenMemoria() {
+		puestos = new ConcurrentSkipListMap<>();
+		númPuestos = new AtomicInteger();
+		prefijosAulas = new ConcurrentSkipListSet<>();
+		cerrojoEscritura = new Object();
+		archivoInstantánea = null;
+	}
+
+	/**
+	 * Crea un almacén conservado en un archivo de instantánea, cargando su
+	 * contenido si ya existe.
+	 *
+	 * @param archivoInstantánea la ruta del archivo
+	 * @throws AccesoBDException si el archivo existe pero no se puede leer o no
+	 *                           es una instantánea válida
+	 */
+	public AlmacenMemoria(Path archivoInstantánea) throws AccesoBDException {
+		puestos = new ConcurrentSkipListMap<>();
+		númPuestos = new AtomicInteger();
+		prefijosAulas = new ConcurrentSkipListSet<>();
+		cerrojoEscritura = new Object();
+		this.archivoInstantánea = archivoInstantánea;
+		if (Files.exists(archivoInstantánea)) {
+			cargar();
+		}
+	}
+
+	/**
+	 * Separa un texto en palabras en minúsculas y sin tildes, con el mismo
+	 * criterio que el índice de texto de SQLite: cualquier carácter que no sea
+	 * letra ni cifra separa palabras.
+	 *
+	 * @param texto    el texto original
+	 * @param palabras la lista donde se añaden las palabras
+	 */
+	private static void separarPalabras(String texto, List<String> palabras) {
+		String normalizado;
+		StringBuilder palabra;
+		char letra;
+
+		normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD);
+		palabra = new StringBuilder();
+		for (int i = 0; i < normalizado.length(); i++) {
+			letra = normalizado.charAt(i);
+			if (Character.isLetterOrDigit(letra)) {
+				palabra.append(Character.toLowerCase(letra));
+			} else if (Character.getType(letra) != Character.NON_SPACING_MARK && palabra.length() > 0) {
+				palabras.add(palabra.toString());
+				palabra.setLength(0);
+			}
+		}
+		if (palabra.length() > 0) {
+			palabras.add(palabra.toString());
+		}
+	}
+
+	@Override
+	public InventarioAula leer(String prefijo) throws AccesoBDException {
+		InventarioAula aula;
+
+		try {
+			aula = InventarioAula.of(prefijo);
+			for (Map.Entry<String, Entrada> entrada : tramoAula(aula.getPrefijo()).entrySet()) {
+				if (!entrada.getKey().startsWith(aula.getPrefijo())) {
+					break;
+				}
+				if (entrada.getValue().prefijoAula().equals(aula.getPrefijo())) {
+					aula.añadir(entrada.getKey(), entrada.getValue().puesto());
+				}
+			}
+		} catch (InventarioException ex) {
+			String mensaje = String.format("Error al cargar aula «%s»: %s", prefijo, ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+		return aula;
+	}
+
+	/**
+	 * Obtiene el tramo del mapa a partir del primer código que puede comenzar por
+	 * un prefijo. Los puestos de un aula son los primeros del tramo cuyo código
+	 * comienza por su prefijo y que están anotados en ella: entre ellos pueden
+	 * aparecer los de otras aulas que lo prolonguen –«IC» e «IC2»–.
+	 *
+	 * @param prefijo el prefijo, ya normalizado
+	 * @return la vista del tramo, que refleja los cambios posteriores
+	 */
+	private ConcurrentNavigableMap<String, Entrada> tramoAula(String prefijo) {
+		return puestos.tailMap(prefijo, true);
+	}
+
+	/**
+	 * Obtiene el aula de un puesto que llega sin ella, con el mismo criterio que
+	 * {@link AccesoBD}: el aula almacenada de prefijo más largo con la que comience
+	 * el código o, si no hay ninguna, el código sin las cifras finales.
+	 *
+	 * @param código el código del puesto, ya normalizado
+	 * @return el prefijo del aula
+	 */
+	private String deducirAula(String código) {
+		String prefijoAula = null;
+		int fin;
+
+		for (String prefijo : prefijosAulas.headSet(código, true)) {
+			if (código.startsWith(prefijo) && (prefijoAula == null || prefijo.length() > prefijoAula.length())) {
+				prefijoAula = prefijo;
+			}
+		}
+		if (prefijoAula == null) {
+			fin = código.length();
+			while (fin > 0 && código.charAt(fin - 1) >= '0' && código.charAt(fin - 1) <= '9') {
+				fin--;
+			}
+			prefijoAula = código.substring(0, fin);
+		}
+		return prefijoAula;
+	}
+
+	@Override
+	public PuestoUsuario leerPuesto(String código) {
+		Entrada entrada;
+
+		entrada = puestos.get(NormalizadorTexto.recortarMayúsculas(código));
+		return entrada == null ? null : entrada.puesto();
+	}
+
+	@Override
+	public int insertar(String código, PuestoUsuario puesto) throws AccesoBDException {
+		return insertarLote(List.of(Map.entry(código, puesto)));
+	}
+
+	/**
+	 * {@inheritDoc} Se comprueban todos los puestos antes de almacenar el primero;
+	 * mientras tanto las lecturas simultáneas pueden ver ya una parte del bloque.
+	 */
+	@Override
+	public int insertarLote(Collection<Map.Entry<String, PuestoUsuario>> puestos) throws AccesoBDException {
+		return insertarLote(null, puestos);
+	}
+
+	/**
+	 * {@inheritDoc} Se comprueban todos los puestos antes de almacenar el primero;
+	 * mientras tanto las lecturas simultáneas pueden ver ya una parte del bloque.
+	 *
+	 * @param prefijoAula el prefijo del aula de todos los puestos;
+	 *                    <code>null</code> para deducirlo del código de cada uno
+	 */
+	@Override
+	public int insertarLote(String prefijoAula, Collection<Map.Entry<String, PuestoUsuario>> puestos)
+			throws AccesoBDException {
+		Map<String, PuestoUsuario> nuevos;
+		String código, prefijo;
+		int númFilas = 0;
+
+		prefijo = prefijoAula == null ? null : NormalizadorTexto.recortarMayúsculas(prefijoAula);
+		nuevos = new HashMap<>();
+		for (Map.Entry<String, PuestoUsuario> entrada : puestos) {
+			código = NormalizadorTexto.recortarMayúsculas(entrada.getKey());
+			if (código.isEmpty() || entrada.getValue() == null) {
+				throw new AccesoBDException(String.format("Error al insertar lote de %d puestos: puesto incompleto «%s»",
+						puestos.size(), código));
+			}
+			if (prefijo != null && !código.startsWith(prefijo)) {
+				throw new AccesoBDException(String.format("Error al insertar lote de %d puestos: %s", puestos.size(),
+						MotivoRechazo.CÓDIGO_AJENO.generarMensaje(código, prefijo)));
+			}
+			nuevos.putIfAbsent(código, entrada.getValue());
+		}
+
+		synchronized (cerrojoEscritura) {
+			for (Map.Entry<String, PuestoUsuario> nuevo : nuevos.entrySet()) {
+				código = nuevo.getKey();
+				if (!this.puestos.containsKey(código)) {
+					this.puestos.put(código,
+							Entrada.of(prefijo == null ? deducirAula(código) : prefijo, nuevo.getValue()));
+					prefijosAulas.add(this.puestos.get(código).prefijoAula());
+					númFilas++;
+				}
+			}
+			númPuestos.addAndGet(númFilas);
+		}
+		return númFilas;
+	}
+
+	@Override
+	public int escribir(InventarioAula aula) throws AccesoBDException {
+		if (aula == null) {
+			throw new AccesoBDException("Lista nula");
+		}
+		return insertarLote(aula.getPrefijo(), aula.stream().toList());
+	}
+
+	@Override
+	public int vaciar() {
+		int númFilas;
+
+		synchronized (cerrojoEscritura) {
+			puestos.clear();
+			prefijosAulas.clear();
+			númFilas = númPuestos.getAndSet(0);
+		}
+		return númFilas;
+	}
+
+	/**
+	 * {@inheritDoc} Los resultados se devuelven por orden de código: el almacén en
+	 * memoria no puntúa la relevancia.
+	 */
+	@Override
+	public List<Map.Entry<String, PuestoUsuario>> buscar(String texto, int límite) {
+		List<Map.Entry<String, PuestoUsuario>> resultados;
+		List<String> buscadas;
+
+		resultados = new ArrayList<>();
+		buscadas = new ArrayList<>();
+		if (texto != null) {
+			separarPalabras(texto, buscadas);
+		}
+		if (!buscadas.isEmpty()) {
+			for (Map.Entry<String, Entrada> entrada : puestos.entrySet()) {
+				if (resultados.size() >= límite) {
+					break;
+				}
+				if (entrada.getValue().coincide(buscadas)) {
+					resultados.add(Map.entry(entrada.getKey(), entrada.getValue().puesto()));
+				}
+			}
+		}
+		return resultados;
+	}
+
+	@Override
+	public int contar() {
+		return númPuestos.get();
+	}
+
+	/**
+	 * Carga los puestos del archivo de instantánea. Los de una instantánea de la
+	 * versión 1, que no guardaba su aula, se anotan en la que se deducía
+	 * entonces: el código sin las cifras finales.
+	 *
+	 * @throws AccesoBDException si no se puede leer o no es una instantánea válida
+	 */
+	private void cargar() throws AccesoBDException {
+		String código, prefijoAula;
+		int total, versión;
+
+		try (DataInputStream entrada = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(archivoInstantánea), TAMAÑO_BÚFER))) {
+			if (entrada.readInt() != MARCA_INSTANTÁNEA) {
+				throw new IOException("formato desconocido");
+			}
+			versión = entrada.readInt();
+			if (versión < 1 || versión > VERSIÓN_INSTANTÁNEA) {
+				throw new IOException("formato desconocido");
+			}
+			total = entrada.readInt();
+			for (int i = 0; i < total; i++) {
+				código = entrada.readUTF();
+				prefijoAula = versión == 1 ? código.replaceFirst("[0-9]+$", "") : entrada.readUTF();
+				puestos.put(código, Entrada.of(prefijoAula,
+						new PuestoUsuario(entrada.readUTF(), entrada.readUTF(), entrada.readUTF())));
+				prefijosAulas.add(prefijoAula);
+			}
+			númPuestos.set(puestos.size());
+		} catch (IOException ex) {
+			String mensaje = String.format("Error al cargar la instantánea «%s»: %s", archivoInstantánea,
+					ex.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, ex);
+		}
+	}
+
+	/**
+	 * Guarda todos los puestos en el archivo de instantánea, si lo hay. Se
+	 * escriben en un archivo temporal del mismo directorio que después sustituye
+	 * al anterior, de modo que una interrupción nunca deja una instantánea a
+	 * medias.
+	 *
+	 * @throws AccesoBDException si no se puede escribir el archivo
+	 */
+	public void guardar() throws AccesoBDException {
+		Path temporal = null, directorio;
+		PuestoUsuario puesto;
+
+		if (archivoInstantánea != null) {
+			directorio = archivoInstantánea.toAbsolutePath().getParent();
+			synchronized (cerrojoEscritura) {
+				try {
+					temporal = Files.createTempFile(directorio, archivoInstantánea.getFileName().toString(), ".tmp");
+					try (DataOutputStream salida = new DataOutputStream(
+							new BufferedOutputStream(Files.newOutputStream(temporal), TAMAÑO_BÚFER))) {
+						salida.writeInt(MARCA_INSTANTÁNEA);
+						salida.writeInt(VERSIÓN_INSTANTÁNEA);
+						salida.writeInt(númPuestos.get());
+						for (Map.Entry<String, Entrada> entrada : puestos.entrySet()) {
+							puesto = entrada.getValue().puesto();
+							salida.writeUTF(entrada.getKey());
+							salida.writeUTF(entrada.getValue().prefijoAula());
+							salida.writeUTF(puesto.ordenador());
+							salida.writeUTF(puesto.nombre());
+							salida.writeUTF(puesto.apellidos());
+						}
+					}
+					Files.move(temporal, archivoInstantánea, StandardCopyOption.REPLACE_EXISTING,
+							StandardCopyOption.ATOMIC_MOVE);
+				} catch (IOException ex) {
+					String mensaje = String.format("Error al guardar la instantánea «%s»: %s", archivoInstantánea,
+							ex.getLocalizedMessage());
+					try {
+						if (temporal != null) {
+							Files.deleteIfExists(temporal);
+						}
+					} catch (IOException e) {
+						ex.addSuppressed(e);
+					}
+					throw new AccesoBDException(mensaje, ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Guarda la instantánea, si la hay. El contenido sigue disponible en memoria.
+	 *
+	 * @throws AccesoBDException si no se puede guardar la instantánea
+	 */
+	@Override
+	public void close() throws AccesoBDException {
+		guardar();
+	}
+}
@@ -0,0 +1,84 @@
+package jcolonia.daw2024.e3b;
+
+/**
+ * Cambio en un puesto del inventario, publicado por {@link InventarioAula} y
+ * por {@link AccesoBD} a sus {@link Observador observadores} para que puedan
+ * actualizar su vista sin recargar el aula completa.
+ *
+ * @see DespachadorCambios
+ *
+ * @param tipo     la clase de cambio
+ * @param código   el código del puesto; <code>null</code> en una
+ *                 {@link Tipo#RECARGADO recarga}
+ * @param anterior los datos previos del puesto; <code>null</code> si no los
+ *                 había o no se conocen
+ * @param actual   los datos nuevos del puesto; <code>null</code> si se ha
+ *                 retirado
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public record CambioInventario(Tipo tipo, String código, PuestoUsuario anterior, PuestoUsuario actual) {
+	/** Cambio que obliga a volver a cargar el contenido completo. */
+	public static final CambioInventario RECARGA = new CambioInventario(Tipo.RECARGADO, null, null, null);
+
+	/**
+	 * Clases de cambio.
+	 */
+	public enum Tipo {
+		/** Puesto nuevo. */
+		AÑADIDO,
+		/** Puesto existente con nuevos datos. */
+		MODIFICADO,
+		/** Puesto eliminado. */
+		RETIRADO,
+		/** Contenido sustituido o vaciado por completo. */
+		RECARGADO
+	}
+
+	/**
+	 * Destinatario de los cambios del inventario. Se avisa en el mismo hilo que
+	 * realiza el cambio, que puede no ser siempre el mismo: si el trabajo no es
+	 * inmediato conviene trasladarlo a otro hilo.
+	 *
+	 * @see DespachadorCambios
+	 */
+	@FunctionalInterface
+	public interface Observador {
+		/**
+		 * Recibe un cambio.
+		 *
+		 * @param cambio el cambio realizado
+		 */
+		void notificar(CambioInventario cambio);
+	}
+
+	/**
+	 * Combina este cambio con otro posterior sobre el mismo puesto en un único
+	 * cambio equivalente. Un puesto añadido y después retirado se anula; uno
+	 * retirado y vuelto a añadir queda modificado.
+	 *
+	 * @param siguiente el cambio posterior
+	 * @return el cambio combinado; <code>null</code> si ambos se anulan
+	 */
+	public CambioInventario combinar(CambioInventario siguiente) {
+		CambioInventario combinado;
+
+		combinado = switch (tipo) {
+		case AÑADIDO -> switch (siguiente.tipo) {
+			case MODIFICADO -> new CambioInventario(Tipo.AÑADIDO, código, null, siguiente.actual);
+			case RETIRADO -> null;
+			default -> siguiente;
+			};
+		case MODIFICADO -> switch (siguiente.tipo) {
+			case MODIFICADO, RETIRADO -> new CambioInventario(siguiente.tipo, código, anterior, siguiente.actual);
+			default -> siguiente;
+			};
+		case RETIRADO -> siguiente.tipo == Tipo.AÑADIDO
+				? new CambioInventario(Tipo.MODIFICADO, código, anterior, siguiente.actual)
+				: siguiente;
+		case RECARGADO -> siguiente;
+		};
+		return combinado;
+	}
+}
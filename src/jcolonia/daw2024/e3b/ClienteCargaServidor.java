@@ -0,0 +1,210 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prueba de carga del {@link ServidorInventario servicio HTTP de consulta}:
+ * varios clientes simultáneos, cada uno en su propio hilo virtual, repiten
+ * peticiones durante un tiempo fijo y se informa de las peticiones por segundo
+ * y de los percentiles de latencia.
+ * <div>Las peticiones se reparten entre las rutas del servicio –listado de un
+ * aula, consulta de un puesto y búsqueda– a partir de las aulas y puestos que
+ * el propio servicio devuelve al comenzar. Ejemplo:
+ *
+ * <pre>
+ * java … ClienteCargaServidor http://localhost:8080 64 10
+ * </pre>
+ *
+ * </div>
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ClienteCargaServidor {
+	/** Número predeterminado de clientes simultáneos. */
+	private static final int CLIENTES_PREDETERMINADO = 64;
+
+	/** Duración predeterminada de la prueba, en segundos. */
+	private static final int SEGUNDOS_PREDETERMINADO = 10;
+
+	/** Número máximo de latencias anotadas por cliente. */
+	private static final int MÁXIMO_MUESTRAS = 1 << 16;
+
+	/** Extracción de los códigos de los listados JSON del servicio. */
+	private static final Pattern CÓDIGO_JSON = Pattern.compile("\"(?:código|prefijo)\":\"([^\"]+)\"");
+
+	/** Clase con método principal únicamente. */
+	private ClienteCargaServidor() {
+	}
+
+	/**
+	 * Extrae los códigos de aula o de puesto de una respuesta del servicio.
+	 *
+	 * @param respuesta el texto JSON
+	 * @return los códigos encontrados, en orden
+	 */
+	private static List<String> extraerCódigos(String respuesta) {
+		List<String> códigos;
+		Matcher coincidencia;
+
+		códigos = new ArrayList<>();
+		coincidencia = CÓDIGO_JSON.matcher(respuesta);
+		while (coincidencia.find()) {
+			códigos.add(coincidencia.group(1));
+		}
+		return códigos;
+	}
+
+	/**
+	 * Prepara las rutas de la prueba a partir del contenido del servicio: los
+	 * listados de cada aula, los primeros puestos de cada una y algunas
+	 * búsquedas.
+	 *
+	 * @param cliente el cliente HTTP
+	 * @param base    la dirección base del servicio
+	 * @return las rutas
+	 * @throws IOException          si no se puede consultar el servicio
+	 * @throws InterruptedException si se interrumpe la espera
+	 */
+	private static List<URI> prepararRutas(HttpClient cliente, String base)
+			throws IOException, InterruptedException {
+		List<URI> rutas;
+		List<String> aulas, puestos;
+		String listado;
+
+		rutas = new ArrayList<>();
+		aulas = extraerCódigos(consultar(cliente, URI.create(base + "/aulas")));
+		for (String aula : aulas) {
+			rutas.add(URI.create(base + "/aulas/" + aula));
+			listado = consultar(cliente, URI.create(base + "/aulas/" + aula));
+			puestos = extraerCódigos(listado);
+			for (String puesto : puestos.subList(0, Math.min(5, puestos.size()))) {
+				rutas.add(URI.create(base + "/puestos/" + puesto));
+			}
+		}
+		for (String texto : new String[] { "ana", "gar", "jose", "pc" }) {
+			rutas.add(URI.create(base + "/buscar?texto=" + texto + "&límite=10"));
+		}
+		return rutas;
+	}
+
+	/**
+	 * Realiza una petición y devuelve el cuerpo de la respuesta.
+	 *
+	 * @param cliente el cliente HTTP
+	 * @param ruta    la dirección completa
+	 * @return el cuerpo de la respuesta
+	 * @throws IOException          si falla la petición o no es correcta
+	 * @throws InterruptedException si se interrumpe la espera
+	 */
+	private static String consultar(HttpClient cliente, URI ruta) throws IOException, InterruptedException {
+		HttpResponse<String> respuesta;
+
+		respuesta = cliente.send(HttpRequest.newBuilder(ruta).GET().build(), HttpResponse.BodyHandlers.ofString());
+		if (respuesta.statusCode() != 200) {
+			throw new IOException(String.format("%s → %d %s", ruta, respuesta.statusCode(), respuesta.body()));
+		}
+		return respuesta.body();
+	}
+
+	/**
+	 * Lanza la prueba de carga contra un servicio en marcha.
+	 *
+	 * @param argumentos opciones de ejecución: dirección base –
+	 *                   «http://localhost:8080» si no se indica–, número de
+	 *                   clientes simultáneos y duración en segundos
+	 */
+	public static void main(String[] argumentos) {
+		String base;
+		int númClientes, segundos;
+		HttpClient cliente;
+		List<URI> rutas;
+		long[][] latencias;
+		int[] númMuestras;
+		AtomicLong peticiones, errores, bytes;
+		long fin, inicio, total = 0, duración;
+		long[] todas;
+
+		base = argumentos.length > 0 ? argumentos[0] : "http://localhost:" + ServidorInventario.PUERTO_PREDETERMINADO;
+		númClientes = argumentos.length > 1 ? Integer.parseInt(argumentos[1]) : CLIENTES_PREDETERMINADO;
+		segundos = argumentos.length > 2 ? Integer.parseInt(argumentos[2]) : SEGUNDOS_PREDETERMINADO;
+
+		peticiones = new AtomicLong();
+		errores = new AtomicLong();
+		bytes = new AtomicLong();
+		latencias = new long[númClientes][];
+		númMuestras = new int[númClientes];
+
+		cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+			rutas = prepararRutas(cliente, base);
+			System.out.printf("%d rutas, %d clientes, %d s…%n", rutas.size(), númClientes, segundos);
+
+			inicio = System.nanoTime();
+			fin = inicio + segundos * 1_000_000_000L;
+			for (int i = 0; i < númClientes; i++) {
+				int númCliente = i;
+				latencias[i] = new long[MÁXIMO_MUESTRAS];
+				hilos.submit(() -> {
+					ThreadLocalRandom azar = ThreadLocalRandom.current();
+					long antes, después = System.nanoTime();
+					while (después < fin) {
+						antes = después;
+						try {
+							bytes.addAndGet(consultar(cliente, rutas.get(azar.nextInt(rutas.size()))).length());
+							peticiones.incrementAndGet();
+						} catch (IOException e) {
+							errores.incrementAndGet();
+						} catch (InterruptedException e) {
+							return;
+						}
+						después = System.nanoTime();
+						if (númMuestras[númCliente] < MÁXIMO_MUESTRAS) {
+							latencias[númCliente][númMuestras[númCliente]++] = después - antes;
+						}
+					}
+				});
+			}
+			hilos.shutdown();
+			hilos.awaitTermination(segundos + 60L, TimeUnit.SECONDS);
+			duración = System.nanoTime() - inicio;
+		} catch (IOException | InterruptedException e) {
+			System.err.printf("Error en la prueba: %s%n", e.getLocalizedMessage());
+			return;
+		}
+
+		for (int n : númMuestras) {
+			total += n;
+		}
+		todas = new long[(int) total];
+		total = 0;
+		for (int i = 0; i < númClientes; i++) {
+			System.arraycopy(latencias[i], 0, todas, (int) total, númMuestras[i]);
+			total += númMuestras[i];
+		}
+		Arrays.sort(todas);
+
+		System.out.printf("%d peticiones, %d errores, %.1f MB en %.1f s%n", peticiones.get(), errores.get(),
+				bytes.get() / 1e6, duración / 1e9);
+		System.out.printf("%.0f peticiones/s%n", peticiones.get() * 1e9 / duración);
+		if (todas.length > 0) {
+			System.out.printf("Latencia: p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, máx. %.2f ms%n",
+					todas[todas.length / 2] / 1e6, todas[(int) (todas.length * 0.95)] / 1e6,
+					todas[(int) (todas.length * 0.99)] / 1e6, todas[todas.length - 1] / 1e6);
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+/**
+ * Comprobación y comparación de los motores de {@link AlmacenInventario
+ * almacenamiento}: {@link AccesoBD} sobre SQLite y {@link AlmacenMemoria}.
+ * <div>Primero se somete cada motor a la misma secuencia de operaciones y se
+ * comprueba que los resultados coinciden con los esperados –cualquier motor
+ * nuevo debe superarla–; después se mide el tiempo por operación de cada uno
+ * sobre un inventario sintético. Ejemplo:
+ *
+ * <pre>
+ * java … ComparativaAlmacenes 50 500
+ * </pre>
+ *
+ * </div>
+ *
+ * @see GeneradorInventario
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ComparativaAlmacenes {
+	/** Número de repeticiones de cada consulta en la medición. */
+	private static final int REPETICIONES = 2_000;
+
+	/** Textos buscados en la medición. */
+	private static final String[] BÚSQUEDAS = { "ana", "gar", "jose mar", "lopez" };
+
+	/** Clase con método principal únicamente. */
+	private ComparativaAlmacenes() {
+	}
+
+	/**
+	 * Genera una incidencia si no se cumple una condición.
+	 *
+	 * @param condición la condición
+	 * @param mensaje   la descripción de lo esperado
+	 * @param obtenido  el valor obtenido
+	 */
+	private static void comprobar(boolean condición, String mensaje, Object obtenido) {
+		if (!condición) {
+			throw new IllegalStateException(String.format("%s; obtenido: %s", mensaje, obtenido));
+		}
+	}
+
+	/**
+	 * Extrae los códigos de un resultado de búsqueda, ordenados.
+	 *
+	 * @param resultados los puestos encontrados
+	 * @return sus códigos
+	 */
+	private static TreeSet<String> códigos(List<Map.Entry<String, PuestoUsuario>> resultados) {
+		TreeSet<String> códigos;
+
+		códigos = new TreeSet<>();
+		for (Map.Entry<String, PuestoUsuario> entrada : resultados) {
+			códigos.add(entrada.getKey());
+		}
+		return códigos;
+	}
+
+	/**
+	 * Somete un almacenamiento a la secuencia de operaciones común y comprueba
+	 * los resultados. Se vacía al principio y al final.
+	 *
+	 * @param almacén el almacenamiento, abierto
+	 * @throws AccesoBDException     si se produce alguna incidencia en el
+	 *                               almacenamiento
+	 * @throws InventarioException   si no se puede preparar el aula de prueba
+	 * @throws IllegalStateException si algún resultado no es el esperado
+	 */
+	public static void verificar(AlmacenInventario almacén) throws AccesoBDException, InventarioException {
+		PuestoUsuario josé, josefa, ana, luis, carmen;
+		InventarioAula aula;
+		int n;
+
+		josé = new PuestoUsuario("ED09012096P382", "José", "García Pérez");
+		josefa = new PuestoUsuario("ED09012096P383", "Josefa", "Garrido Núñez");
+		ana = new PuestoUsuario("ED09012096P384", "Ana", "López-Martín");
+		luis = new PuestoUsuario("PC-LAB-01", "Luis", "Ortega Gil");
+		carmen = new PuestoUsuario("ED09012096P385", "Carmen", "Ruiz Soto");
+
+		almacén.vaciar();
+		comprobar(almacén.contar() == 0, "Almacén vacío", almacén.contar());
+
+		n = almacén.insertar("IC01", josé);
+		comprobar(n == 1, "Inserción de un puesto", n);
+		comprobar(josé.equals(almacén.leerPuesto(" ic01 ")), "Lectura por código normalizado",
+				almacén.leerPuesto(" ic01 "));
+		comprobar(almacén.leerPuesto("IC99") == null, "Lectura de un puesto inexistente", almacén.leerPuesto("IC99"));
+		n = almacén.insertar("IC01", josefa);
+		comprobar(n == 0, "Inserción de un código duplicado", n);
+
+		n = almacén.insertarLote(List.of(Map.entry("IC02", josefa), Map.entry("IC01", ana), Map.entry("IC03", ana),
+				Map.entry("IC03", luis)));
+		comprobar(n == 2, "Lote con duplicados almacenados y repetidos", n);
+		comprobar(ana.equals(almacén.leerPuesto("IC03")), "Primer puesto repetido de un lote",
+				almacén.leerPuesto("IC03"));
+
+		aula = InventarioAula.of("LB");
+		aula.añadir("LB1", luis);
+		aula.añadir("LB2", ana);
+		n = almacén.escribir(aula);
+		comprobar(n == 2, "Escritura de un aula", n);
+		aula = InventarioAula.of("IC2");
+		aula.añadir("IC21", carmen);
+		n = almacén.escribir(aula);
+		comprobar(n == 1, "Escritura de un aula que prolonga otro prefijo", n);
+		comprobar(almacén.contar() == 6, "Recuento", almacén.contar());
+
+		aula = almacén.leer("ic");
+		comprobar(aula.generarListaCódigos().equals(new TreeSet<>(List.of("IC01", "IC02", "IC03"))),
+				"Lectura de un aula", aula.generarListaCódigos());
+		aula = almacén.leer("IC2");
+		comprobar(aula.generarListaCódigos().equals(new TreeSet<>(List.of("IC21"))),
+				"Lectura de un aula que prolonga otro prefijo", aula.generarListaCódigos());
+		comprobar(almacén.leer("XY").estáVacío(), "Lectura de un aula vacía", almacén.leer("XY"));
+
+		comprobar(códigos(almacén.buscar("jose gar", 10)).equals(new TreeSet<>(List.of("IC01", "IC02"))),
+				"Búsqueda por comienzo de palabras sin tildes", almacén.buscar("jose gar", 10));
+		comprobar(códigos(almacén.buscar("NÚÑEZ", 10)).equals(new TreeSet<>(List.of("IC02"))),
+				"Búsqueda sin distinguir mayúsculas", almacén.buscar("NÚÑEZ", 10));
+		comprobar(códigos(almacén.buscar("martin", 10)).equals(new TreeSet<>(List.of("IC03", "LB2"))),
+				"Búsqueda en apellidos compuestos", almacén.buscar("martin", 10));
+		comprobar(códigos(almacén.buscar("lab", 10)).equals(new TreeSet<>(List.of("LB1"))),
+				"Búsqueda por equipo", almacén.buscar("lab", 10));
+		comprobar(almacén.buscar("ana", 1).size() == 1, "Límite de resultados", almacén.buscar("ana", 1));
+		comprobar(almacén.buscar("  ", 10).isEmpty(), "Búsqueda sin palabras", almacén.buscar("  ", 10));
+		comprobar(almacén.buscar("zzz", 10).isEmpty(), "Búsqueda sin resultados", almacén.buscar("zzz", 10));
+
+		n = almacén.vaciar();
+		comprobar(n == 6, "Vaciado", n);
+		comprobar(almacén.contar() == 0 && almacén.leer("IC").estáVacío(), "Almacén vaciado", almacén.contar());
+		n = almacén.insertar("IC01", josé);
+		comprobar(n == 1, "Inserción tras vaciar", n);
+		almacén.vaciar();
+	}
+
+	/**
+	 * Mide un almacenamiento: carga del inventario sintético por lotes, lecturas
+	 * de aulas completas, lecturas de puestos sueltos y búsquedas.
+	 *
+	 * @param nombre    el nombre del motor, para el informe
+	 * @param almacén   el almacenamiento, vacío
+	 * @param generador el generador del inventario
+	 * @param númAulas  el número de aulas generadas
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	private static void medir(String nombre, AlmacenInventario almacén, GeneradorInventario generador, int númAulas)
+			throws AccesoBDException {
+		GeneradorInventario.Resultado carga;
+		List<String> códigos;
+		SplittableRandom azar;
+		long inicio, control = 0;
+		double leer, leerPuesto, buscar;
+
+		carga = generador.poblar(almacén);
+		códigos = new ArrayList<>();
+		for (int aula = 0; aula < númAulas; aula++) {
+			códigos.addAll(almacén.leer(generador.generarPrefijo(aula)).generarListaCódigos());
+		}
+
+		for (int vuelta = 0; vuelta < 2; vuelta++) { // La primera vuelta sirve de calentamiento
+			azar = new SplittableRandom(vuelta);
+
+			inicio = System.nanoTime();
+			for (int i = 0; i < REPETICIONES / 10; i++) {
+				control += almacén.leer(generador.generarPrefijo(azar.nextInt(númAulas))).getNúmElementos();
+			}
+			leer = (System.nanoTime() - inicio) / 1e3 / (REPETICIONES / 10);
+
+			inicio = System.nanoTime();
+			for (int i = 0; i < REPETICIONES; i++) {
+				control += almacén.leerPuesto(códigos.get(azar.nextInt(códigos.size()))).nombre().length();
+			}
+			leerPuesto = (System.nanoTime() - inicio) / 1e3 / REPETICIONES;
+
+			inicio = System.nanoTime();
+			for (int i = 0; i < REPETICIONES / 10; i++) {
+				control += almacén.buscar(BÚSQUEDAS[i % BÚSQUEDAS.length], 20).size();
+			}
+			buscar = (System.nanoTime() - inicio) / 1e3 / (REPETICIONES / 10);
+
+			if (vuelta > 0) {
+				System.out.printf(
+						"%-8s carga %8.0f puestos/s · leer %9.1f µs · leerPuesto %7.2f µs · buscar %8.1f µs (control: %d)%n",
+						nombre, carga.líneas() * 1e3 / Math.max(carga.milisegundos(), 1), leer, leerPuesto, buscar,
+						control);
+			}
+		}
+	}
+
+	/**
+	 * Verifica ambos motores y compara su rendimiento.
+	 *
+	 * @param argumentos opciones de ejecución: número de aulas (20) y puestos por
+	 *                   aula (500)
+	 */
+	public static void main(String[] argumentos) {
+		GeneradorInventario generador;
+		int númAulas, puestosAula;
+		Path directorio = null;
+
+		númAulas = argumentos.length > 0 ? Integer.parseInt(argumentos[0]) : 20;
+		puestosAula = argumentos.length > 1 ? Integer.parseInt(argumentos[1]) : 500;
+		generador = new GeneradorInventario(númAulas, puestosAula, 1, 0);
+
+		try {
+			directorio = Files.createTempDirectory("almacenes");
+			try (AccesoBD accesoBD = new AccesoBD(
+					AccesoBD.generarConfiguración(directorio.resolve("comparativa.db").toString()));
+					AlmacenMemoria memoria = new AlmacenMemoria(directorio.resolve("comparativa.bin"))) {
+				verificar(accesoBD);
+				System.out.println("SQLite: comprobación correcta");
+				verificar(memoria);
+				System.out.println("Memoria: comprobación correcta");
+
+				medir("SQLite", accesoBD, generador, númAulas);
+				medir("Memoria", memoria, generador, númAulas);
+			}
+			try (AlmacenMemoria recuperada = new AlmacenMemoria(directorio.resolve("comparativa.bin"))) {
+				comprobar(recuperada.contar() == númAulas * puestosAula, "Instantánea recuperada", recuperada.contar());
+				System.out.println("Memoria: instantánea recuperada");
+				recuperada.vaciar();
+			}
+		} catch (IOException | AccesoBDException | InventarioException | IllegalStateException e) {
+			System.err.printf("Error en la comparativa: %s%n", e.getLocalizedMessage());
+		} finally {
+			if (directorio != null) {
+				borrar(directorio);
+			}
+		}
+	}
+
+	/**
+	 * Elimina el directorio temporal de la comparativa con su contenido.
+	 *
+	 * @param directorio el directorio
+	 */
+	private static void borrar(Path directorio) {
+		try (var archivos = Files.list(directorio)) {
+			for (Path archivo : archivos.toList()) {
+				Files.deleteIfExists(archivo);
+			}
+			Files.deleteIfExists(directorio);
+		} catch (IOException e) {
+			System.err.printf("No se ha podido borrar «%s»: %s%n", directorio, e.getLocalizedMessage());
+		}
+	}
+}
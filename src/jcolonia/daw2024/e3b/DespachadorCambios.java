@@ -0,0 +1,145 @@
+package jcolonia.daw2024.e3b;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traslado de los {@link CambioInventario cambios del inventario} al hilo de
+ * eventos de Swing, agrupados en lotes. Se registra como observador de un
+ * {@link InventarioAula} o de un {@link AccesoBD} y puede recibir avisos desde
+ * cualquier hilo.
+ * <div>Los cambios pendientes se acumulan por código de puesto y se combinan
+ * entre sí –un puesto añadido y retirado antes de llegar a mostrarse
+ * desaparece–. Con el primer cambio pendiente se programa una única entrega en
+ * el hilo de eventos, que recoge todo lo acumulado hasta ese momento: una
+ * ráfaga de miles de cambios llega a la vista en uno o pocos lotes.</div>
+ *
+ * @see ModeloTablaPuestos
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class DespachadorCambios implements CambioInventario.Observador {
+	/**
+	 * Destinatario de los lotes de cambios, en el hilo de eventos de Swing.
+	 */
+	@FunctionalInterface
+	public interface Receptor {
+		/**
+		 * Aplica un lote de cambios. Si incluye una {@link CambioInventario#RECARGA
+		 * recarga}, es siempre el primero.
+		 *
+		 * @param cambios los cambios combinados, en el orden en que se produjeron
+		 */
+		void aplicar(List<CambioInventario> cambios);
+	}
+
+	/** El destinatario de los lotes. */
+	private final Receptor receptor;
+
+	/** Cerrojo que protege los cambios pendientes. */
+	private final Object cerrojo;
+
+	/** Los cambios pendientes de entregar, por código de puesto. */
+	private Map<String, CambioInventario> pendientes;
+
+	/** Si hay una recarga completa pendiente de entregar. */
+	private boolean recargaPendiente;
+
+	/** Si ya hay una entrega programada en el hilo de eventos. */
+	private boolean entregaProgramada;
+
+	/** Número de cambios recibidos. */
+	private long recibidos;
+
+	/** Número de cambios entregados tras combinarlos. */
+	private long entregados;
+
+	/** Número de lotes entregados. */
+	private long lotes;
+
+	/**
+	 * Prepara el despachador.
+	 *
+	 * @param receptor el destinatario de los lotes
+	 */
+	public DespachadorCambios(Receptor receptor) {
+		this.receptor = receptor;
+		cerrojo = new Object();
+		pendientes = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Acumula un cambio y, si no lo estaba ya, programa su entrega. Una recarga
+	 * descarta los cambios pendientes anteriores.
+	 *
+	 * @param cambio el cambio realizado
+	 */
+	@Override
+	public void notificar(CambioInventario cambio) {
+		boolean programar;
+
+		synchronized (cerrojo) {
+			recibidos++;
+			if (cambio.tipo() == CambioInventario.Tipo.RECARGADO) {
+				pendientes.clear();
+				recargaPendiente = true;
+			} else {
+				pendientes.merge(cambio.código(), cambio, CambioInventario::combinar);
+			}
+			programar = !entregaProgramada;
+			entregaProgramada = true;
+		}
+		if (programar) {
+			EventQueue.invokeLater(this::entregar);
+		}
+	}
+
+	/**
+	 * Recoge los cambios acumulados y los entrega al receptor. Se ejecuta en el
+	 * hilo de eventos; el receptor se invoca fuera del cerrojo, de modo que
+	 * durante la entrega se siguen acumulando cambios para el lote siguiente.
+	 */
+	private void entregar() {
+		List<CambioInventario> lote;
+
+		synchronized (cerrojo) {
+			lote = new ArrayList<>(pendientes.size() + 1);
+			if (recargaPendiente) {
+				lote.add(CambioInventario.RECARGA);
+			}
+			lote.addAll(pendientes.values());
+			pendientes = new LinkedHashMap<>();
+			recargaPendiente = false;
+			entregaProgramada = false;
+			if (!lote.isEmpty()) {
+				entregados += lote.size();
+				lotes++;
+			}
+		}
+		if (!lote.isEmpty()) {
+			receptor.aplicar(lote);
+		}
+	}
+
+	/**
+	 * Resume la actividad del despachador.<div>Ejemplo:
+	 *
+	 * <pre>
+	 * 10000 cambios recibidos, 9412 entregados en 3 lotes
+	 * </pre>
+	 *
+	 * </div>
+	 *
+	 * @return el texto correspondiente
+	 */
+	@Override
+	public String toString() {
+		synchronized (cerrojo) {
+			return String.format("%d cambios recibidos, %d entregados en %d lotes", recibidos, entregados, lotes);
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package jcolonia.daw2024.e3b;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos propios de JDK Flight Recorder para las fases de una importación:
+ * lectura del archivo, despiece y validación de las líneas, y grabación en la
+ * base de datos. En una grabación JFR aparecen en la categoría «Inventario»,
+ * junto a los eventos de recolección de basura y de hilos, y permiten ver en
+ * qué fase se va el tiempo de una importación lenta.
+ * <div>Con la grabación detenida su coste es prácticamente nulo: los campos solo
+ * se rellenan cuando {@link Event#shouldCommit()} lo indica. Ejemplo de
+ * grabación:
+ *
+ * <pre>
+ * java -XX:StartFlightRecording:filename=importación.jfr …
+ * jfr print --categories Inventario importación.jfr
+ * </pre>
+ *
+ * </div>
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public final class EventosImportacion {
+	/** Clase contenedora: no se generan objetos. */
+	private EventosImportacion() {
+	}
+
+	/** Lectura de un archivo o de un bloque de líneas de un archivo. */
+	@Name("jcolonia.daw2024.e3b.LecturaArchivo")
+	@Label("Lectura de archivo")
+	@Description("Lectura de líneas de un archivo de exportación")
+	@Category({ "Inventario", "Importación" })
+	@StackTrace(false)
+	public static class Lectura extends Event {
+		/** El nombre o ruta del archivo. */
+		@Label("Archivo")
+		public String archivo;
+
+		/** El número de líneas leídas. */
+		@Label("Líneas")
+		public int líneas;
+
+		/** El número de bytes de texto leídos, ya descomprimidos. */
+		@Label("Bytes")
+		@DataAmount
+		public long bytes;
+
+		/** Prepara el evento, sin iniciarlo. */
+		public Lectura() {
+		}
+	}
+
+	/** Despiece y validación de un bloque de líneas. */
+	@Name("jcolonia.daw2024.e3b.Validacion")
+	@Label("Validación")
+	@Description("Despiece de líneas y validación de puestos en un inventario de aula")
+	@Category({ "Inventario", "Importación" })
+	@StackTrace(false)
+	public static class Validación extends Event {
+		/** El prefijo del aula. */
+		@Label("Prefijo")
+		public String prefijo;
+
+		/** El número de líneas procesadas. */
+		@Label("Líneas")
+		public int líneas;
+
+		/** El número de puestos aceptados. */
+		@Label("Aceptados")
+		public int aceptados;
+
+		/** El número de líneas descartadas. */
+		@Label("Rechazados")
+		public int rechazados;
+
+		/** Prepara el evento, sin iniciarlo. */
+		public Validación() {
+		}
+	}
+
+	/** Grabación de puestos en la base de datos. */
+	@Name("jcolonia.daw2024.e3b.GrabacionBD")
+	@Label("Grabación en base de datos")
+	@Description("Inserción de puestos en SQLite")
+	@Category({ "Inventario", "Importación" })
+	@StackTrace(false)
+	public static class Grabación extends Event {
+		/** La operación: inserción por lotes o escritura de un aula. */
+		@Label("Operación")
+		public String operación;
+
+		/** El número de puestos enviados. */
+		@Label("Puestos")
+		public int puestos;
+
+		/** El número de filas grabadas. */
+		@Label("Filas")
+		public int filas;
+
+		/** Prepara el evento, sin iniciarlo. */
+		public Grabación() {
+		}
+	}
+}
@@ -0,0 +1,390 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+/**
+ * Exportación de toda la base de datos a archivos de texto, uno por aula, en el
+ * formato de {@link InventarioAula#generarListadoCSV()}. Cada puesto va al
+ * archivo del aula en la que está almacenado, sin deducirla de su código. Sirve
+ * como copia de seguridad que después se recupera con
+ * {@link ImportadorConcurrente}, siempre que el prefijo de cada aula sea válido
+ * para {@link InventarioAula#of(String)}; se avisa de los que no lo son.
+ * <div>La tabla de puestos se reparte en tramos de aulas consecutivas con un
+ * número de puestos parecido, a partir del {@link AccesoBD#resumen() resumen
+ * por aulas}. Cada tramo se recorre en un hilo propio, con su propia conexión
+ * de lectura, en una sola consulta ordenada por código; los puestos se escriben
+ * en el archivo de su aula a medida que se leen, sin reunirlos en memoria. Los
+ * archivos pueden comprimirse indicando la extensión correspondiente –véase
+ * {@link AccesoArchivo}–.</div>
+ *
+ * @see AccesoBD#recorrerTramo(String, String, AccesoBD.ReceptorPuestosAula)
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ExportadorParalelo {
+	/** Número de tramos por hilo, para repartir mejor la carga. */
+	private static final int TRAMOS_POR_HILO = 2;
+
+	/**
+	 * Resumen de una exportación.
+	 *
+	 * @param aulas        el número de archivos de aula escritos
+	 * @param puestos      el número de puestos exportados
+	 * @param bytes        el tamaño total de los archivos
+	 * @param milisegundos la duración total
+	 */
+	public record Resultado(int aulas, long puestos, long bytes, long milisegundos) {
+		/**
+		 * Resume la exportación con su rendimiento.<div>Ejemplo:
+		 *
+		 * <pre>
+		 * 100 aulas, 100000 puestos, 4.9 MB en 812 ms: 123153 puestos/s, 6.0 MB/s
+		 * </pre>
+		 *
+		 * </div>
+		 *
+		 * @return el texto correspondiente
+		 */
+		@Override
+		public String toString() {
+			double segundos;
+
+			segundos = Math.max(milisegundos, 1) / 1e3;
+			return String.format("%d aulas, %d puestos, %.1f MB en %d ms: %.0f puestos/s, %.1f MB/s", aulas, puestos,
+					bytes / 1e6, milisegundos, puestos / segundos, bytes / 1e6 / segundos);
+		}
+	}
+
+	/**
+	 * Tramo de aulas consecutivas, por orden de prefijo.
+	 *
+	 * @param desde   el prefijo de la primera aula
+	 * @param hasta   el prefijo de la primera aula del tramo siguiente;
+	 *                <code>null</code> en el último
+	 * @param puestos el número de puestos previsto
+	 */
+	private record Tramo(String desde, String hasta, long puestos) {
+	}
+
+	/**
+	 * Escritura de los puestos de un tramo: abre el archivo de cada aula con su
+	 * primer puesto y los cierra todos al terminar el tramo. Normalmente los
+	 * puestos de cada aula llegan seguidos y solo se escribe en un archivo cada
+	 * vez; pero un prefijo que prolonga otro –«IC» e «IC2»– puede intercalar sus
+	 * puestos con los de aquel.
+	 */
+	private class EscrituraTramo implements AccesoBD.ReceptorPuestosAula {
+		/** El directorio de los archivos. */
+		private final Path directorio;
+
+		/** Las salidas abiertas, por prefijo de aula. */
+		private final Map<String, BufferedWriter> salidas;
+
+		/** El prefijo del último puesto recibido; <code>null</code> al principio. */
+		private String prefijo;
+
+		/** La salida del último puesto recibido. */
+		private BufferedWriter salida;
+
+		/** Número de archivos completados. */
+		private int aulas;
+
+		/** Número de puestos escritos. */
+		private long puestos;
+
+		/** Tamaño total de los archivos completados. */
+		private long bytes;
+
+		/**
+		 * Prepara la escritura.
+		 *
+		 * @param directorio el directorio de los archivos
+		 */
+		private EscrituraTramo(Path directorio) {
+			this.directorio = directorio;
+			salidas = new HashMap<>();
+		}
+
+		@Override
+		public void recibir(String prefijoAula, String código, PuestoUsuario puesto) throws IOException {
+			if (!prefijoAula.equals(prefijo)) {
+				prefijo = prefijoAula;
+				salida = salidas.get(prefijo);
+				if (salida == null) {
+					comprobarPrefijo(prefijo);
+					salida = new AccesoArchivo(obtenerArchivo(prefijo).toString(), nivelCompresión).abrirEscritura();
+					salidas.put(prefijo, salida);
+					salida.write(prefijo);
+					salida.newLine();
+				}
+			}
+			InventarioAula.escribirLíneaCSV(salida, código, puesto);
+			puestos++;
+		}
+
+		/**
+		 * Avisa si un prefijo almacenado no se podrá recuperar al importar el
+		 * archivo del aula: {@link InventarioAula#of(String)} lo rechaza.
+		 *
+		 * @param prefijoAula el prefijo del aula
+		 */
+		private void comprobarPrefijo(String prefijoAula) {
+			try {
+				InventarioAula.of(prefijoAula);
+			} catch (InventarioException e) {
+				System.err.printf("Aula «%s» exportada, pero no se podrá importar: %s%n", prefijoAula,
+						e.getLocalizedMessage());
+			}
+		}
+
+		/**
+		 * Obtiene la ruta del archivo de un aula.
+		 *
+		 * @param prefijoAula el prefijo del aula
+		 * @return la ruta correspondiente
+		 */
+		private Path obtenerArchivo(String prefijoAula) {
+			return directorio.resolve("Inventario " + prefijoAula + ".txt" + extensión);
+		}
+
+		/**
+		 * Cierra los archivos abiertos y anota su tamaño. Intenta cerrarlos todos
+		 * aunque falle alguno.
+		 *
+		 * @throws IOException si no se puede completar algún archivo
+		 */
+		private void cerrar() throws IOException {
+			IOException error = null;
+
+			for (Map.Entry<String, BufferedWriter> entrada : salidas.entrySet()) {
+				try {
+					entrada.getValue().close();
+					aulas++;
+					bytes += Files.size(obtenerArchivo(entrada.getKey()));
+				} catch (IOException e) {
+					if (error == null) {
+						error = e;
+					} else {
+						error.addSuppressed(e);
+					}
+				}
+			}
+			salidas.clear();
+			salida = null;
+			if (error != null) {
+				throw error;
+			}
+		}
+	}
+
+	/** La configuración de acceso a la base de datos. */
+	private final Properties configuración;
+
+	/** El número de hilos –y de conexiones– de lectura. */
+	private final int númHilos;
+
+	/** La extensión añadida a los archivos: vacía, «.gz» o «.zz». */
+	private final String extensión;
+
+	/** El nivel de compresión, si se comprime. */
+	private final int nivelCompresión;
+
+	/**
+	 * Prepara una exportación sin compresión, con tantos hilos como
+	 * procesadores.
+	 *
+	 * @param configuración la configuración de acceso a la base de datos
+	 */
+	public ExportadorParalelo(Properties configuración) {
+		this(configuración, Runtime.getRuntime().availableProcessors(), AccesoArchivo.Compresión.NINGUNA,
+				Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Prepara una exportación.
+	 *
+	 * @param configuración   la configuración de acceso a la base de datos
+	 * @param númHilos        el número de hilos –y de conexiones– de lectura
+	 * @param compresión      el formato de los archivos
+	 * @param nivelCompresión el nivel de compresión, si se comprime
+	 */
+	public ExportadorParalelo(Properties configuración, int númHilos, AccesoArchivo.Compresión compresión,
+			int nivelCompresión) {
+		this.configuración = configuración;
+		this.númHilos = Math.max(númHilos, 1);
+		this.extensión = compresión.getExtensión();
+		this.nivelCompresión = nivelCompresión;
+	}
+
+	/**
+	 * Comprueba si un tramo de códigos puede cerrarse justo antes de un prefijo
+	 * sin separar los puestos de ninguna de sus aulas. Los códigos de cada aula
+	 * empiezan por su prefijo; así que no es posible si el prefijo siguiente
+	 * prolonga el de alguna de ellas –«IC» e «IC2»–: sus códigos podrían quedar a
+	 * ambos lados del corte, y dos hilos escribirían el mismo archivo.
+	 *
+	 * @param prefijosTramo los prefijos de las aulas del tramo
+	 * @param siguiente     el prefijo de la primera aula del tramo siguiente
+	 * @return si el corte es posible
+	 */
+	private static boolean esCorteVálido(List<String> prefijosTramo, String siguiente) {
+		boolean válido = true;
+
+		for (String prefijoAula : prefijosTramo) {
+			if (siguiente.startsWith(prefijoAula)) {
+				válido = false;
+			}
+		}
+		return válido;
+	}
+
+	/**
+	 * Reparte las aulas en tramos consecutivos con un número de puestos parecido.
+	 *
+	 * @param resúmenes las aulas, ordenadas por prefijo
+	 * @param númTramos el número de tramos deseado
+	 * @return los tramos; como mucho uno por aula
+	 */
+	private static List<Tramo> repartir(List<AccesoBD.ResumenAula> resúmenes, int númTramos) {
+		List<Tramo> tramos;
+		List<String> prefijosTramo;
+		long total = 0, objetivo, acumulado = 0;
+		String siguiente;
+
+		tramos = new ArrayList<>();
+		prefijosTramo = new ArrayList<>();
+		for (AccesoBD.ResumenAula resumen : resúmenes) {
+			total += resumen.puestos();
+		}
+		objetivo = Math.max(total / númTramos, 1);
+
+		for (int i = 0; i < resúmenes.size(); i++) {
+			prefijosTramo.add(resúmenes.get(i).prefijo());
+			acumulado += resúmenes.get(i).puestos();
+			siguiente = i + 1 < resúmenes.size() ? resúmenes.get(i + 1).prefijo() : null;
+			if (siguiente == null || acumulado >= objetivo && esCorteVálido(prefijosTramo, siguiente)) {
+				tramos.add(new Tramo(prefijosTramo.get(0), siguiente, acumulado));
+				prefijosTramo.clear();
+				acumulado = 0;
+			}
+		}
+		return tramos;
+	}
+
+	/**
+	 * Exporta todas las aulas de la base de datos, un archivo por aula.
+	 *
+	 * @param directorio el directorio de destino; se crea si no existe
+	 * @return el resumen de la exportación
+	 * @throws AccesoBDException si se produce alguna incidencia en la base de
+	 *                           datos
+	 * @throws IOException       si no se puede escribir algún archivo
+	 */
+	public Resultado exportar(Path directorio) throws AccesoBDException, IOException {
+		List<AccesoBD.ResumenAula> resúmenes;
+		List<Future<EscrituraTramo>> pendientes;
+		EscrituraTramo escritura;
+		ExecutorService hilos;
+		int aulas = 0;
+		long inicio, puestos = 0, bytes = 0;
+
+		inicio = System.nanoTime();
+		Files.createDirectories(directorio);
+		try (AccesoBD accesoBD = new AccesoBD(configuración)) {
+			resúmenes = accesoBD.resumen();
+		}
+
+		hilos = Executors.newFixedThreadPool(númHilos);
+		try {
+			pendientes = new ArrayList<>();
+			for (Tramo tramo : repartir(resúmenes, númHilos * TRAMOS_POR_HILO)) {
+				pendientes.add(hilos.submit(() -> exportarTramo(tramo, directorio)));
+			}
+			for (Future<EscrituraTramo> pendiente : pendientes) {
+				escritura = pendiente.get();
+				aulas += escritura.aulas;
+				puestos += escritura.puestos;
+				bytes += escritura.bytes;
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof AccesoBDException causa) {
+				throw causa;
+			}
+			if (e.getCause() instanceof IOException causa) {
+				throw causa;
+			}
+			throw new AccesoBDException(String.format("Error en la exportación: %s", e.getCause()), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AccesoBDException("Exportación interrumpida", e);
+		} finally {
+			hilos.shutdownNow();
+		}
+
+		return new Resultado(aulas, puestos, bytes, (System.nanoTime() - inicio) / 1_000_000);
+	}
+
+	/**
+	 * Exporta las aulas de un tramo con una conexión propia.
+	 *
+	 * @param tramo      el tramo
+	 * @param directorio el directorio de destino
+	 * @return la escritura completada, con sus cifras
+	 * @throws AccesoBDException si se produce alguna incidencia en la base de
+	 *                           datos
+	 * @throws IOException       si no se puede escribir algún archivo
+	 */
+	private EscrituraTramo exportarTramo(Tramo tramo, Path directorio) throws AccesoBDException, IOException {
+		EscrituraTramo escritura;
+
+		escritura = new EscrituraTramo(directorio);
+		try (AccesoBD accesoBD = new AccesoBD(configuración)) {
+			accesoBD.recorrerTramo(tramo.desde(), tramo.hasta(), escritura);
+		} finally {
+			escritura.cerrar();
+		}
+		return escritura;
+	}
+
+	/**
+	 * Exporta una base de datos completa.
+	 *
+	 * @param argumentos opciones de ejecución: archivo de base de datos,
+	 *                   directorio de destino, número de hilos –tantos como
+	 *                   procesadores si no se indica– y formato de compresión
+	 *                   –«NINGUNA», «GZIP» o «DEFLATE»–
+	 */
+	public static void main(String[] argumentos) {
+		ExportadorParalelo exportador;
+
+		if (argumentos.length < 2) {
+			System.err.println("Uso: ExportadorParalelo <archivo.db> <directorio> [hilos] [NINGUNA|GZIP|DEFLATE]");
+		} else {
+			exportador = new ExportadorParalelo(AccesoBD.generarConfiguración(argumentos[0]),
+					argumentos.length > 2 ? Integer.parseInt(argumentos[2])
+							: Runtime.getRuntime().availableProcessors(),
+					argumentos.length > 3 ? AccesoArchivo.Compresión.valueOf(argumentos[3])
+							: AccesoArchivo.Compresión.NINGUNA,
+					Deflater.BEST_SPEED);
+			try {
+				System.out.println(exportador.exportar(Path.of(argumentos[1])));
+			} catch (AccesoBDException | IOException e) {
+				System.err.printf("Error en la exportación: %s%n", e.getLocalizedMessage());
+			}
+		}
+	}
+}
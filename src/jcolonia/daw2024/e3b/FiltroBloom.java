@@ -0,0 +1,197 @@
+package jcolonia.daw2024.e3b;
+
+/**
+ * Filtro de Bloom para textos: conjunto probabilístico y compacto que responde
+ * si un texto «puede estar» presente –con una pequeña tasa de falsos
+ * positivos– o si «seguro que no está». Se emplea para evitar consultas a la
+ * base de datos al detectar códigos de puesto duplicados.
+ * <div>Cada texto se proyecta sobre <var>k</var> bits de una tabla de
+ * <var>m</var> bits mediante doble dispersión a partir de un resumen FNV-1a de
+ * 64 bits.</div>
+ *
+ * @see AccesoBD#activarControlDuplicados()
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class FiltroBloom {
+	/** Base del resumen FNV-1a de 64 bits. */
+	private static final long FNV_BASE = 0xcbf29ce484222325L;
+	/** Primo del resumen FNV-1a de 64 bits. */
+	private static final long FNV_PRIMO = 0x100000001b3L;
+
+	/** La tabla de bits. */
+	private final long[] bits;
+	/** El número de bits de la tabla. */
+	private final int númBits;
+	/** El número de bits marcados por cada texto. */
+	private final int númFunciones;
+	/** El número de elementos previstos al dimensionar la tabla. */
+	private final int capacidad;
+
+	/** El número de textos incorporados. */
+	private long númElementos;
+	/** El número de consultas realizadas. */
+	private long númConsultas;
+	/** El número de consultas con respuesta positiva. */
+	private long númPositivos;
+	/** El número de respuestas positivas que resultaron ser falsas. */
+	private long númFalsosPositivos;
+
+	/**
+	 * Dimensiona el filtro para un número de elementos y una tasa de falsos
+	 * positivos objetivo.
+	 *
+	 * @param capacidad el número de elementos previstos
+	 * @param tasaFalsosPositivos la tasa de falsos positivos deseada, entre 0 y 1
+	 */
+	public FiltroBloom(int capacidad, double tasaFalsosPositivos) {
+		double m;
+
+		this.capacidad = Math.max(1, capacidad);
+		tasaFalsosPositivos = Math.min(Math.max(tasaFalsosPositivos, 1e-9), 0.5);
+		m = -this.capacidad * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2));
+		m = Math.min(Math.max(m, 64), Integer.MAX_VALUE - 63);
+
+		bits = new long[(int) ((m + 63) / 64)];
+		númBits = bits.length * 64;
+		númFunciones = (int) Math.max(1, Math.round((double) númBits / this.capacidad * Math.log(2)));
+	}
+
+	/**
+	 * Calcula el resumen FNV-1a de 64 bits de un texto.
+	 *
+	 * @param texto el texto
+	 * @return el resumen
+	 */
+	private static long resumir(String texto) {
+		long resumen = FNV_BASE;
+
+		for (int i = 0; i < texto.length(); i++) {
+			resumen ^= texto.charAt(i);
+			resumen *= FNV_PRIMO;
+		}
+		return resumen;
+	}
+
+	/**
+	 * Incorpora un texto al filtro.
+	 *
+	 * @param texto el texto a incorporar
+	 */
+	public void añadir(String texto) {
+		long resumen;
+		int h1, h2, posición;
+
+		resumen = resumir(texto);
+		h1 = (int) resumen;
+		h2 = (int) (resumen >>> 32) | 1;
+		for (int i = 0; i < númFunciones; i++) {
+			posición = Math.floorMod(h1 + i * h2, númBits);
+			bits[posición >>> 6] |= 1L << posición;
+		}
+		númElementos++;
+	}
+
+	/**
+	 * Consulta si un texto puede estar presente.
+	 *
+	 * @param texto el texto a consultar
+	 * @return <code>false</code> si seguro que no está; <code>true</code> si puede
+	 *         estar
+	 */
+	public boolean puedeContener(String texto) {
+		long resumen;
+		int h1, h2, posición;
+		boolean presente = true;
+
+		resumen = resumir(texto);
+		h1 = (int) resumen;
+		h2 = (int) (resumen >>> 32) | 1;
+		for (int i = 0; i < númFunciones && presente; i++) {
+			posición = Math.floorMod(h1 + i * h2, númBits);
+			presente = (bits[posición >>> 6] & (1L << posición)) != 0;
+		}
+
+		númConsultas++;
+		if (presente) {
+			númPositivos++;
+		}
+		return presente;
+	}
+
+	/**
+	 * Anota que una respuesta positiva resultó ser falsa tras comprobarla.
+	 */
+	public void anotarFalsoPositivo() {
+		númFalsosPositivos++;
+	}
+
+	/**
+	 * Informa del número de textos incorporados.
+	 *
+	 * @return el valor correspondiente
+	 */
+	public long getNúmElementos() {
+		return númElementos;
+	}
+
+	/**
+	 * Informa del número de elementos previstos al dimensionar el filtro. Superado
+	 * ese número, la tasa de falsos positivos crece.
+	 *
+	 * @return el valor correspondiente
+	 */
+	public int getCapacidad() {
+		return capacidad;
+	}
+
+	/**
+	 * Informa de la memoria ocupada por la tabla de bits.
+	 *
+	 * @return el número de bytes
+	 */
+	public long getMemoria() {
+		return bits.length * (long) Long.BYTES;
+	}
+
+	/**
+	 * Estima la tasa teórica de falsos positivos con los elementos actuales.
+	 *
+	 * @return el valor estimado, entre 0 y 1
+	 */
+	public double getTasaTeórica() {
+		return Math.pow(1 - Math.exp(-(double) númFunciones * númElementos / númBits), númFunciones);
+	}
+
+	/**
+	 * Calcula la tasa observada de falsos positivos: la proporción de consultas
+	 * sobre textos ausentes que respondieron «puede estar».
+	 *
+	 * @return el valor observado, entre 0 y 1; cero si no hay datos
+	 */
+	public double getTasaObservada() {
+		long ausentes;
+
+		ausentes = númConsultas - númPositivos + númFalsosPositivos;
+		return ausentes == 0 ? 0 : (double) númFalsosPositivos / ausentes;
+	}
+
+	/**
+	 * Genera una descripción del estado del filtro.<div>Ejemplo:
+	 *
+	 * <pre>
+	 *   Filtro de duplicados: 120000 códigos, 140.4 KiB, 7 funciones, falsos positivos 0.98 % (teórico 1.00 %)
+	 * </pre>
+	 *
+	 * </div>
+	 *
+	 * @return el texto correspondiente
+	 */
+	@Override
+	public String toString() {
+		return String.format("Filtro de duplicados: %d códigos, %.1f KiB, %d funciones, "
+				+ "falsos positivos %.2f %% (teórico %.2f %%)", númElementos, getMemoria() / 1024.0, númFunciones,
+				getTasaObservada() * 100, getTasaTeórica() * 100);
+	}
+}
@@ -0,0 +1,608 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Generador de inventarios sintéticos para pruebas de carga y de escala. Crea
+ * aulas con puestos de usuarios con nombres y apellidos españoles verosímiles,
+ * bien como archivos de exportación –con el mismo formato de
+ * {@link InventarioAula#generarListadoCSV()}–, bien grabándolos directamente
+ * en la base de datos.
+ * <div>Los resultados son reproducibles: con la misma semilla se generan
+ * exactamente las mismas aulas, aunque se generen en paralelo, ya que cada aula
+ * obtiene su propia secuencia aleatoria a partir de la semilla y de su
+ * posición. Una fracción configurable de las líneas se sustituye por líneas
+ * defectuosas –códigos duplicados o ajenos, campos vacíos o de menos–, para
+ * ejercitar la validación de la importación.</div> <div>Los prefijos son
+ * letras –«AA», «AB»…, o de tres o cuatro letras si hacen falta más aulas–, de
+ * modo que ninguno es a su vez prefijo de otro. Ejemplo de línea:
+ *
+ * <pre>
+ * ICX0042##ED09012096P382##María José##García Pérez
+ * </pre>
+ *
+ * </div>
+ *
+ * @see MotivoRechazo
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class GeneradorInventario {
+	/** Nombres de pila. */
+	private static final String[] NOMBRES = { "Antonio", "José", "Manuel", "Francisco", "David", "Juan", "Javier",
+			"Daniel", "Carlos", "Jesús", "Alejandro", "Miguel", "Rafael", "Pablo", "Sergio", "Álvaro", "Adrián",
+			"Hugo", "Martín", "Iván", "Rubén", "Óscar", "Raúl", "Íñigo", "Jorge", "Alberto", "Lucas", "Mateo",
+			"María", "Carmen", "Ana", "Isabel", "Laura", "Cristina", "Marta", "Lucía", "Elena", "Paula", "Sara",
+			"Raquel", "Beatriz", "Nuria", "Silvia", "Patricia", "Rocío", "Sofía", "Irene", "Alba", "Andrea", "Noelia",
+			"Begoña", "Ainhoa", "Inés", "Julia", "Claudia", "María José", "Juan Carlos", "José Luis", "María Ángeles",
+			"Ana Belén" };
+
+	/** Apellidos. */
+	private static final String[] APELLIDOS = { "García", "Rodríguez", "González", "Fernández", "López",
+			"Martínez", "Sánchez", "Pérez", "Gómez", "Martín", "Jiménez", "Ruiz", "Hernández", "Díaz", "Moreno",
+			"Muñoz", "Álvarez", "Romero", "Alonso", "Gutiérrez", "Navarro", "Torres", "Domínguez", "Vázquez",
+			"Ramos", "Gil", "Ramírez", "Serrano", "Blanco", "Molina", "Morales", "Suárez", "Ortega", "Delgado",
+			"Castro", "Ortiz", "Rubio", "Marín", "Sanz", "Núñez", "Iglesias", "Medina", "Garrido", "Cortés",
+			"Castillo", "Santos", "Lozano", "Guerrero", "Cano", "Prieto", "Méndez", "Cruz", "Calvo", "Gallego",
+			"Vidal", "León", "Márquez", "Herrera", "Peña", "Flores", "Cabrera", "Campos", "Vega", "Fuentes", "Carrasco",
+			"Diez", "Caballero", "Reyes", "Nieto", "Aguilar", "Pascual", "Santana", "Herrero", "Montero", "Lorenzo",
+			"Hidalgo", "Giménez", "Ibáñez", "Ferrer", "Durán", "Santiago", "Benítez", "Mora", "Vicente", "Vargas",
+			"Arias", "Carmona", "Crespo", "Román", "Pastor", "Soto", "Sáez", "Velasco", "Moya", "Soler", "Parra",
+			"Esteban", "Bravo", "Gallardo", "Rojas", "Echeverría", "Zubizarreta", "Olaizola", "Peñalver" };
+
+	/** Los nombres de pila, ya codificados en UTF-8. */
+	private static final byte[][] NOMBRES_UTF8 = codificar(NOMBRES);
+
+	/** Los apellidos, ya codificados en UTF-8. */
+	private static final byte[][] APELLIDOS_UTF8 = codificar(APELLIDOS);
+
+	/** Separador de campos del formato de exportación. */
+	private static final String SEPARADOR = "##";
+
+	/** Tamaño del búfer de escritura de cada archivo, en bytes. */
+	private static final int TAMAÑO_BÚFER = 64 * 1024;
+
+	/** Longitud máxima de una línea de puesto correcta, en bytes. */
+	private static final int LONGITUD_MÁXIMA_LÍNEA = 256;
+
+	/** La semilla de todas las secuencias aleatorias. */
+	private final long semilla;
+
+	/** La fracción de líneas defectuosas, entre 0 y 1. */
+	private final double tasaDefectos;
+
+	/** El número de aulas. */
+	private final int númAulas;
+
+	/** El número de líneas de puesto por aula, incluidas las defectuosas. */
+	private final int puestosAula;
+
+	/** El número de letras de los prefijos. */
+	private final int longitudPrefijo;
+
+	/** El número de cifras de los códigos de puesto tras el prefijo. */
+	private final int cifrasPuesto;
+
+	/**
+	 * Resumen de una generación.
+	 *
+	 * @param aulas        el número de aulas generadas
+	 * @param líneas       el número de líneas de puesto
+	 * @param defectuosas  el número de líneas defectuosas, incluidas en las
+	 *                     anteriores
+	 * @param bytes        el tamaño total de los archivos; cero al grabar en la
+	 *                     base de datos
+	 * @param milisegundos la duración
+	 */
+	public record Resultado(int aulas, long líneas, long defectuosas, long bytes, long milisegundos) {
+		/**
+		 * Genera una descripción con el volumen y la velocidad de la generación.
+		 * <div>Ejemplo:
+		 *
+		 * <pre>
+		 *   1000 aulas, 1000000 líneas (50000 defectuosas), 61.2 MB en 412 ms (148.5 MB/s)
+		 * </pre>
+		 *
+		 * </div>
+		 *
+		 * @return el texto correspondiente
+		 */
+		@Override
+		public String toString() {
+			String texto;
+
+			if (bytes > 0) {
+				texto = String.format("%d aulas, %d líneas (%d defectuosas), %.1f MB en %d ms (%.1f MB/s)", aulas,
+						líneas, defectuosas, bytes / 1e6, milisegundos, bytes / 1e3 / Math.max(1, milisegundos));
+			} else {
+				texto = String.format("%d aulas, %d líneas (%d defectuosas) en %d ms (%.0f líneas/s)", aulas, líneas,
+						defectuosas, milisegundos, líneas * 1e3 / Math.max(1, milisegundos));
+			}
+			return texto;
+		}
+	}
+
+	/**
+	 * Destino de las líneas generadas de un aula. Los puestos correctos se
+	 * entregan como los valores aleatorios de los que se componen, para que cada
+	 * destino construya solo lo que necesita.
+	 */
+	private interface Destino {
+		/**
+		 * Recibe un puesto correcto.
+		 *
+		 * @param número    el número del puesto dentro del aula
+		 * @param equipo    el número de equipo de la identificación del ordenador
+		 * @param serie     el número de serie de la identificación del ordenador
+		 * @param nombre    la posición del nombre
+		 * @param apellido1 la posición del primer apellido
+		 * @param apellido2 la posición del segundo apellido
+		 */
+		void puesto(int número, int equipo, int serie, int nombre, int apellido1, int apellido2);
+
+		/**
+		 * Recibe una línea defectuosa.
+		 *
+		 * @param línea el texto de la línea
+		 */
+		void defecto(String línea);
+	}
+
+	/**
+	 * Destino que compone las líneas de un aula directamente en bytes UTF-8 y
+	 * las escribe por bloques en su archivo.
+	 */
+	private class DestinoArchivo implements Destino {
+		/** El archivo. */
+		private final OutputStream salida;
+
+		/** El prefijo del aula, codificado. */
+		private final byte[] prefijo;
+
+		/** El fin de línea, codificado. */
+		private final byte[] finLínea;
+
+		/** Los bytes pendientes de escribir. */
+		private final byte[] búfer;
+
+		/** El número de bytes pendientes. */
+		private int posición;
+
+		/** El número de bytes escritos. */
+		private long bytes;
+
+		/**
+		 * Prepara el destino y anota la línea del prefijo.
+		 *
+		 * @param salida  el archivo
+		 * @param prefijo el prefijo del aula
+		 */
+		private DestinoArchivo(OutputStream salida, String prefijo) {
+			this.salida = salida;
+			this.prefijo = prefijo.getBytes(StandardCharsets.US_ASCII);
+			finLínea = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+			búfer = new byte[TAMAÑO_BÚFER];
+			añadir(this.prefijo);
+			añadir(finLínea);
+		}
+
+		@Override
+		public void puesto(int número, int equipo, int serie, int nombre, int apellido1, int apellido2) {
+			if (posición > búfer.length - LONGITUD_MÁXIMA_LÍNEA) {
+				volcar();
+			}
+			añadir(prefijo);
+			añadirCifras(número, cifrasPuesto);
+			añadirSeparador();
+			búfer[posición++] = 'E';
+			búfer[posición++] = 'D';
+			añadirCifras(equipo, 8);
+			búfer[posición++] = 'P';
+			añadirCifras(serie, 3);
+			añadirSeparador();
+			añadir(NOMBRES_UTF8[nombre]);
+			añadirSeparador();
+			añadir(APELLIDOS_UTF8[apellido1]);
+			búfer[posición++] = ' ';
+			añadir(APELLIDOS_UTF8[apellido2]);
+			añadir(finLínea);
+		}
+
+		@Override
+		public void defecto(String línea) {
+			byte[] datos;
+
+			datos = línea.getBytes(StandardCharsets.UTF_8);
+			if (posición > búfer.length - datos.length - finLínea.length) {
+				volcar();
+			}
+			añadir(datos);
+			añadir(finLínea);
+		}
+
+		/**
+		 * Añade bytes al búfer.
+		 *
+		 * @param datos los bytes
+		 */
+		private void añadir(byte[] datos) {
+			System.arraycopy(datos, 0, búfer, posición, datos.length);
+			posición += datos.length;
+		}
+
+		/** Añade el separador de campos al búfer. */
+		private void añadirSeparador() {
+			búfer[posición++] = '#';
+			búfer[posición++] = '#';
+		}
+
+		/**
+		 * Añade un número en decimal al búfer, con ceros a la izquierda.
+		 *
+		 * @param valor el número, no negativo
+		 * @param ancho el número mínimo de cifras
+		 */
+		private void añadirCifras(int valor, int ancho) {
+			int resto, longitud;
+
+			longitud = Math.max(ancho, valor == 0 ? 1 : (int) Math.log10(valor) + 1);
+			resto = valor;
+			for (int i = posición + longitud - 1; i >= posición; i--) {
+				búfer[i] = (byte) ('0' + resto % 10);
+				resto /= 10;
+			}
+			posición += longitud;
+		}
+
+		/**
+		 * Escribe los bytes pendientes.
+		 *
+		 * @throws UncheckedIOException si no se puede escribir
+		 */
+		private void volcar() {
+			try {
+				salida.write(búfer, 0, posición);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			bytes += posición;
+			posición = 0;
+		}
+	}
+
+	/**
+	 * Destino que reúne los puestos correctos de un aula en una lista, para
+	 * grabarlos en la base de datos. Las líneas defectuosas se descartan.
+	 */
+	private class DestinoLista implements Destino {
+		/** El prefijo del aula. */
+		private final String prefijo;
+
+		/** La lista de puestos. */
+		private final List<Map.Entry<String, PuestoUsuario>> puestos;
+
+		/**
+		 * Prepara el destino.
+		 *
+		 * @param prefijo el prefijo del aula
+		 * @param puestos la lista donde añadir los puestos
+		 */
+		private DestinoLista(String prefijo, List<Map.Entry<String, PuestoUsuario>> puestos) {
+			this.prefijo = prefijo;
+			this.puestos = puestos;
+		}
+
+		@Override
+		public void puesto(int número, int equipo, int serie, int nombre, int apellido1, int apellido2) {
+			puestos.add(new AbstractMap.SimpleImmutableEntry<>(generarCódigo(prefijo, número),
+					new PuestoUsuario(generarOrdenador(equipo, serie), NOMBRES[nombre],
+							APELLIDOS[apellido1] + " " + APELLIDOS[apellido2])));
+		}
+
+		@Override
+		public void defecto(String línea) {
+			// Solo tienen sentido en los archivos
+		}
+	}
+
+	/**
+	 * Codifica en UTF-8 una lista de textos.
+	 *
+	 * @param textos los textos
+	 * @return los bytes de cada texto, en el mismo orden
+	 */
+	private static byte[][] codificar(String[] textos) {
+		byte[][] codificados;
+
+		codificados = new byte[textos.length][];
+		for (int i = 0; i < textos.length; i++) {
+			codificados[i] = textos[i].getBytes(StandardCharsets.UTF_8);
+		}
+		return codificados;
+	}
+
+	/**
+	 * Prepara el generador.
+	 *
+	 * @param númAulas     el número de aulas, hasta 26⁴
+	 * @param puestosAula  el número de líneas de puesto por aula
+	 * @param semilla      la semilla de las secuencias aleatorias
+	 * @param tasaDefectos la fracción de líneas defectuosas, entre 0 y 1
+	 * @throws IllegalArgumentException si algún valor está fuera de rango
+	 */
+	public GeneradorInventario(int númAulas, int puestosAula, long semilla, double tasaDefectos) {
+		if (númAulas < 1 || númAulas > 26 * 26 * 26 * 26) {
+			throw new IllegalArgumentException("Número de aulas debe estar entre [1, 456976]");
+		}
+		if (puestosAula < 0 || tasaDefectos < 0 || tasaDefectos > 1) {
+			throw new IllegalArgumentException("Número de puestos o tasa de defectos fuera de rango");
+		}
+
+		this.númAulas = númAulas;
+		this.puestosAula = puestosAula;
+		this.semilla = semilla;
+		this.tasaDefectos = tasaDefectos;
+		longitudPrefijo = númAulas <= 26 * 26 ? 2 : númAulas <= 26 * 26 * 26 ? 3 : 4;
+		cifrasPuesto = Math.max(2, String.valueOf(puestosAula).length());
+	}
+
+	/**
+	 * Genera el prefijo de un aula.
+	 *
+	 * @param aula la posición del aula
+	 * @return el prefijo, en mayúsculas
+	 */
+	public String generarPrefijo(int aula) {
+		char[] letras;
+		int resto;
+
+		letras = new char[longitudPrefijo];
+		resto = aula;
+		for (int i = longitudPrefijo - 1; i >= 0; i--) {
+			letras[i] = (char) ('A' + resto % 26);
+			resto /= 26;
+		}
+		return new String(letras);
+	}
+
+	/**
+	 * Compone un número en decimal con ceros a la izquierda, sin pasar por el
+	 * formateo general de textos.
+	 *
+	 * @param valor el número, no negativo
+	 * @param ancho el número mínimo de cifras
+	 * @return el texto correspondiente
+	 */
+	private static String cifras(int valor, int ancho) {
+		char[] dígitos;
+		int resto, posición;
+
+		resto = valor;
+		dígitos = new char[Math.max(ancho, 10)];
+		posición = dígitos.length;
+		do {
+			dígitos[--posición] = (char) ('0' + resto % 10);
+			resto /= 10;
+		} while (resto > 0);
+		while (dígitos.length - posición < ancho) {
+			dígitos[--posición] = '0';
+		}
+		return new String(dígitos, posición, dígitos.length - posición);
+	}
+
+	/**
+	 * Genera la semilla propia de un aula, mezclando los bits de la semilla
+	 * general y la posición del aula.
+	 *
+	 * @param aula la posición del aula
+	 * @return la semilla correspondiente
+	 */
+	private long semillaAula(int aula) {
+		long mezcla;
+
+		mezcla = semilla + (aula + 1) * 0x9E3779B97F4A7C15L;
+		mezcla = (mezcla ^ (mezcla >>> 30)) * 0xBF58476D1CE4E5B9L;
+		mezcla = (mezcla ^ (mezcla >>> 27)) * 0x94D049BB133111EBL;
+		return mezcla ^ (mezcla >>> 31);
+	}
+
+	/**
+	 * Compone el código de un puesto.
+	 *
+	 * @param prefijo el prefijo del aula
+	 * @param número  el número del puesto dentro del aula
+	 * @return el código correspondiente
+	 */
+	private String generarCódigo(String prefijo, int número) {
+		return prefijo + cifras(número, cifrasPuesto);
+	}
+
+	/**
+	 * Compone la identificación de un ordenador.<div>Ejemplo:
+	 *
+	 * <pre>
+	 *   ED09012096P382
+	 * </pre>
+	 *
+	 * </div>
+	 *
+	 * @param equipo el número de equipo
+	 * @param serie  el número de serie
+	 * @return la identificación correspondiente
+	 */
+	private static String generarOrdenador(int equipo, int serie) {
+		return "ED" + cifras(equipo, 8) + "P" + cifras(serie, 3);
+	}
+
+	/**
+	 * Genera las líneas de puesto de un aula.
+	 *
+	 * @param aula    la posición del aula
+	 * @param destino el destino de cada línea
+	 * @return el número de líneas defectuosas
+	 */
+	private int generarAula(int aula, Destino destino) {
+		SplittableRandom azar;
+		String prefijo, código, ordenador, nombre, apellidos;
+		int equipo, serie, posNombre, posApellido1, posApellido2, anterior = 0;
+		int defectuosas = 0;
+
+		azar = new SplittableRandom(semillaAula(aula));
+		prefijo = generarPrefijo(aula);
+		for (int i = 1; i <= puestosAula; i++) {
+			equipo = azar.nextInt(100_000_000);
+			serie = azar.nextInt(1000);
+			posNombre = azar.nextInt(NOMBRES.length);
+			posApellido1 = azar.nextInt(APELLIDOS.length);
+			posApellido2 = azar.nextInt(APELLIDOS.length);
+
+			if (azar.nextDouble() < tasaDefectos) {
+				defectuosas++;
+				código = generarCódigo(prefijo, i);
+				ordenador = generarOrdenador(equipo, serie);
+				nombre = NOMBRES[posNombre];
+				apellidos = APELLIDOS[posApellido1] + " " + APELLIDOS[posApellido2];
+				destino.defecto(switch (anterior == 0 ? 1 + azar.nextInt(3) : azar.nextInt(4)) {
+				case 0 -> String.join(SEPARADOR, generarCódigo(prefijo, anterior), ordenador, nombre, apellidos);
+				case 1 -> String.join(SEPARADOR, código, ordenador, nombre); // Campo de menos
+				case 2 -> String.join(SEPARADOR, código, ordenador, "", apellidos); // Nombre vacío
+				default -> String.join(SEPARADOR, "9" + código, ordenador, nombre, apellidos); // Código ajeno
+				});
+			} else {
+				destino.puesto(i, equipo, serie, posNombre, posApellido1, posApellido2);
+				anterior = i;
+			}
+		}
+		return defectuosas;
+	}
+
+	/**
+	 * Escribe un archivo de exportación por aula –«Inventario &lt;prefijo&gt;.txt»–
+	 * en un directorio, generando varias aulas en paralelo.
+	 *
+	 * @param directorio el directorio de destino; se crea si no existe
+	 * @return el resumen de la generación
+	 * @throws IOException si no se puede escribir algún archivo
+	 */
+	public Resultado escribirArchivos(Path directorio) throws IOException {
+		LongAdder defectuosas, bytes;
+		long inicio;
+
+		inicio = System.nanoTime();
+		Files.createDirectories(directorio);
+		defectuosas = new LongAdder();
+		bytes = new LongAdder();
+		try {
+			IntStream.range(0, númAulas).parallel().forEach(aula -> {
+				try {
+					bytes.add(escribirArchivo(aula, directorio, defectuosas));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return new Resultado(númAulas, (long) númAulas * puestosAula, defectuosas.sum(), bytes.sum(),
+				(System.nanoTime() - inicio) / 1_000_000);
+	}
+
+	/**
+	 * Escribe el archivo de exportación de un aula.
+	 *
+	 * @param aula        la posición del aula
+	 * @param directorio  el directorio de destino
+	 * @param defectuosas el contador de líneas defectuosas
+	 * @return el tamaño del archivo
+	 * @throws IOException si no se puede escribir el archivo
+	 */
+	private long escribirArchivo(int aula, Path directorio, LongAdder defectuosas) throws IOException {
+		DestinoArchivo destino;
+		String prefijo;
+
+		prefijo = generarPrefijo(aula);
+		try (OutputStream salida = Files.newOutputStream(directorio.resolve("Inventario " + prefijo + ".txt"))) {
+			destino = new DestinoArchivo(salida, prefijo);
+			defectuosas.add(generarAula(aula, destino));
+			destino.volcar();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return destino.bytes;
+	}
+
+	/**
+	 * Graba los puestos correctos de todas las aulas directamente en un
+	 * almacenamiento, un aula por lote. Las líneas defectuosas se cuentan pero no
+	 * se graban.
+	 *
+	 * @param almacén la base de datos u otro almacenamiento
+	 * @return el resumen de la generación
+	 * @throws AccesoBDException si se produce alguna incidencia
+	 */
+	public Resultado poblar(AlmacenInventario almacén) throws AccesoBDException {
+		List<Map.Entry<String, PuestoUsuario>> puestos;
+		String prefijo;
+		long inicio, defectuosas = 0;
+
+		inicio = System.nanoTime();
+		puestos = new ArrayList<>(puestosAula);
+		for (int aula = 0; aula < númAulas; aula++) {
+			puestos.clear();
+			prefijo = generarPrefijo(aula);
+			defectuosas += generarAula(aula, new DestinoLista(prefijo, puestos));
+			almacén.insertarLote(prefijo, puestos);
+		}
+		return new Resultado(númAulas, (long) númAulas * puestosAula, defectuosas, 0,
+				(System.nanoTime() - inicio) / 1_000_000);
+	}
+
+	/**
+	 * Genera un inventario sintético.
+	 *
+	 * @param argumentos opciones de ejecución: destino –directorio de archivos, o
+	 *                   archivo de base de datos si termina en «.db»–, número de
+	 *                   aulas (100), puestos por aula (1000), semilla (1) y tasa
+	 *                   de líneas defectuosas (0.01)
+	 */
+	public static void main(String[] argumentos) {
+		GeneradorInventario generador;
+		Resultado resultado;
+		String destino;
+
+		if (argumentos.length == 0) {
+			System.err.println("Uso: GeneradorInventario <directorio|archivo.db> [aulas] [puestos] [semilla] [tasa]");
+		} else {
+			destino = argumentos[0];
+			generador = new GeneradorInventario(argumentos.length > 1 ? Integer.parseInt(argumentos[1]) : 100,
+					argumentos.length > 2 ? Integer.parseInt(argumentos[2]) : 1000,
+					argumentos.length > 3 ? Long.parseLong(argumentos[3]) : 1,
+					argumentos.length > 4 ? Double.parseDouble(argumentos[4]) : 0.01);
+			try {
+				if (destino.endsWith(".db")) {
+					try (AccesoBD accesoBD = new AccesoBD(AccesoBD.generarConfiguración(destino))) {
+						resultado = generador.poblar(accesoBD);
+					}
+				} else {
+					resultado = generador.escribirArchivos(Path.of(destino));
+				}
+				System.out.println(resultado);
+			} catch (IOException | AccesoBDException e) {
+				System.err.printf("Error en la generación: %s%n", e.getLocalizedMessage());
+			}
+		}
+	}
+}
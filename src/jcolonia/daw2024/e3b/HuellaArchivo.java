@@ -0,0 +1,138 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Huella de un archivo de exportación ya importado, tal como se anota en el
+ * registro de importaciones de la base de datos. Permite decidir sin leer el
+ * archivo si sigue igual y, si ha crecido, comprobar que solo se le han añadido
+ * líneas al final.
+ * <div>El resumen es un FNV-1a de 64 bits de los bytes ya procesados: se puede
+ * continuar a partir de su valor sin volver a leer el comienzo del
+ * archivo.</div> <div>El resumen de la cola abarca solo los últimos
+ * {@value #LONGITUD_COLA} bytes procesados. Basta para reconocer que un archivo
+ * ampliado conserva su final anterior leyendo un tramo de tamaño fijo, en lugar
+ * de todo lo ya importado.</div>
+ *
+ * @see AccesoBD#leerHuella(String)
+ * @see ImportadorIncremental
+ *
+ * @param ruta        la ruta absoluta del archivo
+ * @param tamaño      el tamaño del archivo, en bytes, al tomar la huella
+ * @param modificado  la fecha de modificación del archivo, en milisegundos
+ *                    desde 1970, al tomar la huella
+ * @param posición    el número de bytes procesados desde el comienzo –hasta el
+ *                    final de la última línea importada–
+ * @param resumen     el resumen de los bytes procesados
+ * @param prefijo     el prefijo del aula, de la primera línea del archivo
+ * @param líneas      el número de líneas procesadas, incluida la del prefijo
+ * @param resumenCola el resumen de los últimos bytes procesados;
+ *                    <code>null</code> si la huella procede de una versión
+ *                    anterior que no lo anotaba
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public record HuellaArchivo(String ruta, long tamaño, long modificado, long posición, long resumen, String prefijo,
+		int líneas, Long resumenCola) {
+	/** Valor del resumen sin ningún byte procesado –base de FNV-1a de 64 bits–. */
+	public static final long RESUMEN_INICIAL = 0xcbf29ce484222325L;
+
+	/** Primo del resumen FNV-1a de 64 bits. */
+	private static final long FNV_PRIMO = 0x100000001b3L;
+
+	/** Tamaño del bloque de lectura al calcular el resumen de un archivo. */
+	private static final int TAMAÑO_BLOQUE = 1 << 16;
+
+	/** Número de bytes finales que abarca el resumen de la cola. */
+	public static final int LONGITUD_COLA = 1 << 16;
+
+	/**
+	 * Indica si la huella cubre el archivo completo tal como estaba al tomarla.
+	 *
+	 * @return <code>true</code> si se procesaron todos sus bytes
+	 */
+	public boolean estáCompleta() {
+		return posición == tamaño;
+	}
+
+	/**
+	 * Continúa un resumen con una serie de bytes.
+	 *
+	 * @param resumen el resumen de los bytes anteriores, o
+	 *                {@link #RESUMEN_INICIAL}
+	 * @param datos   los bytes
+	 * @param desde   la posición del primer byte
+	 * @param hasta   la posición siguiente al último byte
+	 * @return el nuevo resumen
+	 */
+	public static long resumir(long resumen, byte[] datos, int desde, int hasta) {
+		for (int i = desde; i < hasta; i++) {
+			resumen ^= datos[i] & 0xff;
+			resumen *= FNV_PRIMO;
+		}
+		return resumen;
+	}
+
+	/**
+	 * Calcula el resumen del comienzo de un archivo.
+	 *
+	 * @param archivo  el archivo
+	 * @param longitud el número de bytes a resumir desde el comienzo
+	 * @return el resumen; <code>null</code> si el archivo es más corto
+	 * @throws IOException si se produce alguna incidencia en la lectura
+	 */
+	public static Long resumir(Path archivo, long longitud) throws IOException {
+		return resumir(archivo, 0, longitud);
+	}
+
+	/**
+	 * Calcula el resumen de la cola de la parte ya procesada de un archivo: los
+	 * {@value #LONGITUD_COLA} bytes anteriores a una posición, o todos si hay
+	 * menos.
+	 *
+	 * @param archivo  el archivo
+	 * @param posición el número de bytes procesados desde el comienzo
+	 * @return el resumen; <code>null</code> si el archivo es más corto
+	 * @throws IOException si se produce alguna incidencia en la lectura
+	 */
+	public static Long resumirCola(Path archivo, long posición) throws IOException {
+		long desde;
+
+		desde = Math.max(0, posición - LONGITUD_COLA);
+		return resumir(archivo, desde, posición - desde);
+	}
+
+	/**
+	 * Calcula el resumen de un tramo de un archivo.
+	 *
+	 * @param archivo  el archivo
+	 * @param desde    la posición del primer byte del tramo
+	 * @param longitud el número de bytes del tramo
+	 * @return el resumen; <code>null</code> si el archivo es más corto
+	 * @throws IOException si se produce alguna incidencia en la lectura
+	 */
+	private static Long resumir(Path archivo, long desde, long longitud) throws IOException {
+		ByteBuffer bloque;
+		long resumen = RESUMEN_INICIAL, pendientes = longitud;
+		int leídos = 0;
+
+		bloque = ByteBuffer.allocate(TAMAÑO_BLOQUE);
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+			canal.position(desde);
+			while (pendientes > 0 && leídos >= 0) {
+				bloque.clear().limit((int) Math.min(TAMAÑO_BLOQUE, pendientes));
+				leídos = canal.read(bloque);
+				if (leídos > 0) {
+					resumen = resumir(resumen, bloque.array(), 0, leídos);
+					pendientes -= leídos;
+				}
+			}
+		}
+		return pendientes == 0 ? resumen : null;
+	}
+}
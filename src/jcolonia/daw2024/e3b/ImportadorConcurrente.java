@@ -0,0 +1,426 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Importación de un archivo de exportación a la base de datos en etapas
+ * concurrentes enlazadas con {@link Flow}: lectura del disco, despiece de las
+ * líneas, validación en un {@link InventarioAula} y grabación en la base de
+ * datos. Cada etapa trabaja en su propio hilo y entre etapas circulan bloques
+ * de líneas a través de colas acotadas; cuando una cola se llena, la etapa
+ * anterior espera –contrapresión–. Así la lectura y la validación se solapan con
+ * las transacciones de SQLite y el tiempo total se acerca al de la etapa más
+ * lenta.
+ *
+ * @see AccesoBD#insertarLote(java.util.Collection)
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ImportadorConcurrente {
+	/** Número predeterminado de líneas por bloque. */
+	public static final int TAMAÑO_BLOQUE_PREDETERMINADO = 1024;
+
+	/** Número predeterminado de bloques en espera entre dos etapas. */
+	public static final int CAPACIDAD_PREDETERMINADA = 8;
+
+	/**
+	 * Resumen de una importación.
+	 *
+	 * @param prefijo         el prefijo del aula importada
+	 * @param líneasLeídas    el número de líneas de puestos leídas –sin contar la
+	 *                        del prefijo–
+	 * @param puestosGrabados el número de puestos grabados en la base de datos
+	 * @param rechazos        las líneas descartadas
+	 * @param milisegundos    la duración total
+	 */
+	public record Resultado(String prefijo, int líneasLeídas, int puestosGrabados,
+			List<InventarioAula.Rechazo> rechazos, long milisegundos) {
+	}
+
+	/**
+	 * Línea leída del archivo.
+	 *
+	 * @param número el número de línea, a partir de uno
+	 * @param texto  el contenido
+	 */
+	private record Registro(int número, String texto) {
+	}
+
+	/**
+	 * Línea despiezada en sus cuatro campos, o descartada por formato.
+	 *
+	 * @param línea    la línea original
+	 * @param despiece los campos; <code>null</code> si el formato es incorrecto
+	 */
+	private record Fila(Registro línea, String[] despiece) {
+	}
+
+	/** Acceso a la base de datos donde se graban los puestos. */
+	private final AccesoBD accesoBD;
+
+	/** Número de líneas por bloque. */
+	private final int tamañoBloque;
+
+	/** Número de bloques en espera entre dos etapas. */
+	private final int capacidad;
+
+	/**
+	 * Prepara el importador con los valores predeterminados.
+	 *
+	 * @param accesoBD el acceso a la base de datos
+	 */
+	public ImportadorConcurrente(AccesoBD accesoBD) {
+		this(accesoBD, TAMAÑO_BLOQUE_PREDETERMINADO, CAPACIDAD_PREDETERMINADA);
+	}
+
+	/**
+	 * Prepara el importador.
+	 *
+	 * @param accesoBD     el acceso a la base de datos
+	 * @param tamañoBloque el número de líneas por bloque –y por transacción–
+	 * @param capacidad    el número de bloques en espera entre dos etapas
+	 */
+	public ImportadorConcurrente(AccesoBD accesoBD, int tamañoBloque, int capacidad) {
+		this.accesoBD = accesoBD;
+		this.tamañoBloque = Math.max(1, tamañoBloque);
+		this.capacidad = Math.max(1, capacidad);
+	}
+
+	/**
+	 * Importa un archivo de exportación y espera a que termine. La primera línea
+	 * del archivo es el prefijo del aula; el resto, un puesto por línea.
+	 *
+	 * @see InventarioAula#generarListadoCSV()
+	 * @param rutaArchivo la ubicación del archivo
+	 * @return el resumen de la importación
+	 * @throws AccesoBDException si se produce alguna incidencia en la lectura, el
+	 *                           prefijo o la base de datos; los puestos ya
+	 *                           grabados en bloques anteriores se conservan
+	 */
+	public Resultado importar(String rutaArchivo) throws AccesoBDException {
+		ExecutorService ejecutorLectura, ejecutorDespiece, ejecutorValidación, ejecutorGrabación;
+		SubmissionPublisher<List<Registro>> lectura;
+		Etapa<List<Registro>, List<Fila>> despiece;
+		Etapa<List<Fila>, List<Map.Entry<String, PuestoUsuario>>> validación;
+		CompletableFuture<Integer> grabación;
+		CompletableFuture<Integer> lecturaTerminada;
+		List<InventarioAula.Rechazo> rechazos;
+		InventarioAula aula;
+		BufferedReader entrada = null;
+		String prefijo;
+		Resultado resultado;
+		long inicio;
+
+		inicio = System.nanoTime();
+		accesoBD.abrirConexión();
+		accesoBD.activarControlDuplicados();
+
+		ejecutorLectura = Executors.newSingleThreadExecutor();
+		ejecutorDespiece = Executors.newSingleThreadExecutor();
+		ejecutorValidación = Executors.newSingleThreadExecutor();
+		ejecutorGrabación = Executors.newSingleThreadExecutor();
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.IMPORTACIÓN)) {
+			entrada = new AccesoArchivo(rutaArchivo).abrirLectura();
+			prefijo = entrada.readLine();
+			if (prefijo == null) {
+				throw new AccesoBDException(String.format("Archivo «%s» vacío", rutaArchivo));
+			}
+			aula = InventarioAula.of(prefijo);
+			rechazos = Collections.synchronizedList(new ArrayList<>());
+
+			lectura = new SubmissionPublisher<>(ejecutorDespiece, capacidad);
+			despiece = new Etapa<>(ejecutorValidación, capacidad, ImportadorConcurrente::despiezar);
+			validación = new Etapa<>(ejecutorGrabación, capacidad, filas -> validar(aula, filas, rechazos));
+			grabación = new CompletableFuture<>();
+
+			lectura.subscribe(despiece);
+			despiece.subscribe(validación);
+			validación.subscribe(new Persistencia(aula.getPrefijo(), grabación));
+
+			lecturaTerminada = CompletableFuture.supplyAsync(leer(entrada, lectura), ejecutorLectura);
+			resultado = new Resultado(aula.getPrefijo(), lecturaTerminada.join(), grabación.join(),
+					List.copyOf(rechazos), (System.nanoTime() - inicio) / 1_000_000);
+			medición.terminar(resultado.puestosGrabados());
+		} catch (IOException | InventarioException e) {
+			String mensaje = String.format("Error de importación de «%s»: %s", rutaArchivo, e.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, e);
+		} catch (CompletionException e) {
+			String mensaje = String.format("Error de importación de «%s»: %s", rutaArchivo,
+					e.getCause().getLocalizedMessage());
+			throw new AccesoBDException(mensaje, e.getCause());
+		} finally {
+			cerrar(entrada);
+			ejecutorLectura.shutdownNow();
+			ejecutorDespiece.shutdown();
+			ejecutorValidación.shutdown();
+			ejecutorGrabación.shutdown();
+		}
+		return resultado;
+	}
+
+	/**
+	 * Genera la tarea de la etapa de lectura: agrupa las líneas en bloques y los
+	 * publica, esperando cuando la cola de la etapa siguiente está llena.
+	 *
+	 * @param entrada el archivo abierto, ya leída la línea del prefijo
+	 * @param salida  el publicador de bloques
+	 * @return la tarea, que devuelve el número de líneas leídas
+	 */
+	private Supplier<Integer> leer(BufferedReader entrada, SubmissionPublisher<List<Registro>> salida) {
+		return () -> {
+			EventosImportacion.Lectura evento;
+			List<Registro> bloque;
+			String texto;
+			int númLínea = 1;
+
+			bloque = new ArrayList<>(tamañoBloque);
+			evento = new EventosImportacion.Lectura();
+			evento.begin();
+			try {
+				while ((texto = entrada.readLine()) != null) {
+					númLínea++;
+					bloque.add(new Registro(númLínea, texto));
+					if (bloque.size() == tamañoBloque) {
+						registrarLectura(evento, bloque);
+						salida.submit(bloque);
+						bloque = new ArrayList<>(tamañoBloque);
+						evento = new EventosImportacion.Lectura();
+						evento.begin();
+					}
+				}
+				if (!bloque.isEmpty()) {
+					registrarLectura(evento, bloque);
+					salida.submit(bloque);
+				}
+				salida.close();
+			} catch (IOException e) {
+				salida.closeExceptionally(e);
+				throw new UncheckedIOException(e);
+			}
+			return númLínea - 1;
+		};
+	}
+
+	/**
+	 * Cierra y registra el evento JFR de lectura de un bloque. Los bytes solo se
+	 * calculan si la grabación está activa.
+	 *
+	 * @param evento el evento, ya iniciado
+	 * @param bloque las líneas leídas
+	 */
+	private static void registrarLectura(EventosImportacion.Lectura evento, List<Registro> bloque) {
+		long bytes = 0;
+
+		evento.end();
+		if (evento.shouldCommit()) {
+			for (Registro línea : bloque) {
+				bytes += línea.texto().getBytes(StandardCharsets.UTF_8).length + 1;
+			}
+			evento.líneas = bloque.size();
+			evento.bytes = bytes;
+			evento.commit();
+		}
+	}
+
+	/**
+	 * Etapa de despiece: separa los campos de cada línea.
+	 *
+	 * @param líneas el bloque de líneas
+	 * @return el bloque de filas
+	 */
+	private static List<Fila> despiezar(List<Registro> líneas) {
+		List<Fila> filas;
+
+		filas = new ArrayList<>(líneas.size());
+		for (Registro línea : líneas) {
+			if (!línea.texto().isBlank()) {
+				filas.add(new Fila(línea, InventarioAula.despiezarLínea(línea.texto())));
+			}
+		}
+		return filas;
+	}
+
+	/**
+	 * Etapa de validación: incorpora cada fila al inventario del aula, que detecta
+	 * duplicados y normaliza los datos, y anota las descartadas.
+	 *
+	 * @param aula     el inventario del aula
+	 * @param filas    el bloque de filas
+	 * @param rechazos la lista donde anotar las líneas descartadas
+	 * @return el bloque de puestos aceptados, ya normalizados
+	 */
+	private static List<Map.Entry<String, PuestoUsuario>> validar(InventarioAula aula, List<Fila> filas,
+			List<InventarioAula.Rechazo> rechazos) {
+		EventosImportacion.Validación evento;
+		List<Map.Entry<String, PuestoUsuario>> aceptados;
+		MotivoRechazo motivo;
+		String[] campos;
+		String código;
+
+		evento = new EventosImportacion.Validación();
+		evento.begin();
+		aceptados = new ArrayList<>(filas.size());
+		for (Fila fila : filas) {
+			campos = fila.despiece();
+			if (campos == null) {
+				motivo = MotivoRechazo.FORMATO_INCORRECTO;
+			} else {
+				motivo = aula.intentarAñadir(campos[0], new PuestoUsuario(campos[1], campos[2], campos[3]));
+			}
+
+			if (motivo == null) {
+				código = NormalizadorTexto.recortarMayúsculas(campos[0]);
+				aceptados.add(Map.entry(código, aula.get(código)));
+			} else {
+				rechazos.add(new InventarioAula.Rechazo(fila.línea().número(), motivo, fila.línea().texto()));
+			}
+		}
+
+		evento.end();
+		if (evento.shouldCommit()) {
+			evento.prefijo = aula.getPrefijo();
+			evento.líneas = filas.size();
+			evento.aceptados = aceptados.size();
+			evento.rechazados = filas.size() - aceptados.size();
+			evento.commit();
+		}
+		return aceptados;
+	}
+
+	/**
+	 * Cierra el archivo de entrada, ignorando cualquier incidencia.
+	 *
+	 * @param entrada el archivo; admite <code>null</code>
+	 */
+	private static void cerrar(BufferedReader entrada) {
+		if (entrada != null) {
+			try {
+				entrada.close();
+			} catch (IOException e) {
+				System.err.printf("Error al cerrar archivo: %s%n", e.getLocalizedMessage());
+			}
+		}
+	}
+
+	/**
+	 * Etapa intermedia: transforma cada bloque recibido y publica el resultado
+	 * hacia la siguiente. Solo solicita un nuevo bloque cuando ha entregado el
+	 * anterior, de modo que la contrapresión se propaga hacia atrás.
+	 *
+	 * @param <E> el tipo de los bloques recibidos
+	 * @param <S> el tipo de los bloques publicados
+	 */
+	private static final class Etapa<E, S> extends SubmissionPublisher<S> implements Flow.Processor<E, S> {
+		/** La transformación aplicada a cada bloque. */
+		private final Function<E, S> transformación;
+		/** La suscripción a la etapa anterior. */
+		private Flow.Subscription suscripción;
+
+		/**
+		 * Crea la etapa.
+		 *
+		 * @param ejecutor       el ejecutor donde trabajará la etapa siguiente
+		 * @param capacidad      el número de bloques en espera hacia la siguiente
+		 * @param transformación la transformación a aplicar
+		 */
+		private Etapa(ExecutorService ejecutor, int capacidad, Function<E, S> transformación) {
+			super(ejecutor, capacidad);
+			this.transformación = transformación;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription suscripción) {
+			this.suscripción = suscripción;
+			suscripción.request(1);
+		}
+
+		@Override
+		public void onNext(E bloque) {
+			try {
+				submit(transformación.apply(bloque));
+				suscripción.request(1);
+			} catch (RuntimeException e) {
+				suscripción.cancel();
+				closeExceptionally(e);
+			}
+		}
+
+		@Override
+		public void onError(Throwable causa) {
+			closeExceptionally(causa);
+		}
+
+		@Override
+		public void onComplete() {
+			close();
+		}
+	}
+
+	/**
+	 * Etapa final: graba cada bloque de puestos en una transacción.
+	 */
+	private final class Persistencia implements Flow.Subscriber<List<Map.Entry<String, PuestoUsuario>>> {
+		/** El prefijo del aula importada. */
+		private final String prefijoAula;
+		/** El resultado de la etapa: el número de puestos grabados. */
+		private final CompletableFuture<Integer> terminada;
+		/** La suscripción a la etapa anterior. */
+		private Flow.Subscription suscripción;
+		/** El número de puestos grabados hasta el momento. */
+		private int puestosGrabados;
+
+		/**
+		 * Crea la etapa.
+		 *
+		 * @param prefijoAula el prefijo del aula importada
+		 * @param terminada   el resultado a completar al terminar
+		 */
+		private Persistencia(String prefijoAula, CompletableFuture<Integer> terminada) {
+			this.prefijoAula = prefijoAula;
+			this.terminada = terminada;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription suscripción) {
+			this.suscripción = suscripción;
+			suscripción.request(1);
+		}
+
+		@Override
+		public void onNext(List<Map.Entry<String, PuestoUsuario>> bloque) {
+			try {
+				puestosGrabados += accesoBD.insertarLote(prefijoAula, bloque);
+				suscripción.request(1);
+			} catch (AccesoBDException e) {
+				suscripción.cancel();
+				terminada.completeExceptionally(e);
+			}
+		}
+
+		@Override
+		public void onError(Throwable causa) {
+			terminada.completeExceptionally(causa);
+		}
+
+		@Override
+		public void onComplete() {
+			terminada.complete(puestosGrabados);
+		}
+	}
+}
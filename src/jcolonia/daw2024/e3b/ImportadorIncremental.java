@@ -0,0 +1,576 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación de un archivo de exportación que consulta antes el registro de
+ * importaciones de la base de datos: si el archivo no ha cambiado desde la
+ * última vez no se lee, y si solo se le han añadido líneas al final únicamente
+ * se procesan las nuevas.
+ * <div>Para decidir si el archivo sigue igual basta con su tamaño y fecha de
+ * modificación. Si ha crecido, se comprueba el resumen de la cola de la parte
+ * ya importada antes de continuar desde el punto donde se quedó: el coste de la
+ * comprobación no depende del tamaño del archivo. Si no coincide, los puestos
+ * de su aula se eliminan y el archivo se importa de nuevo por completo, de modo
+ * que las líneas corregidas sustituyen a las anteriores.</div>
+ * <div>Los puestos se graban en bloques, cada uno en su propia transacción
+ * junto con la posición del archivo y el número de línea alcanzados. Si la
+ * importación se interrumpe, la siguiente continúa desde el último bloque
+ * grabado sin releer ni volver a grabar lo anterior.</div>
+ * <div>Cada bloque se valida por separado, pero los códigos aceptados se
+ * recuerdan durante toda la importación: una línea que repite el código de
+ * otra anterior del archivo se descarta como
+ * {@link MotivoRechazo#CÓDIGO_DUPLICADO} con su número de línea, sea cual sea
+ * el tamaño de bloque. Solo se conservan los códigos, no los datos de los
+ * puestos. Igualmente se descartan, con su número de línea, los códigos ya
+ * almacenados en la base de datos: los de otros archivos y, al procesar solo
+ * las líneas añadidas, los de la parte ya importada.</div>
+ * <div>Las posiciones y resúmenes se refieren a los bytes del archivo, así que
+ * solo se siguen archivos sin comprimir; los comprimidos se importan siempre
+ * por completo, descomprimidos al vuelo y sin anotar nada en el
+ * registro.</div>
+ *
+ * @see HuellaArchivo
+ * @see AccesoBD#leerHuella(String)
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ImportadorIncremental {
+	/** Situación de un archivo respecto a su última importación. */
+	public enum Estado {
+		/** No se había importado nunca. */
+		NUEVO,
+		/** No ha cambiado: no se procesa nada. */
+		SIN_CAMBIOS,
+		/** Solo tiene líneas añadidas al final: se procesan las nuevas. */
+		AMPLIADO,
+		/**
+		 * La importación anterior se interrumpió y el archivo no ha cambiado: se
+		 * continúa desde el último bloque grabado.
+		 */
+		REANUDADO,
+		/**
+		 * Ha cambiado su contenido anterior: se procesa por completo, en lugar de
+		 * los puestos de su aula ya grabados.
+		 */
+		MODIFICADO,
+		/**
+		 * Está comprimido: se procesa por completo sin consultar ni anotar el
+		 * registro.
+		 */
+		COMPRIMIDO
+	}
+
+	/**
+	 * Resumen de una importación.
+	 *
+	 * @param estado          la situación del archivo respecto a la importación
+	 *                        anterior
+	 * @param prefijo         el prefijo del aula
+	 * @param líneasLeídas    el número de líneas de puestos procesadas –sin contar
+	 *                        la del prefijo–
+	 * @param puestosGrabados el número de puestos grabados en la base de datos
+	 * @param númRechazos     el número de líneas descartadas
+	 * @param rechazos        el detalle de las primeras líneas descartadas, hasta
+	 *                        {@value ImportadorIncremental#MÁX_RECHAZOS_ANOTADOS}
+	 * @param milisegundos    la duración total
+	 * @param huella          la huella del archivo tras la importación, tal como
+	 *                        queda en el registro; <code>null</code> si está
+	 *                        comprimido
+	 */
+	public record Resultado(Estado estado, String prefijo, int líneasLeídas, int puestosGrabados, int númRechazos,
+			List<InventarioAula.Rechazo> rechazos, long milisegundos, HuellaArchivo huella) {
+	}
+
+	/** Número predeterminado de líneas por bloque. */
+	public static final int TAMAÑO_BLOQUE_PREDETERMINADO = 8192;
+
+	/**
+	 * Número máximo de líneas descartadas que se anotan con detalle; del resto
+	 * solo se lleva la cuenta.
+	 */
+	public static final int MÁX_RECHAZOS_ANOTADOS = 1000;
+
+	/** Acceso a la base de datos donde se graban los puestos. */
+	private final AccesoBD accesoBD;
+
+	/** Número de líneas por bloque –y por transacción–. */
+	private final int tamañoBloque;
+
+	/**
+	 * Prepara el importador con el tamaño de bloque predeterminado.
+	 *
+	 * @param accesoBD el acceso a la base de datos
+	 */
+	public ImportadorIncremental(AccesoBD accesoBD) {
+		this(accesoBD, TAMAÑO_BLOQUE_PREDETERMINADO);
+	}
+
+	/**
+	 * Prepara el importador.
+	 *
+	 * @param accesoBD     el acceso a la base de datos
+	 * @param tamañoBloque el número de líneas por bloque –y por transacción–
+	 */
+	public ImportadorIncremental(AccesoBD accesoBD, int tamañoBloque) {
+		this.accesoBD = accesoBD;
+		this.tamañoBloque = Math.max(1, tamañoBloque);
+	}
+
+	/**
+	 * Importa un archivo de exportación, o solo sus líneas nuevas, y anota su
+	 * huella en el registro de importaciones junto con los puestos. Una última
+	 * línea sin salto de línea final queda pendiente, por si aún se está
+	 * escribiendo.
+	 *
+	 * @param rutaArchivo la ubicación del archivo
+	 * @return el resumen de la importación
+	 * @throws AccesoBDException si se produce alguna incidencia en la lectura, el
+	 *                           prefijo o la base de datos; los bloques ya grabados
+	 *                           se conservan y la próxima importación continúa
+	 *                           tras ellos
+	 */
+	public Resultado importar(String rutaArchivo) throws AccesoBDException {
+		return importar(rutaArchivo, false);
+	}
+
+	/**
+	 * Importa un archivo de exportación, o solo sus líneas nuevas, indicando qué
+	 * hacer con una última línea sin salto de línea final. Un archivo comprimido
+	 * se importa siempre por completo, sin consultar ni anotar el registro.
+	 *
+	 * @see #importar(String)
+	 * @param rutaArchivo       la ubicación del archivo
+	 * @param incluirIncompleta si se importa la última línea aunque no termine en
+	 *                          salto de línea; si no, queda pendiente por si aún
+	 *                          se está escribiendo
+	 * @return el resumen de la importación
+	 * @throws AccesoBDException si se produce alguna incidencia en la lectura, el
+	 *                           prefijo o la base de datos
+	 */
+	public Resultado importar(String rutaArchivo, boolean incluirIncompleta) throws AccesoBDException {
+		Path ruta;
+		HuellaArchivo anterior;
+		Estado estado;
+		Resultado resultado;
+		long tamaño, modificado, inicio;
+
+		inicio = System.nanoTime();
+		ruta = Path.of(rutaArchivo).toAbsolutePath().normalize();
+		try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.IMPORTACIÓN)) {
+			if (estáComprimido(ruta)) {
+				resultado = procesarComprimido(ruta, inicio);
+				medición.terminar(resultado.puestosGrabados());
+				return resultado;
+			}
+			tamaño = Files.size(ruta);
+			modificado = Files.getLastModifiedTime(ruta).toMillis();
+			anterior = accesoBD.leerHuella(ruta.toString());
+			estado = clasificar(ruta, anterior, tamaño, modificado);
+
+			if (estado == Estado.SIN_CAMBIOS) {
+				resultado = new Resultado(estado, anterior.prefijo(), 0, 0, 0, List.of(),
+						(System.nanoTime() - inicio) / 1_000_000, anterior);
+			} else {
+				if (estado == Estado.MODIFICADO) {
+					accesoBD.descartarImportación(anterior);
+				}
+				resultado = procesar(ruta, estado == Estado.NUEVO || estado == Estado.MODIFICADO ? null : anterior,
+						estado, tamaño, modificado, inicio, incluirIncompleta);
+			}
+			medición.terminar(resultado.puestosGrabados());
+		} catch (IOException | InventarioException e) {
+			String mensaje = String.format("Error de importación de «%s»: %s", rutaArchivo, e.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, e);
+		}
+		return resultado;
+	}
+
+	/**
+	 * Importa las líneas añadidas a un archivo desde una huella conocida, sin
+	 * consultar el registro: el coste depende solo de las líneas nuevas y del
+	 * resumen de la cola, de tamaño fijo. Pensado para seguir archivos que
+	 * crecen; la última línea queda pendiente mientras no termine en salto de
+	 * línea. Si la cola ya importada no coincide con la huella, el archivo se ha
+	 * reescrito y se procesa como en {@link #importar(String, boolean)}.
+	 *
+	 * @see VigilanteInventario
+	 * @param anterior la huella de la importación anterior del archivo
+	 * @return el resumen de la importación
+	 * @throws AccesoBDException si se produce alguna incidencia en la lectura o la
+	 *                           base de datos
+	 */
+	public Resultado continuar(HuellaArchivo anterior) throws AccesoBDException {
+		Path ruta;
+		Estado estado;
+		Resultado resultado;
+		long tamaño, modificado, inicio;
+
+		inicio = System.nanoTime();
+		ruta = Path.of(anterior.ruta());
+		try {
+			tamaño = Files.size(ruta);
+			modificado = Files.getLastModifiedTime(ruta).toMillis();
+			estado = clasificar(ruta, anterior, tamaño, modificado);
+		} catch (IOException e) {
+			String mensaje = String.format("Error de importación de «%s»: %s", ruta, e.getLocalizedMessage());
+			throw new AccesoBDException(mensaje, e);
+		}
+
+		if (estado == Estado.MODIFICADO) { // Se compara con el registro y se sustituye
+			resultado = importar(anterior.ruta(), false);
+		} else if (estado == Estado.SIN_CAMBIOS) {
+			resultado = new Resultado(estado, anterior.prefijo(), 0, 0, 0, List.of(),
+					(System.nanoTime() - inicio) / 1_000_000, anterior);
+		} else {
+			try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.IMPORTACIÓN)) {
+				resultado = procesar(ruta, anterior, estado, tamaño, modificado, inicio, false);
+				medición.terminar(resultado.puestosGrabados());
+			} catch (IOException | InventarioException e) {
+				String mensaje = String.format("Error de importación de «%s»: %s", ruta, e.getLocalizedMessage());
+				throw new AccesoBDException(mensaje, e);
+			}
+		}
+		return resultado;
+	}
+
+	/**
+	 * Compara un archivo con su huella anterior. Solo lee el archivo si ha cambiado
+	 * su tamaño o fecha, para comprobar que la cola de la parte ya importada sigue
+	 * igual; las huellas sin resumen de la cola se comprueban con el de toda la
+	 * parte importada.
+	 *
+	 * @param ruta       el archivo
+	 * @param anterior   la huella anterior; <code>null</code> si no se había
+	 *                   importado
+	 * @param tamaño     el tamaño actual del archivo
+	 * @param modificado la fecha de modificación actual del archivo
+	 * @return la situación del archivo
+	 * @throws IOException si se produce alguna incidencia en la lectura
+	 */
+	private static Estado clasificar(Path ruta, HuellaArchivo anterior, long tamaño, long modificado)
+			throws IOException {
+		Estado estado;
+		Long resumen;
+
+		if (anterior == null) {
+			estado = Estado.NUEVO;
+		} else if (anterior.estáCompleta() && anterior.tamaño() == tamaño && anterior.modificado() == modificado) {
+			estado = Estado.SIN_CAMBIOS;
+		} else if (anterior.tamaño() == tamaño && anterior.modificado() == modificado) {
+			estado = Estado.REANUDADO;
+		} else if (tamaño >= anterior.posición()) {
+			if (anterior.resumenCola() != null) {
+				resumen = HuellaArchivo.resumirCola(ruta, anterior.posición());
+				estado = anterior.resumenCola().equals(resumen) ? Estado.AMPLIADO : Estado.MODIFICADO;
+			} else {
+				resumen = HuellaArchivo.resumir(ruta, anterior.posición());
+				estado = resumen != null && resumen == anterior.resumen() ? Estado.AMPLIADO : Estado.MODIFICADO;
+			}
+		} else {
+			estado = Estado.MODIFICADO;
+		}
+		return estado;
+	}
+
+	/**
+	 * Lee, valida y graba por bloques las líneas del archivo a partir del comienzo
+	 * o del punto donde terminó la importación anterior. Cada fase de cada bloque
+	 * genera su propio evento JFR. Los códigos que descarta el control de
+	 * duplicados de la base de datos, por estar ya almacenados, se anotan como
+	 * {@link MotivoRechazo#CÓDIGO_DUPLICADO} con su línea. El detalle de las
+	 * líneas descartadas queda por orden de línea.
+	 * 
+	 * @see EventosImportacion
+	 *
+	 * @param ruta       el archivo
+	 * @param anterior   la huella desde la que continuar; <code>null</code> para
+	 *                   leer desde el comienzo
+	 * @param estado     la situación del archivo
+	 * @param tamaño     el tamaño del archivo antes de leerlo
+	 * @param modificado la fecha de modificación del archivo antes de leerlo
+	 * @param inicio     el instante de comienzo de la importación, según
+	 *                   {@link System#nanoTime()}
+	 * @param incluirIncompleta si se importa la última línea aunque no termine en
+	 *                          salto de línea
+	 * @return el resumen de la importación
+	 * @throws IOException        si se produce alguna incidencia en la lectura
+	 * @throws InventarioException si el prefijo no es válido
+	 * @throws AccesoBDException   si se produce alguna incidencia en la base de
+	 *                             datos
+	 */
+	private Resultado procesar(Path ruta, HuellaArchivo anterior, Estado estado, long tamaño, long modificado,
+			long inicio, boolean incluirIncompleta) throws IOException, InventarioException, AccesoBDException {
+		EventosImportacion.Lectura evento;
+		List<Map.Entry<String, PuestoUsuario>> aceptados;
+		List<InventarioAula.Rechazo> rechazos;
+		List<String> bloque, descartados;
+		Set<String> códigosArchivo;
+		Map<String, Integer> posiciones;
+		HuellaArchivo huella;
+		String prefijo, línea;
+		boolean finArchivo = false;
+		int númLínea, puestosGrabados = 0, númRechazos = 0;
+		long posiciónBloque;
+
+		aceptados = new ArrayList<>();
+		rechazos = new ArrayList<>();
+		descartados = new ArrayList<>();
+		códigosArchivo = new HashSet<>();
+		posiciones = new HashMap<>();
+		bloque = new ArrayList<>(tamañoBloque);
+		try (LectorPosicional lector = anterior == null
+				? new LectorPosicional(ruta, 0, HuellaArchivo.RESUMEN_INICIAL, incluirIncompleta)
+				: new LectorPosicional(ruta, anterior.posición(), anterior.resumen(), incluirIncompleta)) {
+			if (anterior == null) {
+				prefijo = lector.leerLínea();
+				if (prefijo == null) {
+					throw new InventarioException(String.format("Archivo «%s» vacío", ruta));
+				}
+				númLínea = 1;
+			} else {
+				prefijo = anterior.prefijo();
+				númLínea = anterior.líneas();
+			}
+			prefijo = InventarioAula.of(prefijo).getPrefijo();
+			accesoBD.activarControlDuplicados();
+
+			do {
+				evento = new EventosImportacion.Lectura();
+				evento.begin();
+				posiciónBloque = lector.getPosición();
+				bloque.clear();
+				while (bloque.size() < tamañoBloque && (línea = lector.leerLínea()) != null) {
+					bloque.add(línea);
+				}
+				finArchivo = bloque.size() < tamañoBloque;
+				evento.end();
+				if (evento.shouldCommit()) {
+					evento.archivo = ruta.toString();
+					evento.líneas = bloque.size();
+					evento.bytes = lector.getPosición() - posiciónBloque;
+					evento.commit();
+				}
+
+				posiciones.clear();
+				númRechazos += validar(prefijo, bloque, númLínea + 1, códigosArchivo, aceptados, posiciones,
+						rechazos);
+
+				// Punto de control: los puestos del bloque y la posición alcanzada, juntos
+				huella = new HuellaArchivo(ruta.toString(), tamaño, modificado, lector.getPosición(),
+						lector.getResumen(), prefijo, númLínea + bloque.size(), lector.getResumenCola());
+				descartados.clear();
+				puestosGrabados += accesoBD.insertarLote(prefijo, aceptados, huella, descartados);
+				númRechazos += anotarDescartados(bloque, númLínea + 1, descartados, posiciones, rechazos);
+				númLínea += bloque.size();
+				aceptados.clear();
+			} while (!finArchivo);
+		}
+		rechazos.sort(Comparator.comparingInt(InventarioAula.Rechazo::númLínea));
+
+		return new Resultado(estado, prefijo, númLínea - (anterior == null ? 1 : anterior.líneas()), puestosGrabados,
+				númRechazos, rechazos, (System.nanoTime() - inicio) / 1_000_000, huella);
+	}
+
+	/**
+	 * Comprueba por sus primeros bytes si un archivo está comprimido.
+	 *
+	 * @see AccesoArchivo.Compresión#deCabecera(int, int)
+	 * @param ruta el archivo
+	 * @return si está comprimido en alguno de los formatos reconocidos
+	 * @throws IOException si no se puede leer
+	 */
+	private static boolean estáComprimido(Path ruta) throws IOException {
+		try (InputStream entrada = Files.newInputStream(ruta)) {
+			return AccesoArchivo.Compresión.deCabecera(entrada.read(),
+					entrada.read()) != AccesoArchivo.Compresión.NINGUNA;
+		}
+	}
+
+	/**
+	 * Lee, valida y graba por bloques todas las líneas de un archivo comprimido,
+	 * descomprimiéndolo al vuelo. Sin posiciones ni resúmenes de bytes que
+	 * anotar, no se consulta ni se modifica el registro de importaciones: cada
+	 * importación lo procesa por completo, y los puestos ya almacenados se
+	 * descartan como {@link MotivoRechazo#CÓDIGO_DUPLICADO}. La última línea se
+	 * importa aunque no termine en salto de línea.
+	 *
+	 * @see AccesoArchivo#abrirLectura()
+	 * @param ruta   el archivo
+	 * @param inicio el instante de comienzo de la importación, según
+	 *               {@link System#nanoTime()}
+	 * @return el resumen de la importación, sin huella
+	 * @throws IOException         si se produce alguna incidencia en la lectura
+	 * @throws InventarioException si el prefijo no es válido
+	 * @throws AccesoBDException   si se produce alguna incidencia en la base de
+	 *                             datos
+	 */
+	private Resultado procesarComprimido(Path ruta, long inicio)
+			throws IOException, InventarioException, AccesoBDException {
+		EventosImportacion.Lectura evento;
+		List<Map.Entry<String, PuestoUsuario>> aceptados;
+		List<InventarioAula.Rechazo> rechazos;
+		List<String> bloque, descartados;
+		Set<String> códigosArchivo;
+		Map<String, Integer> posiciones;
+		String prefijo, línea;
+		boolean finArchivo = false;
+		int númLínea, puestosGrabados = 0, númRechazos = 0;
+
+		aceptados = new ArrayList<>();
+		rechazos = new ArrayList<>();
+		descartados = new ArrayList<>();
+		códigosArchivo = new HashSet<>();
+		posiciones = new HashMap<>();
+		bloque = new ArrayList<>(tamañoBloque);
+		try (BufferedReader lector = new AccesoArchivo(ruta.toString()).abrirLectura()) {
+			prefijo = lector.readLine();
+			if (prefijo == null) {
+				throw new InventarioException(String.format("Archivo «%s» vacío", ruta));
+			}
+			prefijo = InventarioAula.of(prefijo).getPrefijo();
+			númLínea = 1;
+			accesoBD.activarControlDuplicados();
+
+			do {
+				evento = new EventosImportacion.Lectura();
+				evento.begin();
+				bloque.clear();
+				while (bloque.size() < tamañoBloque && (línea = lector.readLine()) != null) {
+					bloque.add(línea);
+				}
+				finArchivo = bloque.size() < tamañoBloque;
+				evento.end();
+				if (evento.shouldCommit()) {
+					evento.archivo = ruta.toString();
+					evento.líneas = bloque.size();
+					evento.commit();
+				}
+
+				posiciones.clear();
+				númRechazos += validar(prefijo, bloque, númLínea + 1, códigosArchivo, aceptados, posiciones,
+						rechazos);
+				descartados.clear();
+				puestosGrabados += accesoBD.insertarLote(prefijo, aceptados, null, descartados);
+				númRechazos += anotarDescartados(bloque, númLínea + 1, descartados, posiciones, rechazos);
+				númLínea += bloque.size();
+				aceptados.clear();
+			} while (!finArchivo);
+		}
+		rechazos.sort(Comparator.comparingInt(InventarioAula.Rechazo::númLínea));
+
+		return new Resultado(Estado.COMPRIMIDO, prefijo, númLínea - 1, puestosGrabados, númRechazos, rechazos,
+				(System.nanoTime() - inicio) / 1_000_000, null);
+	}
+
+	/**
+	 * Anota como {@link MotivoRechazo#CÓDIGO_DUPLICADO} las líneas de un bloque
+	 * cuyos códigos ha descartado el control de duplicados de la base de datos,
+	 * por estar ya almacenados.
+	 *
+	 * @param bloque       las líneas del bloque
+	 * @param primeraLínea el número de la primera línea del bloque en el archivo
+	 * @param descartados  los códigos descartados
+	 * @param posiciones   la posición en el bloque de la línea de cada código
+	 * @param rechazos     la lista donde anotar las líneas descartadas, hasta
+	 *                     {@link #MÁX_RECHAZOS_ANOTADOS}
+	 * @return el número de líneas descartadas
+	 */
+	private static int anotarDescartados(List<String> bloque, int primeraLínea, List<String> descartados,
+			Map<String, Integer> posiciones, List<InventarioAula.Rechazo> rechazos) {
+		int posición;
+
+		for (String código : descartados) {
+			posición = posiciones.get(código);
+			if (rechazos.size() < MÁX_RECHAZOS_ANOTADOS) {
+				rechazos.add(new InventarioAula.Rechazo(primeraLínea + posición, MotivoRechazo.CÓDIGO_DUPLICADO,
+						bloque.get(posición)));
+			}
+		}
+		return descartados.size();
+	}
+
+	/**
+	 * Despieza y valida un bloque de líneas en un inventario propio del bloque, de
+	 * modo que la memoria no crece con los datos de los puestos del archivo. Los
+	 * códigos ya aceptados en bloques anteriores se descartan como duplicados.
+	 *
+	 * @param prefijo        el prefijo del aula, ya normalizado
+	 * @param bloque         las líneas del bloque
+	 * @param primeraLínea   el número de la primera línea del bloque en el
+	 *                       archivo
+	 * @param códigosArchivo los códigos aceptados hasta ahora en la importación;
+	 *                       se añaden los del bloque
+	 * @param aceptados      la lista donde añadir los puestos aceptados, ya
+	 *                       normalizados
+	 * @param posiciones     dónde anotar la posición en el bloque de la línea de
+	 *                       cada código aceptado
+	 * @param rechazos       la lista donde anotar las líneas descartadas, hasta
+	 *                       {@link #MÁX_RECHAZOS_ANOTADOS}
+	 * @return el número de líneas descartadas del bloque
+	 * @throws InventarioException si el prefijo no es válido
+	 */
+	private static int validar(String prefijo, List<String> bloque, int primeraLínea, Set<String> códigosArchivo,
+			List<Map.Entry<String, PuestoUsuario>> aceptados, Map<String, Integer> posiciones,
+			List<InventarioAula.Rechazo> rechazos) throws InventarioException {
+		EventosImportacion.Validación evento;
+		InventarioAula aula;
+		MotivoRechazo motivo;
+		String línea, código = null;
+		String[] campos;
+		int númRechazos = 0, númAceptados = 0;
+
+		evento = new EventosImportacion.Validación();
+		evento.begin();
+		aula = InventarioAula.of(prefijo);
+		for (int i = 0; i < bloque.size(); i++) {
+			línea = bloque.get(i);
+			if (!línea.isBlank()) {
+				campos = InventarioAula.despiezarLínea(línea);
+				if (campos == null) {
+					motivo = MotivoRechazo.FORMATO_INCORRECTO;
+				} else {
+					motivo = aula.intentarAñadir(campos[0], new PuestoUsuario(campos[1], campos[2], campos[3]));
+					código = NormalizadorTexto.recortarMayúsculas(campos[0]);
+					if (motivo == null && !códigosArchivo.add(código)) { // De un bloque anterior
+						motivo = MotivoRechazo.CÓDIGO_DUPLICADO;
+					}
+				}
+
+				if (motivo == null) {
+					aceptados.add(Map.entry(código, aula.get(código)));
+					posiciones.put(código, i);
+					númAceptados++;
+				} else {
+					if (rechazos.size() < MÁX_RECHAZOS_ANOTADOS) {
+						rechazos.add(new InventarioAula.Rechazo(primeraLínea + i, motivo, línea));
+					}
+					númRechazos++;
+				}
+			}
+		}
+
+		evento.end();
+		if (evento.shouldCommit()) {
+			evento.prefijo = prefijo;
+			evento.líneas = bloque.size();
+			evento.aceptados = númAceptados;
+			evento.rechazados = númRechazos;
+			evento.commit();
+		}
+		return númRechazos;
+	}
+
+}
@@ -0,0 +1,161 @@
+package jcolonia.daw2024.e3b;
+
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Índices secundarios en memoria de un {@link InventarioAula}: búsqueda exacta
+ * por identificación del equipo informático y búsqueda ordenada por prefijo
+ * sobre el nombre y los apellidos del usuario, sin distinguir mayúsculas,
+ * minúsculas ni tildes. Se mantienen de forma incremental al añadir, sustituir
+ * o retirar puestos.
+ *
+ * @see InventarioAula#activarÍndices()
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+class IndicesPuestos {
+	/** Separador entre el texto normalizado y el código en las claves ordenadas. */
+	private static final char SEPARADOR_CLAVE = '\u0000';
+
+	/** Marcas diacríticas –tildes, diéresis…– tras la descomposición Unicode. */
+	private static final Pattern MARCAS_DIACRÍTICAS = Pattern.compile("\\p{M}+");
+
+	/** Códigos de puesto agrupados por identificación del equipo. */
+	private final Map<String, Set<String>> índiceOrdenador;
+
+	/**
+	 * Códigos de puesto ordenados por nombre y por apellidos normalizados. Cada
+	 * puesto aparece dos veces: con la clave de su nombre y con la de sus
+	 * apellidos.
+	 */
+	private final NavigableMap<String, String> índiceUsuario;
+
+	/** Crea los índices, vacíos. */
+	IndicesPuestos() {
+		índiceOrdenador = new HashMap<>();
+		índiceUsuario = new TreeMap<>();
+	}
+
+	/**
+	 * Crea una copia independiente de otros índices.
+	 *
+	 * @param original los índices a copiar
+	 */
+	private IndicesPuestos(IndicesPuestos original) {
+		índiceOrdenador = new HashMap<>(original.índiceOrdenador.size() * 4 / 3 + 1);
+		for (Map.Entry<String, Set<String>> entrada : original.índiceOrdenador.entrySet()) {
+			índiceOrdenador.put(entrada.getKey(), new TreeSet<>(entrada.getValue()));
+		}
+		índiceUsuario = new TreeMap<>(original.índiceUsuario);
+	}
+
+	/**
+	 * Genera una copia independiente de los índices.
+	 *
+	 * @return la copia generada
+	 */
+	IndicesPuestos copiar() {
+		return new IndicesPuestos(this);
+	}
+
+	/**
+	 * Incorpora un puesto a los índices. Los datos deben estar ya normalizados.
+	 *
+	 * @param códigoPuesto el código del puesto
+	 * @param datosPuesto  el resto de datos del puesto
+	 */
+	void añadir(String códigoPuesto, PuestoUsuario datosPuesto) {
+		índiceOrdenador.computeIfAbsent(datosPuesto.ordenador(), clave -> new TreeSet<>()).add(códigoPuesto);
+		índiceUsuario.put(normalizarClave(datosPuesto.nombre()) + SEPARADOR_CLAVE + códigoPuesto, códigoPuesto);
+		índiceUsuario.put(normalizarClave(datosPuesto.apellidos()) + SEPARADOR_CLAVE + códigoPuesto, códigoPuesto);
+	}
+
+	/**
+	 * Elimina un puesto de los índices.
+	 *
+	 * @param códigoPuesto el código del puesto
+	 * @param datosPuesto  los datos con los que se incorporó
+	 */
+	void retirar(String códigoPuesto, PuestoUsuario datosPuesto) {
+		Set<String> códigos;
+
+		códigos = índiceOrdenador.get(datosPuesto.ordenador());
+		if (códigos != null) {
+			códigos.remove(códigoPuesto);
+			if (códigos.isEmpty()) {
+				índiceOrdenador.remove(datosPuesto.ordenador());
+			}
+		}
+		índiceUsuario.remove(normalizarClave(datosPuesto.nombre()) + SEPARADOR_CLAVE + códigoPuesto);
+		índiceUsuario.remove(normalizarClave(datosPuesto.apellidos()) + SEPARADOR_CLAVE + códigoPuesto);
+	}
+
+	/**
+	 * Localiza los puestos asignados a un equipo informático.
+	 *
+	 * @param ordenador la identificación exacta del equipo
+	 * @return una copia inmutable de los códigos correspondientes, en orden; vacío
+	 *         si no hay ninguno
+	 */
+	Set<String> buscarPorOrdenador(String ordenador) {
+		Set<String> códigos;
+
+		códigos = índiceOrdenador.get(ordenador);
+		return códigos == null ? Set.of() : Collections.unmodifiableSet(new TreeSet<>(códigos));
+	}
+
+	/**
+	 * Localiza los puestos cuyo usuario tiene un nombre o unos apellidos que
+	 * comienzan por un texto, sin distinguir mayúsculas, minúsculas ni tildes.
+	 *
+	 * @param prefijo el comienzo del nombre o de los apellidos
+	 * @return los códigos correspondientes, sin repeticiones, ordenados
+	 *         alfabéticamente por el nombre o apellidos coincidentes
+	 */
+	List<String> buscarPorUsuario(String prefijo) {
+		String desde;
+		Set<String> códigos;
+
+		desde = normalizarClave(prefijo);
+		códigos = new LinkedHashSet<>();
+		códigos.addAll(índiceUsuario.subMap(desde, true, desde + Character.MAX_VALUE, false).values());
+		return List.copyOf(códigos);
+	}
+
+	/**
+	 * Normaliza un texto para comparaciones insensibles a mayúsculas, minúsculas y
+	 * tildes: recorta los espacios, elimina las marcas diacríticas y lo transforma
+	 * en mayúsculas. La «Ñ» se conserva como letra propia. Los textos con solo
+	 * caracteres ASCII se resuelven sin descomposición Unicode.
+	 *
+	 * @param texto el texto original
+	 * @return el texto normalizado
+	 */
+	static String normalizarClave(String texto) {
+		String clave;
+		boolean ascii = true;
+
+		for (int i = 0; i < texto.length() && ascii; i++) {
+			ascii = texto.charAt(i) < 0x80;
+		}
+
+		clave = texto.trim();
+		if (!ascii) {
+			clave = Normalizer.normalize(clave.replace('ñ', '\u0001').replace('Ñ', '\u0001'), Normalizer.Form.NFD);
+			clave = MARCAS_DIACRÍTICAS.matcher(clave).replaceAll("").replace('\u0001', 'Ñ');
+		}
+		return clave.toUpperCase(Locale.ROOT);
+	}
+}
@@ -1,12 +1,18 @@
 package jcolonia.daw2024.e3b;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Relación de equipos informáticos de un aula o despacho. Implementación basada
@@ -19,6 +25,16 @@ import java.util.Set;
  * @version 09.08 (20250525000)
  */
 public class InventarioAula {
+	/**
+	 * Línea descartada al importar un aula.
+	 * 
+	 * @param númLínea el número de la línea en el archivo, a partir de uno
+	 * @param motivo   la causa del descarte
+	 * @param línea    el texto original de la línea
+	 */
+	public record Rechazo(int númLínea, MotivoRechazo motivo, String línea) {
+	}
+
 	/** Separador usado al exportar/importar en archivos de texto */
 	private static final String SEPARADOR_CSV = "##";
 	/** Formato de línea empleado para listados de texto. */
@@ -47,6 +63,37 @@ public class InventarioAula {
 	 */
 	private Map<String, PuestoUsuario> listaPuestos;
 
+	/**
+	 * Indica si el inventario está bloqueado frente a modificaciones. Se activa
+	 * únicamente en las copias generadas con {@link #congelar()}.
+	 */
+	private boolean soloLectura;
+
+	/**
+	 * Tabla de los pares código–datos de un inventario de solo lectura, preparada
+	 * una sola vez al congelarlo para sus recorridos; <code>null</code> en los
+	 * demás.
+	 * 
+	 * @see #recorrerPuestos()
+	 */
+	private Object[] tablaPuestos;
+
+	/**
+	 * Índices secundarios por equipo y por usuario; <code>null</code> mientras no
+	 * se activen.
+	 * 
+	 * @see #activarÍndices()
+	 */
+	private IndicesPuestos índices;
+
+	/**
+	 * Destinatarios de los cambios en los puestos; <code>null</code> mientras no
+	 * se registre ninguno.
+	 * 
+	 * @see #añadirObservador(CambioInventario.Observador)
+	 */
+	private List<CambioInventario.Observador> observadores;
+
 	static {
 		FORMATO_EXPORTACIÓN_CSV = String.format("%%s%1$s%%s%1$s%%s%1$s%%s", SEPARADOR_CSV);
 	}
@@ -61,6 +108,20 @@ public class InventarioAula {
 		listaPuestos = new HashMap<>();
 	}
 
+	/**
+	 * Inicializa el prefijo de aula y reutiliza una colección ya existente.
+	 * 
+	 * @param prefijo     el texto correspondiente al prefijo obligatorio, ya
+	 *                    normalizado
+	 * @param puestos     la colección de puestos a emplear
+	 * @param soloLectura si el inventario queda bloqueado frente a modificaciones
+	 */
+	private InventarioAula(String prefijo, Map<String, PuestoUsuario> puestos, boolean soloLectura) {
+		this.prefijoAula = prefijo;
+		this.listaPuestos = puestos;
+		this.soloLectura = soloLectura;
+	}
+
 	/**
 	 * Crea un aula vacía con un prefijo determinado. El prefijo se almacena en
 	 * mayúsculas, quitando los espacios iniciales y finales.
@@ -82,25 +143,50 @@ public class InventarioAula {
 			throw new InventarioException("Longitud de prefijo debe estar entre [2, 4]");
 		}
 
-		prefijo = prefijo.toUpperCase(Locale.of("es", "ES"));
+		prefijo = prefijo.toUpperCase(NormalizadorTexto.LOCALE_ES);
 
 		aulaGenerada = new InventarioAula(prefijo);
 		return aulaGenerada;
 	}
 
 	/**
-	 * Crea un aula con los datos recogidos de un archivo de exportación.
+	 * Crea un aula con los datos recogidos de un archivo de exportación. Las líneas
+	 * corruptas se descartan.
 	 * 
 	 * @see #generarListadoCSV()
+	 * @see #of(List, List)
 	 * @param listaImportada volcado de las líneas del archivo
 	 * 
 	 * @return la nueva aula creada
 	 * @throws InventarioException si se produce algún error fatal en la importación
 	 */
 	public static InventarioAula of(List<String> listaImportada) throws InventarioException {
+		return of(listaImportada, null);
+	}
+
+	/**
+	 * Crea un aula con los datos recogidos de un archivo de exportación. Las líneas
+	 * corruptas se descartan sin generar excepciones y, opcionalmente, se anotan
+	 * con su número de línea y el motivo. Las líneas en blanco se ignoran.
+	 * 
+	 * @see #generarListadoCSV()
+	 * @param listaImportada volcado de las líneas del archivo
+	 * @param rechazos       la lista donde anotar las líneas descartadas;
+	 *                       <code>null</code> si no se desea
+	 * 
+	 * @return la nueva aula creada
+	 * @throws InventarioException si se produce algún error fatal en la importación
+	 */
+	public static InventarioAula of(List<String> listaImportada, List<Rechazo> rechazos)
+			throws InventarioException {
+		EventosImportacion.Validación evento;
 		InventarioAula aulaImportada;
-		String prefijo, despiece[];
+		MotivoRechazo motivo;
+		String prefijo, línea, despiece[];
+		int númRechazos = 0;
 
+		evento = new EventosImportacion.Validación();
+		evento.begin();
 		prefijo = listaImportada.get(0);
 		if (prefijo == null) {
 			throw new InventarioException("Prefijo requerido en la primera línea");
@@ -111,24 +197,134 @@ public class InventarioAula {
 			throw new InventarioException("Longitud de prefijo debe estar entre [2, 4]");
 		}
 
-		prefijo = prefijo.toUpperCase(Locale.of("es", "ES"));
+		prefijo = prefijo.toUpperCase(NormalizadorTexto.LOCALE_ES);
 
 		aulaImportada = new InventarioAula(prefijo);
 
 		for (int i = 1; i < listaImportada.size(); i++) { // Descartando línea 0 del prefijo
-			try {
-				despiece = listaImportada.get(i).split(SEPARADOR_CSV);
-				if (despiece.length == 4) {
-					aulaImportada.añadir(despiece[0], new PuestoUsuario(despiece[1], despiece[2], despiece[3]));
+			línea = listaImportada.get(i);
+			if (línea != null && !línea.isBlank()) {
+				despiece = despiezarLínea(línea);
+				if (despiece == null) {
+					motivo = MotivoRechazo.FORMATO_INCORRECTO;
+				} else {
+					motivo = aulaImportada.intentarAñadir(despiece[0],
+							new PuestoUsuario(despiece[1], despiece[2], despiece[3]));
+				}
+
+				if (motivo != null) {
+					númRechazos++;
+					if (rechazos != null) { // Línea corrupta: anotar y seguir…
+						rechazos.add(new Rechazo(i + 1, motivo, línea));
+					}
 				}
-			} catch (InventarioException e) {
-				// Línea corrupta: saltar y seguir…
 			}
 		}
 
+		evento.end();
+		if (evento.shouldCommit()) {
+			evento.prefijo = prefijo;
+			evento.líneas = listaImportada.size() - 1;
+			evento.aceptados = aulaImportada.getNúmElementos();
+			evento.rechazados = númRechazos;
+			evento.commit();
+		}
 		return aulaImportada;
 	}
 
+	/**
+	 * Separa los cuatro campos de una línea de exportación sin emplear expresiones
+	 * regulares.
+	 * 
+	 * @see #SEPARADOR_CSV
+	 * @param línea el texto de la línea
+	 * @return los cuatro campos; <code>null</code> si la línea no contiene
+	 *         exactamente cuatro campos
+	 */
+	static String[] despiezarLínea(String línea) {
+		String[] despiece;
+		int inicio, fin, campo;
+
+		despiece = new String[4];
+		inicio = 0;
+		for (campo = 0; campo < 3 && inicio >= 0; campo++) {
+			fin = línea.indexOf(SEPARADOR_CSV, inicio);
+			if (fin < 0) {
+				inicio = -1;
+			} else {
+				despiece[campo] = línea.substring(inicio, fin);
+				inicio = fin + SEPARADOR_CSV.length();
+			}
+		}
+
+		if (inicio < 0 || línea.indexOf(SEPARADOR_CSV, inicio) >= 0) {
+			despiece = null;
+		} else {
+			despiece[3] = línea.substring(inicio);
+		}
+		return despiece;
+	}
+
+	/**
+	 * Facilita el prefijo común obligatorio del aula, ya normalizado.
+	 * 
+	 * @return el texto correspondiente
+	 */
+	public String getPrefijo() {
+		return prefijoAula;
+	}
+
+	/**
+	 * Informa si el inventario está bloqueado frente a modificaciones.
+	 * 
+	 * @see #congelar()
+	 * @return sí o no es de solo lectura
+	 */
+	public boolean esSoloLectura() {
+		return soloLectura;
+	}
+
+	/**
+	 * Genera una copia modificable e independiente del inventario, con el mismo
+	 * prefijo y los mismos puestos. Permite preparar una nueva versión sin alterar
+	 * la original.
+	 * 
+	 * @return la copia generada
+	 */
+	public InventarioAula copiar() {
+		InventarioAula copia;
+
+		copia = new InventarioAula(prefijoAula, new HashMap<>(listaPuestos), false);
+		if (índices != null) {
+			copia.índices = índices.copiar();
+		}
+		return copia;
+	}
+
+	/**
+	 * Genera una copia inmutable del inventario, apta para ser compartida entre
+	 * hilos sin sincronización. Si el inventario ya es de solo lectura se devuelve
+	 * el mismo objeto.
+	 * 
+	 * @see InventarioVersionado
+	 * @return la copia inmutable
+	 */
+	public InventarioAula congelar() {
+		InventarioAula copia;
+
+		if (soloLectura) {
+			copia = this;
+		} else {
+			copia = new InventarioAula(prefijoAula, Collections.unmodifiableMap(new HashMap<>(listaPuestos)),
+					true);
+			copia.tablaPuestos = copia.listaPuestos.entrySet().toArray();
+			if (índices != null) {
+				copia.índices = índices.copiar();
+			}
+		}
+		return copia;
+	}
+
 	/**
 	 * Informa si la relación está vacía.
 	 * 
@@ -167,31 +363,264 @@ public class InventarioAula {
 	 * @param datosPuesto  el resto de datos del nuevo puesto
 	 * @throws InventarioException si alguno de los datos facilitados hubiera
 	 *                             quedado vacío, si el código del puesto no es
-	 *                             válido o si ya estaba presente.
+	 *                             válido, si ya estaba presente o si el
+	 *                             inventario es de solo lectura.
 	 */
 	public void añadir(String códigoPuesto, PuestoUsuario datosPuesto) throws InventarioException {
+		MotivoRechazo motivo;
+
+		motivo = intentarAñadir(códigoPuesto, datosPuesto);
+		if (motivo != null) {
+			códigoPuesto = NormalizadorTexto.recortarMayúsculas(códigoPuesto);
+			throw motivo.generarExcepción(códigoPuesto, prefijoAula);
+		}
+	}
+
+	/**
+	 * Incorpora un nuevo puesto a la relación sin generar excepciones. Aplica la
+	 * misma normalización y las mismas comprobaciones que
+	 * {@link #añadir(String, PuestoUsuario)}.
+	 * 
+	 * @param códigoPuesto el código del nuevo puesto
+	 * @param datosPuesto  el resto de datos del nuevo puesto
+	 * @return <code>null</code> si se ha incorporado; si no, el motivo del rechazo
+	 */
+	MotivoRechazo intentarAñadir(String códigoPuesto, PuestoUsuario datosPuesto) {
+		MotivoRechazo motivo = null;
 		String nombre, apellidos, ordenador;
-		String mensaje;
 
-		códigoPuesto = normalizarTexto(códigoPuesto, "Código de puesto requerido");
-		códigoPuesto = códigoPuesto.toUpperCase(Locale.of("es", "ES"));
+		códigoPuesto = NormalizadorTexto.recortarMayúsculas(códigoPuesto);
+
+		if (soloLectura) {
+			motivo = MotivoRechazo.SOLO_LECTURA;
+		} else if (códigoPuesto.isEmpty()) {
+			motivo = MotivoRechazo.CÓDIGO_REQUERIDO;
+		} else if (!códigoPuesto.startsWith(prefijoAula)) {
+			motivo = MotivoRechazo.CÓDIGO_AJENO;
+		} else if (listaPuestos.containsKey(códigoPuesto)) {
+			motivo = MotivoRechazo.CÓDIGO_DUPLICADO;
+		} else if (datosPuesto == null) {
+			motivo = MotivoRechazo.DATOS_REQUERIDOS;
+		} else {
+			nombre = NormalizadorTexto.recortar(datosPuesto.nombre());
+			apellidos = NormalizadorTexto.recortar(datosPuesto.apellidos());
+			ordenador = NormalizadorTexto.recortar(datosPuesto.ordenador());
+
+			if (nombre.isEmpty()) {
+				motivo = MotivoRechazo.NOMBRE_REQUERIDO;
+			} else if (apellidos.isEmpty()) {
+				motivo = MotivoRechazo.APELLIDOS_REQUERIDOS;
+			} else if (ordenador.isEmpty()) {
+				motivo = MotivoRechazo.ORDENADOR_REQUERIDO;
+			} else {
+				if (nombre != datosPuesto.nombre() || apellidos != datosPuesto.apellidos()
+						|| ordenador != datosPuesto.ordenador()) { // Solo si ha cambiado algún campo
+					datosPuesto = new PuestoUsuario(ordenador, nombre, apellidos);
+				}
+				listaPuestos.put(códigoPuesto, datosPuesto);
+				if (índices != null) {
+					índices.añadir(códigoPuesto, datosPuesto);
+				}
+				if (observadores != null) {
+					notificar(new CambioInventario(CambioInventario.Tipo.AÑADIDO, códigoPuesto, null, datosPuesto));
+				}
+			}
+		}
 
-		if (!códigoPuesto.startsWith(prefijoAula)) {
-			mensaje = String.format("Código de puesto «%s» no corresponde a la relación «%s»", códigoPuesto,
-					prefijoAula);
-			throw new InventarioException(mensaje);
+		return motivo;
+	}
+
+	/**
+	 * Sustituye los datos de un puesto ya presente, con la misma normalización y
+	 * las mismas comprobaciones que {@link #añadir(String, PuestoUsuario)}. Si el
+	 * puesto no estaba presente, se añade.
+	 * 
+	 * @param códigoPuesto el código del puesto
+	 * @param datosPuesto  los nuevos datos del puesto
+	 * @throws InventarioException si alguno de los datos facilitados hubiera
+	 *                             quedado vacío, si el código del puesto no es
+	 *                             válido o si el inventario es de solo lectura.
+	 */
+	public void sustituir(String códigoPuesto, PuestoUsuario datosPuesto) throws InventarioException {
+		InventarioAula comprobación;
+		PuestoUsuario anterior;
+		MotivoRechazo motivo;
+
+		códigoPuesto = NormalizadorTexto.recortarMayúsculas(códigoPuesto);
+		anterior = listaPuestos.get(códigoPuesto);
+		if (anterior == null || soloLectura) {
+			añadir(códigoPuesto, datosPuesto);
+		} else {
+			comprobación = new InventarioAula(prefijoAula); // Normaliza sin alterar el inventario
+			motivo = comprobación.intentarAñadir(códigoPuesto, datosPuesto);
+			if (motivo != null) {
+				throw motivo.generarExcepción(códigoPuesto, prefijoAula);
+			}
+			datosPuesto = comprobación.listaPuestos.get(códigoPuesto);
+
+			listaPuestos.put(códigoPuesto, datosPuesto);
+			if (índices != null) {
+				índices.retirar(códigoPuesto, anterior);
+				índices.añadir(códigoPuesto, datosPuesto);
+			}
+			if (observadores != null) {
+				notificar(new CambioInventario(CambioInventario.Tipo.MODIFICADO, códigoPuesto, anterior, datosPuesto));
+			}
 		}
+	}
 
-		if (listaPuestos.containsKey(códigoPuesto)) {
-			mensaje = String.format("Código de puesto «%s» duplicado", códigoPuesto);
-			throw new InventarioException(mensaje);
+	/**
+	 * Retira un puesto de la relación.
+	 * 
+	 * @param códigoPuesto el código del puesto
+	 * @return los datos del puesto retirado; <code>null</code> si no estaba
+	 *         presente
+	 * @throws InventarioException si el inventario es de solo lectura
+	 */
+	public PuestoUsuario retirar(String códigoPuesto) throws InventarioException {
+		PuestoUsuario anterior;
+
+		códigoPuesto = NormalizadorTexto.recortarMayúsculas(códigoPuesto);
+		if (soloLectura) {
+			throw MotivoRechazo.SOLO_LECTURA.generarExcepción(códigoPuesto, prefijoAula);
+		}
+		anterior = listaPuestos.remove(códigoPuesto);
+		if (anterior != null) {
+			if (índices != null) {
+				índices.retirar(códigoPuesto, anterior);
+			}
+			if (observadores != null) {
+				notificar(new CambioInventario(CambioInventario.Tipo.RETIRADO, códigoPuesto, anterior, null));
+			}
+		}
+		return anterior;
+	}
+
+	/**
+	 * Registra un destinatario de los cambios en los puestos: se le avisa de cada
+	 * puesto añadido, sustituido o retirado. Las copias del inventario no
+	 * conservan los observadores.
+	 * 
+	 * @see DespachadorCambios
+	 * @param observador el destinatario
+	 */
+	public void añadirObservador(CambioInventario.Observador observador) {
+		if (observadores == null) {
+			observadores = new ArrayList<>();
+		}
+		observadores.add(observador);
+	}
+
+	/**
+	 * Da de baja un destinatario de los cambios en los puestos.
+	 * 
+	 * @param observador el destinatario
+	 */
+	public void retirarObservador(CambioInventario.Observador observador) {
+		if (observadores != null) {
+			observadores.remove(observador);
+			if (observadores.isEmpty()) {
+				observadores = null;
+			}
+		}
+	}
+
+	/**
+	 * Avisa de un cambio a todos los observadores.
+	 * 
+	 * @param cambio el cambio realizado
+	 */
+	private void notificar(CambioInventario cambio) {
+		for (CambioInventario.Observador observador : observadores) {
+			observador.notificar(cambio);
+		}
+	}
+
+	/**
+	 * Activa los índices secundarios por identificación del equipo y por nombre y
+	 * apellidos del usuario, cargando los puestos ya presentes. A partir de ese
+	 * momento se mantienen al {@link #añadir(String, PuestoUsuario) añadir} nuevos
+	 * puestos. Si ya estaban activos no hace nada.
+	 * <div>Un inventario de {@link #congelar() solo lectura} conserva los índices
+	 * que tuviera el original al congelarse, pero no admite activarlos después:
+	 * puede estar compartido entre hilos sin sincronización.</div>
+	 * 
+	 * @see #buscarPorOrdenador(String)
+	 * @see #buscarPorUsuario(String)
+	 * @throws InventarioException si el inventario es de solo lectura y no tenía
+	 *                             los índices activos
+	 */
+	public void activarÍndices() throws InventarioException {
+		IndicesPuestos nuevosÍndices;
+
+		if (índices == null) {
+			if (soloLectura) {
+				throw MotivoRechazo.SOLO_LECTURA.generarExcepción(null, prefijoAula);
+			}
+			nuevosÍndices = new IndicesPuestos();
+			for (Map.Entry<String, PuestoUsuario> entrada : listaPuestos.entrySet()) {
+				nuevosÍndices.añadir(entrada.getKey(), entrada.getValue());
+			}
+			índices = nuevosÍndices;
 		}
+	}
+
+	/**
+	 * Informa si los índices secundarios están activos.
+	 * 
+	 * @return sí o no están activos
+	 */
+	public boolean tieneÍndices() {
+		return índices != null;
+	}
 
-		verificarNulo(datosPuesto, "Datos de puesto requeridos");
-		nombre = normalizarTexto(datosPuesto.nombre(), "Nombre del usuario habitual requerido");
-		apellidos = normalizarTexto(datosPuesto.apellidos(), "Apellidos del usuario habitual requeridos");
-		ordenador = normalizarTexto(datosPuesto.ordenador(), "Identificación del equipo informático requerida");
-		listaPuestos.put(códigoPuesto, new PuestoUsuario(ordenador, nombre, apellidos));
+	/**
+	 * Localiza los puestos asignados a un equipo informático. Con los índices
+	 * activos la consulta es directa; sin ellos recorre todos los puestos.
+	 * 
+	 * @param ordenador la identificación exacta del equipo
+	 * @return una copia inmutable con los códigos correspondientes; vacío si no
+	 *         hay ninguno
+	 */
+	public Set<String> buscarPorOrdenador(String ordenador) {
+		Set<String> códigos;
+
+		if (ordenador == null) {
+			códigos = Set.of();
+		} else if (índices != null) {
+			códigos = índices.buscarPorOrdenador(ordenador.trim());
+		} else {
+			códigos = stream().filter(entrada -> entrada.getValue().ordenador().equals(ordenador.trim()))
+					.map(Map.Entry::getKey).collect(Collectors.toUnmodifiableSet());
+		}
+		return códigos;
+	}
+
+	/**
+	 * Localiza los puestos cuyo usuario tiene un nombre o unos apellidos que
+	 * comienzan por un texto, sin distinguir mayúsculas, minúsculas ni tildes. Con
+	 * los índices activos la consulta es directa y el resultado sale ordenado
+	 * alfabéticamente; sin ellos recorre todos los puestos, sin orden definido.
+	 * 
+	 * @param prefijo el comienzo del nombre o de los apellidos
+	 * @return los códigos correspondientes; vacío si no hay ninguno
+	 */
+	public List<String> buscarPorUsuario(String prefijo) {
+		List<String> códigos;
+		String clave;
+
+		if (prefijo == null) {
+			códigos = List.of();
+		} else if (índices != null) {
+			códigos = índices.buscarPorUsuario(prefijo);
+		} else {
+			clave = IndicesPuestos.normalizarClave(prefijo);
+			códigos = stream()
+					.filter(entrada -> IndicesPuestos.normalizarClave(entrada.getValue().nombre()).startsWith(clave)
+							|| IndicesPuestos.normalizarClave(entrada.getValue().apellidos()).startsWith(clave))
+					.map(Map.Entry::getKey).toList();
+		}
+		return códigos;
 	}
 
 	/**
@@ -206,6 +635,58 @@ public class InventarioAula {
 		return Collections.unmodifiableSet(listaCódigos);
 	}
 
+	/**
+	 * Facilita un flujo secuencial con todos los puestos presentes, como pares
+	 * código–datos inmutables. Recorre directamente la colección interna, sin
+	 * copiarla: el inventario no debe modificarse mientras tanto, salvo que sea
+	 * de {@link #congelar() solo lectura}.
+	 * 
+	 * @see #recorrerPuestos()
+	 * @return el flujo correspondiente
+	 */
+	public Stream<Map.Entry<String, PuestoUsuario>> stream() {
+		return StreamSupport.stream(recorrerPuestos(), false);
+	}
+
+	/**
+	 * Facilita un flujo paralelo con todos los puestos presentes, como pares
+	 * código–datos inmutables. Las mismas condiciones que en {@link #stream()}.
+	 * 
+	 * @see #recorrerPuestos()
+	 * @return el flujo correspondiente
+	 */
+	public Stream<Map.Entry<String, PuestoUsuario>> parallelStream() {
+		return StreamSupport.stream(recorrerPuestos(), true);
+	}
+
+	/**
+	 * Prepara un recorrido divisible de los puestos, apto para flujos paralelos,
+	 * sin copiar la colección.
+	 * <div>Un inventario de solo lectura recorre la tabla de pares preparada al
+	 * congelarlo. Una tabla se divide siempre por la mitad exacta, así que tanto
+	 * el recorrido como cada una de sus partes conocen su tamaño: declara las
+	 * características {@link Spliterator#SIZED SIZED},
+	 * {@link Spliterator#SUBSIZED SUBSIZED}, {@link Spliterator#DISTINCT
+	 * DISTINCT}, {@link Spliterator#NONNULL NONNULL} e
+	 * {@link Spliterator#IMMUTABLE IMMUTABLE}.</div> <div>Los demás recorren
+	 * directamente la colección interna, a través de una vista no modificable:
+	 * no son inmutables, y sus partes no conservan el tamaño tras la primera
+	 * división.</div>
+	 * 
+	 * @return el recorrido correspondiente
+	 */
+	private Spliterator<Map.Entry<String, PuestoUsuario>> recorrerPuestos() {
+		Spliterator<Map.Entry<String, PuestoUsuario>> recorrido;
+
+		if (tablaPuestos != null) {
+			recorrido = Spliterators.spliterator(tablaPuestos,
+					Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+		} else {
+			recorrido = Collections.unmodifiableMap(listaPuestos).entrySet().spliterator();
+		}
+		return recorrido;
+	}
+
 	/**
 	 * Genera un listado de textos con una línea por cada puesto presente en la
 	 * relación.
@@ -249,6 +730,19 @@ public class InventarioAula {
 		return Collections.unmodifiableList(listaPublicable);
 	}
 
+	/**
+	 * Genera el mismo listado que {@link #generarListadoTexto()} bajo demanda:
+	 * cada línea se compone al recorrerla, sin reunir el listado en memoria. Las
+	 * mismas restricciones que en {@link #stream()}.
+	 * 
+	 * @see VistaGeneral#mostrarListado(Stream)
+	 * @return el flujo de líneas de texto
+	 */
+	public Stream<String> streamListadoTexto() {
+		return stream().map(puesto -> String.format(FORMATO_LISTADO_TEXTO, puesto.getKey(),
+				puesto.getValue().ordenador(), puesto.getValue().nombre(), puesto.getValue().apellidos()));
+	}
+
 	/**
 	 * Genera un listado de textos con una línea por cada puesto presente en la
 	 * relación en formato para exportar a un archivo de estilo CSV. La primera
@@ -266,6 +760,27 @@ public class InventarioAula {
 		return Collections.unmodifiableList(listaExportable);
 	}
 
+	/**
+	 * Escribe la línea de exportación de un puesto, con el mismo formato que
+	 * {@link #generarListadoCSV()} y su salto de línea, directamente sobre la
+	 * salida y sin componer textos intermedios.
+	 * 
+	 * @param salida el destino
+	 * @param código el código del puesto
+	 * @param puesto los datos del puesto
+	 * @throws IOException si no se puede escribir
+	 */
+	static void escribirLíneaCSV(Writer salida, String código, PuestoUsuario puesto) throws IOException {
+		salida.write(código);
+		salida.write(SEPARADOR_CSV);
+		salida.write(puesto.ordenador());
+		salida.write(SEPARADOR_CSV);
+		salida.write(puesto.nombre());
+		salida.write(SEPARADOR_CSV);
+		salida.write(puesto.apellidos());
+		salida.write(System.lineSeparator());
+	}
+
 	/**
 	 * Genera una descripción de la relación incluyendo el prefijo obligatorio común
 	 * y el número de elementos.<div>Ejemplo:
@@ -0,0 +1,144 @@
+package jcolonia.daw2024.e3b;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Contenedor versionado de un {@link InventarioAula}. Publica instantáneas
+ * inmutables de forma atómica: las lecturas no se bloquean nunca y siempre
+ * obtienen un aula completa y coherente, aunque en paralelo se esté
+ * reconstruyendo la siguiente versión –por ejemplo durante una importación–.
+ * <div>Las modificaciones se preparan sobre una copia aparte y solo al terminar
+ * se sustituye la versión vigente. Las versiones anteriores dejan de estar
+ * referenciadas por el contenedor y el recolector de basura las libera en
+ * cuanto ningún lector conserva ya una referencia a ellas.</div>
+ *
+ * @see InventarioAula#congelar()
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class InventarioVersionado {
+	/**
+	 * Instantánea publicada del inventario.
+	 *
+	 * @param versión el número de versión, creciente a partir de cero
+	 * @param aula    el inventario correspondiente, de solo lectura
+	 */
+	public record Estado(long versión, InventarioAula aula) {
+	}
+
+	/**
+	 * Modificación a aplicar sobre el borrador de una nueva versión.
+	 */
+	@FunctionalInterface
+	public interface Cambio {
+		/**
+		 * Aplica los cambios sobre el borrador, que es una copia modificable de la
+		 * versión vigente.
+		 *
+		 * @param borrador el inventario a modificar
+		 * @throws InventarioException si los cambios no son válidos; en tal caso no
+		 *                             se publica ninguna versión nueva
+		 */
+		void aplicar(InventarioAula borrador) throws InventarioException;
+	}
+
+	/** Referencia a la versión vigente. */
+	private final AtomicReference<Estado> versiónActual;
+
+	/**
+	 * Crea el contenedor con una versión inicial.
+	 *
+	 * @param aulaInicial el inventario de partida; se publica una copia inmutable
+	 * @throws InventarioException si el inventario es nulo
+	 */
+	public InventarioVersionado(InventarioAula aulaInicial) throws InventarioException {
+		InventarioAula.verificarNulo(aulaInicial, "Inventario inicial requerido");
+		versiónActual = new AtomicReference<>(new Estado(0, aulaInicial.congelar()));
+	}
+
+	/**
+	 * Crea el contenedor con un aula vacía como versión inicial.
+	 *
+	 * @param prefijo el texto correspondiente al prefijo obligatorio
+	 * @return el nuevo contenedor
+	 * @throws InventarioException si el prefijo no es válido
+	 */
+	public static InventarioVersionado of(String prefijo) throws InventarioException {
+		return new InventarioVersionado(InventarioAula.of(prefijo));
+	}
+
+	/**
+	 * Facilita la versión vigente, sin bloqueos.
+	 *
+	 * @return la instantánea correspondiente
+	 */
+	public Estado getEstado() {
+		return versiónActual.get();
+	}
+
+	/**
+	 * Facilita el inventario de la versión vigente, sin bloqueos.
+	 *
+	 * @return el inventario correspondiente, de solo lectura
+	 */
+	public InventarioAula getAula() {
+		return versiónActual.get().aula();
+	}
+
+	/**
+	 * Sustituye la versión vigente por un inventario construido completamente
+	 * aparte, por ejemplo tras recargar el aula desde un archivo o desde la base
+	 * de datos.
+	 *
+	 * @param aulaNueva el nuevo inventario; se publica una copia inmutable
+	 * @return la versión publicada
+	 * @throws InventarioException si el inventario es nulo o su prefijo no
+	 *                             coincide con el de la versión vigente
+	 */
+	public Estado publicar(InventarioAula aulaNueva) throws InventarioException {
+		Estado anterior, siguiente;
+		InventarioAula aulaCongelada;
+		String mensaje;
+
+		InventarioAula.verificarNulo(aulaNueva, "Inventario requerido");
+		aulaCongelada = aulaNueva.congelar();
+
+		do {
+			anterior = versiónActual.get();
+			if (!anterior.aula().getPrefijo().equals(aulaCongelada.getPrefijo())) {
+				mensaje = String.format("Prefijo «%s» no corresponde a la relación «%s»", aulaCongelada.getPrefijo(),
+						anterior.aula().getPrefijo());
+				throw new InventarioException(mensaje);
+			}
+			siguiente = new Estado(anterior.versión() + 1, aulaCongelada);
+		} while (!versiónActual.compareAndSet(anterior, siguiente));
+
+		return siguiente;
+	}
+
+	/**
+	 * Genera y publica una nueva versión aplicando una modificación sobre una copia
+	 * de la vigente. Si otro hilo publica antes una versión distinta, el
+	 * cambio se repite sobre la más reciente.
+	 *
+	 * @param cambio los cambios a aplicar
+	 * @return la versión publicada
+	 * @throws InventarioException si el cambio no es válido
+	 */
+	public Estado actualizar(Cambio cambio) throws InventarioException {
+		Estado anterior, siguiente;
+		InventarioAula borrador;
+
+		InventarioAula.verificarNulo(cambio, "Cambio requerido");
+
+		do {
+			anterior = versiónActual.get();
+			borrador = anterior.aula().copiar();
+			cambio.aplicar(borrador);
+			siguiente = new Estado(anterior.versión() + 1, borrador.congelar());
+		} while (!versiónActual.compareAndSet(anterior, siguiente));
+
+		return siguiente;
+	}
+}
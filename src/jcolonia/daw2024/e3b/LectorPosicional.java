@@ -0,0 +1,260 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lectura de un archivo de texto UTF-8 línea a línea a partir de una posición
+ * cualquiera, llevando la cuenta exacta de los bytes consumidos y su resumen.
+ * Así una importación puede anotar hasta dónde ha llegado y continuar después
+ * desde ese punto sin volver a leer lo anterior.
+ * <div>Conserva también los últimos bytes consumidos para calcular el resumen
+ * de la cola de la huella sin volver a leerlos.</div> <div>Las posiciones solo
+ * tienen sentido en texto sin comprimir: los archivos comprimidos que reconoce
+ * {@link AccesoArchivo} se rechazan al abrirlos.</div>
+ *
+ * @see HuellaArchivo
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class LectorPosicional implements Closeable {
+	/** Tamaño del bloque de lectura. */
+	private static final int TAMAÑO_BLOQUE = 1 << 16;
+
+	/** El archivo abierto. */
+	private final FileChannel canal;
+
+	/** El bloque de lectura. */
+	private final ByteBuffer bloque;
+
+	/**
+	 * Si se entrega la última línea aunque no termine en salto de línea. En caso
+	 * contrario se deja pendiente, por si aún se está escribiendo.
+	 */
+	private final boolean incluirIncompleta;
+
+	/** Los bytes de la línea en curso. */
+	private byte[] línea;
+
+	/** El número de bytes de la línea en curso. */
+	private int longitud;
+
+	/** La posición del archivo tras la última línea entregada. */
+	private long posición;
+
+	/** El resumen de los bytes del archivo hasta la posición actual. */
+	private long resumen;
+
+	/**
+	 * Los últimos bytes consumidos, en un búfer circular: el byte de la posición
+	 * <i>p</i> del archivo ocupa el índice <i>p</i> módulo
+	 * {@link HuellaArchivo#LONGITUD_COLA}.
+	 */
+	private final byte[] cola;
+
+	/**
+	 * Abre el archivo y se sitúa en una posición.
+	 *
+	 * @param archivo           el archivo
+	 * @param posición          la posición inicial, en bytes; debe ser un comienzo
+	 *                          de línea
+	 * @param resumen           el resumen de los bytes anteriores a esa posición,
+	 *                          o {@link HuellaArchivo#RESUMEN_INICIAL} desde el
+	 *                          comienzo
+	 * @param incluirIncompleta si se entrega la última línea aunque no termine en
+	 *                          salto de línea
+	 * @throws IOException si no se puede abrir el archivo o está comprimido
+	 */
+	public LectorPosicional(Path archivo, long posición, long resumen, boolean incluirIncompleta)
+			throws IOException {
+		canal = FileChannel.open(archivo, StandardOpenOption.READ);
+		bloque = ByteBuffer.allocate(TAMAÑO_BLOQUE).flip();
+		línea = new byte[256];
+		cola = new byte[HuellaArchivo.LONGITUD_COLA];
+		this.posición = posición;
+		this.resumen = resumen;
+		this.incluirIncompleta = incluirIncompleta;
+		try {
+			comprobarFormato(archivo);
+			leerCola();
+			canal.position(posición);
+		} catch (IOException e) {
+			canal.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Comprueba por sus primeros bytes que el archivo no esté comprimido.
+	 *
+	 * @see AccesoArchivo.Compresión#deCabecera(int, int)
+	 * @param archivo el archivo, para el mensaje de error
+	 * @throws IOException si está comprimido o no se puede leer
+	 */
+	private void comprobarFormato(Path archivo) throws IOException {
+		ByteBuffer cabecera;
+		AccesoArchivo.Compresión formato;
+		int leídos = 0;
+
+		cabecera = ByteBuffer.allocate(2);
+		while (cabecera.hasRemaining() && leídos >= 0) {
+			leídos = canal.read(cabecera, cabecera.position());
+		}
+		formato = AccesoArchivo.Compresión.deCabecera(cabecera.position() > 0 ? cabecera.get(0) & 0xff : -1,
+				cabecera.position() > 1 ? cabecera.get(1) & 0xff : -1);
+		if (formato != AccesoArchivo.Compresión.NINGUNA) {
+			throw new IOException(String.format("Archivo «%s» comprimido (%s): solo se admite texto sin comprimir",
+					archivo, formato));
+		}
+	}
+
+	/**
+	 * Carga en la cola los bytes anteriores a la posición inicial.
+	 *
+	 * @throws IOException si se produce alguna incidencia en la lectura o el
+	 *                     archivo es más corto
+	 */
+	private void leerCola() throws IOException {
+		ByteBuffer tramo;
+		long desde;
+
+		desde = Math.max(0, posición - cola.length);
+		tramo = ByteBuffer.allocate((int) (posición - desde));
+		while (tramo.hasRemaining()) {
+			if (canal.read(tramo, desde + tramo.position()) < 0) {
+				throw new IOException(String.format("Archivo más corto que la posición %d", posición));
+			}
+		}
+		anotarCola(tramo.array(), desde, tramo.capacity());
+	}
+
+	/**
+	 * Copia en la cola una serie de bytes consumidos.
+	 *
+	 * @param datos    los bytes
+	 * @param desde    la posición en el archivo del primer byte
+	 * @param longitud el número de bytes
+	 */
+	private void anotarCola(byte[] datos, long desde, int longitud) {
+		int primero;
+
+		primero = Math.max(0, longitud - cola.length); // Solo importan los últimos
+		for (int i = primero; i < longitud; i++) {
+			cola[(int) ((desde + i) % cola.length)] = datos[i];
+		}
+	}
+
+	/**
+	 * Lee la siguiente línea, sin el salto de línea final –«\n» o «\r\n»–.
+	 *
+	 * @return el texto de la línea; <code>null</code> al llegar al final del
+	 *         archivo
+	 * @throws IOException si se produce alguna incidencia en la lectura
+	 */
+	public String leerLínea() throws IOException {
+		String texto = null;
+		boolean completa = false, fin = false;
+		byte dato;
+
+		while (!completa && !fin) {
+			if (!bloque.hasRemaining()) {
+				bloque.clear();
+				fin = canal.read(bloque) < 0;
+				bloque.flip();
+			}
+			while (!completa && bloque.hasRemaining()) {
+				dato = bloque.get();
+				if (longitud == línea.length) {
+					línea = Arrays.copyOf(línea, longitud * 2);
+				}
+				línea[longitud++] = dato;
+				completa = dato == '\n';
+			}
+		}
+
+		if (completa || (incluirIncompleta && longitud > 0)) {
+			texto = new String(línea, 0, recortarSalto(), StandardCharsets.UTF_8);
+			resumen = HuellaArchivo.resumir(resumen, línea, 0, longitud);
+			anotarCola(línea, posición, longitud);
+			posición += longitud;
+			longitud = 0;
+		}
+		return texto;
+	}
+
+	/**
+	 * Calcula la longitud de la línea en curso sin el salto de línea final.
+	 *
+	 * @return el número de bytes útiles
+	 */
+	private int recortarSalto() {
+		int útiles = longitud;
+
+		if (útiles > 0 && línea[útiles - 1] == '\n') {
+			útiles--;
+		}
+		if (útiles > 0 && línea[útiles - 1] == '\r') {
+			útiles--;
+		}
+		return útiles;
+	}
+
+	/**
+	 * Informa de la posición del archivo tras la última línea entregada.
+	 *
+	 * @return el número de bytes consumidos desde el comienzo del archivo
+	 */
+	public long getPosición() {
+		return posición;
+	}
+
+	/**
+	 * Informa del resumen de los bytes consumidos.
+	 *
+	 * @return el resumen desde el comienzo del archivo hasta la posición actual
+	 */
+	public long getResumen() {
+		return resumen;
+	}
+
+	/**
+	 * Informa del resumen de la cola de los bytes consumidos.
+	 *
+	 * @see HuellaArchivo#resumirCola(Path, long)
+	 * @return el resumen de los {@value HuellaArchivo#LONGITUD_COLA} bytes
+	 *         anteriores a la posición actual, o de todos si hay menos
+	 */
+	public long getResumenCola() {
+		long resumenCola;
+		int longitudCola, inicio, fin;
+
+		longitudCola = (int) Math.min(posición, cola.length);
+		inicio = (int) ((posición - longitudCola) % cola.length);
+		fin = inicio + longitudCola;
+		if (fin <= cola.length) {
+			resumenCola = HuellaArchivo.resumir(HuellaArchivo.RESUMEN_INICIAL, cola, inicio, fin);
+		} else { // Tramo partido por el final del búfer
+			resumenCola = HuellaArchivo.resumir(HuellaArchivo.RESUMEN_INICIAL, cola, inicio, cola.length);
+			resumenCola = HuellaArchivo.resumir(resumenCola, cola, 0, fin - cola.length);
+		}
+		return resumenCola;
+	}
+
+	/**
+	 * Cierra el archivo. Los bytes de una línea incompleta no entregada no cuentan
+	 * como consumidos.
+	 *
+	 * @throws IOException si se produce alguna incidencia
+	 */
+	@Override
+	public void close() throws IOException {
+		canal.close();
+	}
+}
@@ -0,0 +1,368 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de mantenimiento en segundo plano de la base de datos SQLite.
+ * Vigila periódicamente las páginas libres del archivo y el tamaño del
+ * registro de escritura anticipada –WAL– y, solo cuando el programa lleva un
+ * tiempo sin consultas ni modificaciones, recupera espacio libre por tramos,
+ * actualiza las estadísticas del planificador de consultas y vuelca el
+ * registro WAL al archivo principal.
+ * <div>Nunca reconstruye el archivo por completo. Los archivos nuevos se crean
+ * con compactación incremental; uno creado sin ella no recupera espacio hasta
+ * que se compacte expresamente una vez con {@link AccesoBD#compactar()}, que
+ * cambia el modo de forma permanente. Se avisa de ello una sola vez.</div>
+ * <div>Cada ciclo dispone de un presupuesto de tiempo y se interrumpe en cuanto
+ * lo agota o detecta nueva actividad, de modo que el mantenimiento no retrasa
+ * las consultas del programa. Emplea una conexión propia con una espera
+ * mínima ante bloqueos: si la base de datos está ocupada, lo intenta en el
+ * siguiente ciclo.</div>
+ *
+ * @see AccesoBD#getMilisegundosInactividad()
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class MantenimientoBD implements AutoCloseable {
+	/** Sentencia SQL para consultar el número de páginas libres. */
+	private static final String SQL_PÁGINAS_LIBRES = "PRAGMA freelist_count";
+
+	/** Sentencia SQL para consultar el número total de páginas. */
+	private static final String SQL_PÁGINAS_TOTALES = "PRAGMA page_count";
+
+	/** Sentencia SQL para consultar el modo de compactación. */
+	private static final String SQL_MODO_COMPACTACIÓN = "PRAGMA auto_vacuum";
+
+	/** Prototipo de sentencia SQL para liberar un tramo de páginas libres. */
+	private static final String SQL_COMPACTAR_TRAMO = "PRAGMA incremental_vacuum(%d)";
+
+	/** Sentencias SQL para actualizar de forma acotada las estadísticas. */
+	private static final String[] SQL_OPTIMIZAR = { "PRAGMA analysis_limit = 400", "PRAGMA optimize" };
+
+	/**
+	 * Sentencia SQL para volcar el registro WAL sin esperar a lectores ni
+	 * escritores.
+	 */
+	private static final String SQL_VOLCAR_WAL = "PRAGMA wal_checkpoint(PASSIVE)";
+
+	/** Sentencia SQL para limitar la espera ante bloqueos, en milisegundos. */
+	private static final String SQL_ESPERA_BLOQUEO = "PRAGMA busy_timeout = 50";
+
+	/** Valor de «auto_vacuum» correspondiente a la compactación incremental. */
+	private static final int COMPACTACIÓN_INCREMENTAL = 2;
+
+	/** Número de páginas liberadas en cada tramo de compactación incremental. */
+	private static final int PÁGINAS_POR_TRAMO = 256;
+
+	/** Periodo predeterminado entre ciclos de mantenimiento, en segundos. */
+	public static final long PERIODO_PREDETERMINADO = 60;
+
+	/** Inactividad mínima predeterminada para iniciar un ciclo, en milisegundos. */
+	public static final long INACTIVIDAD_PREDETERMINADA = 5_000;
+
+	/** Presupuesto de tiempo predeterminado de cada ciclo, en milisegundos. */
+	public static final long PRESUPUESTO_PREDETERMINADO = 200;
+
+	/** Proporción de páginas libres a partir de la cual se recupera espacio. */
+	public static final double PROPORCIÓN_LIBRE_PREDETERMINADA = 0.10;
+
+	/** Tamaño del registro WAL a partir del cual se vuelca, en bytes. */
+	public static final long TAMAÑO_WAL_PREDETERMINADO = 16L << 20;
+
+	/** Periodo mínimo entre actualizaciones de estadísticas, en milisegundos. */
+	private static final long PERIODO_OPTIMIZACIÓN = TimeUnit.HOURS.toMillis(1);
+
+	/** Acceso propio a la base de datos. */
+	private final AccesoBD accesoBD;
+
+	/** Planificador de los ciclos de mantenimiento. */
+	private final ScheduledExecutorService planificador;
+
+	/** Inactividad mínima para iniciar un ciclo, en milisegundos. */
+	private final long inactividadMínima;
+
+	/** Presupuesto de tiempo de cada ciclo, en milisegundos. */
+	private final long presupuesto;
+
+	/** Proporción de páginas libres a partir de la cual se recupera espacio. */
+	private final double proporciónLibre;
+
+	/** Tamaño del registro WAL a partir del cual se vuelca, en bytes. */
+	private final long tamañoWAL;
+
+	/** Instante de la última actualización de estadísticas, en milisegundos. */
+	private long últimaOptimización;
+
+	/** Número de ciclos completados o interrumpidos. */
+	private volatile long númCiclos;
+
+	/** Número total de páginas liberadas. */
+	private volatile long páginasLiberadas;
+
+	/** Número de volcados del registro WAL. */
+	private volatile long númVolcados;
+
+	/** Número de actualizaciones de estadísticas. */
+	private volatile long númOptimizaciones;
+
+	/**
+	 * Si ya se ha avisado de que el archivo necesita una compactación completa.
+	 */
+	private boolean avisoCompactación;
+
+	/**
+	 * Prepara el servicio con los valores predeterminados, sin iniciarlo.
+	 *
+	 * @param archivoConfiguración la ruta del archivo de configuración del acceso
+	 *                             a la base de datos
+	 */
+	public MantenimientoBD(String archivoConfiguración) {
+		this(archivoConfiguración, INACTIVIDAD_PREDETERMINADA, PRESUPUESTO_PREDETERMINADO,
+				PROPORCIÓN_LIBRE_PREDETERMINADA, TAMAÑO_WAL_PREDETERMINADO);
+	}
+
+	/**
+	 * Prepara el servicio, sin iniciarlo.
+	 *
+	 * @param archivoConfiguración la ruta del archivo de configuración del acceso
+	 *                             a la base de datos
+	 * @param inactividadMínima    la inactividad mínima para iniciar un ciclo, en
+	 *                             milisegundos
+	 * @param presupuesto          el presupuesto de tiempo de cada ciclo, en
+	 *                             milisegundos
+	 * @param proporciónLibre      la proporción de páginas libres a partir de la
+	 *                             cual se recupera espacio
+	 * @param tamañoWAL            el tamaño del registro WAL a partir del cual se
+	 *                             vuelca, en bytes
+	 */
+	public MantenimientoBD(String archivoConfiguración, long inactividadMínima, long presupuesto,
+			double proporciónLibre, long tamañoWAL) {
+		this.accesoBD = new AccesoBD(archivoConfiguración, null);
+		this.inactividadMínima = inactividadMínima;
+		this.presupuesto = presupuesto;
+		this.proporciónLibre = proporciónLibre;
+		this.tamañoWAL = tamañoWAL;
+
+		planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+			Thread hilo = new Thread(tarea, "MantenimientoBD");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+	}
+
+	/**
+	 * Inicia los ciclos periódicos de mantenimiento.
+	 *
+	 * @param periodo el tiempo entre ciclos, en segundos
+	 */
+	public void iniciar(long periodo) {
+		planificador.scheduleWithFixedDelay(this::ejecutarCiclo, periodo, periodo, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Ejecuta un ciclo de mantenimiento si el programa está inactivo. Las
+	 * incidencias se notifican en la salida de error estándar y el servicio
+	 * continúa.
+	 */
+	private void ejecutarCiclo() {
+		long límite;
+
+		if (AccesoBD.getMilisegundosInactividad() >= inactividadMínima) {
+			límite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(presupuesto);
+			try {
+				volcarWAL();
+				if (quedaTiempo(límite)) {
+					recuperarEspacio(límite);
+				}
+				if (quedaTiempo(límite)) {
+					optimizar();
+				}
+			} catch (AccesoBDException | SQLException e) {
+				System.err.printf("Mantenimiento BD aplazado: %s%n", e.getLocalizedMessage());
+			}
+			númCiclos++;
+		}
+	}
+
+	/**
+	 * Comprueba si el ciclo puede continuar: queda presupuesto y no hay nueva
+	 * actividad.
+	 *
+	 * @param límite el instante límite del ciclo, según {@link System#nanoTime()}
+	 * @return si puede continuar
+	 */
+	private boolean quedaTiempo(long límite) {
+		return System.nanoTime() < límite && AccesoBD.getMilisegundosInactividad() >= inactividadMínima;
+	}
+
+	/**
+	 * Abre –si no lo estaba– la conexión propia y genera una sentencia con espera
+	 * mínima ante bloqueos.
+	 *
+	 * @return la sentencia
+	 * @throws AccesoBDException si no se completa la conexión
+	 * @throws SQLException      si se produce alguna incidencia
+	 */
+	private Statement crearSentencia() throws AccesoBDException, SQLException {
+		Connection conexión;
+		Statement sentencia;
+
+		conexión = accesoBD.abrirConexión();
+		sentencia = conexión.createStatement();
+		sentencia.execute(SQL_ESPERA_BLOQUEO);
+		return sentencia;
+	}
+
+	/**
+	 * Vuelca el registro WAL al archivo principal si ha superado el tamaño
+	 * establecido. El volcado es pasivo: no espera a lectores ni escritores.
+	 *
+	 * @throws AccesoBDException si no se completa la conexión
+	 * @throws SQLException      si se produce alguna incidencia
+	 */
+	private void volcarWAL() throws AccesoBDException, SQLException {
+		Path rutaBD, rutaWAL;
+		long tamaño = 0;
+
+		rutaBD = accesoBD.getRutaBD();
+		if (rutaBD != null) {
+			rutaWAL = Path.of(rutaBD + "-wal");
+			try {
+				tamaño = Files.exists(rutaWAL) ? Files.size(rutaWAL) : 0;
+			} catch (IOException e) {
+				tamaño = 0;
+			}
+		}
+
+		if (tamaño >= tamañoWAL) {
+			try (Statement sentencia = crearSentencia()) {
+				sentencia.execute(SQL_VOLCAR_WAL);
+				númVolcados++;
+			}
+		}
+	}
+
+	/**
+	 * Recupera espacio libre por tramos mientras quede presupuesto, si la
+	 * proporción de páginas libres supera la establecida. Si la base de datos no
+	 * admite todavía la compactación incremental –archivos creados con versiones
+	 * anteriores– no se hace nada: la compactación completa bloquearía las
+	 * consultas y renumeraría las filas, y solo se avisa de que hace falta una,
+	 * expresa, para cambiar de modo.
+	 *
+	 * @param límite el instante límite del ciclo, según {@link System#nanoTime()}
+	 * @throws AccesoBDException si no se completa la conexión
+	 * @throws SQLException      si se produce alguna incidencia
+	 */
+	private void recuperarEspacio(long límite) throws AccesoBDException, SQLException {
+		long libres, totales, anteriores;
+
+		try (Statement sentencia = crearSentencia()) {
+			libres = consultarNúmero(sentencia, SQL_PÁGINAS_LIBRES);
+			totales = consultarNúmero(sentencia, SQL_PÁGINAS_TOTALES);
+
+			if (totales > 0 && libres > totales * proporciónLibre) {
+				if (consultarNúmero(sentencia, SQL_MODO_COMPACTACIÓN) != COMPACTACIÓN_INCREMENTAL) {
+					if (!avisoCompactación) {
+						System.err.printf(
+								"Mantenimiento BD: %d de %d páginas libres sin compactación incremental; requiere una compactación completa expresa%n",
+								libres, totales);
+						avisoCompactación = true;
+					}
+				} else {
+					do {
+						anteriores = libres;
+						sentencia.execute(String.format(SQL_COMPACTAR_TRAMO, PÁGINAS_POR_TRAMO));
+						libres = consultarNúmero(sentencia, SQL_PÁGINAS_LIBRES);
+						páginasLiberadas += anteriores - libres;
+					} while (libres > 0 && libres < anteriores && quedaTiempo(límite));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Actualiza de forma acotada las estadísticas del planificador de consultas,
+	 * como mucho una vez por hora.
+	 *
+	 * @throws AccesoBDException si no se completa la conexión
+	 * @throws SQLException      si se produce alguna incidencia
+	 */
+	private void optimizar() throws AccesoBDException, SQLException {
+		long ahora;
+
+		ahora = System.currentTimeMillis();
+		if (ahora - últimaOptimización >= PERIODO_OPTIMIZACIÓN) {
+			try (Statement sentencia = crearSentencia()) {
+				for (String sql : SQL_OPTIMIZAR) {
+					sentencia.execute(sql);
+				}
+			}
+			últimaOptimización = ahora;
+			númOptimizaciones++;
+		}
+	}
+
+	/**
+	 * Ejecuta una consulta que devuelve un único número.
+	 *
+	 * @param sentencia la sentencia a emplear
+	 * @param sql       la consulta
+	 * @return el número obtenido; cero si no hay resultado
+	 * @throws SQLException si se produce alguna incidencia
+	 */
+	private static long consultarNúmero(Statement sentencia, String sql) throws SQLException {
+		long número = 0;
+
+		try (ResultSet resultado = sentencia.executeQuery(sql)) {
+			if (resultado.next()) {
+				número = resultado.getLong(1);
+			}
+		}
+		return número;
+	}
+
+	/**
+	 * Detiene el servicio, esperando a que termine el ciclo en curso, y cierra la
+	 * conexión propia.
+	 *
+	 * @throws AccesoBDException si se produce alguna incidencia en el cierre
+	 */
+	@Override
+	public void close() throws AccesoBDException {
+		planificador.shutdown();
+		try {
+			planificador.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		accesoBD.close();
+	}
+
+	/**
+	 * Genera una descripción de la actividad del servicio.<div>Ejemplo:
+	 *
+	 * <pre>
+	 *   Mantenimiento BD: 12 ciclos, 3072 páginas liberadas, 2 volcados WAL, 1 optimizaciones
+	 * </pre>
+	 *
+	 * </div>
+	 *
+	 * @return el texto correspondiente
+	 */
+	@Override
+	public String toString() {
+		return String.format("Mantenimiento BD: %d ciclos, %d páginas liberadas, %d volcados WAL, %d optimizaciones",
+				númCiclos, páginasLiberadas, númVolcados, númOptimizaciones);
+	}
+}
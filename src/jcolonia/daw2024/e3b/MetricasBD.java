@@ -0,0 +1,357 @@
+package jcolonia.daw2024.e3b;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Métricas de las operaciones de acceso a la base de datos, publicadas como
+ * MBean de plataforma con el nombre {@value #NOMBRE_MBEAN}. Para cada tipo de
+ * operación se cuentan las ejecuciones, errores, filas y operaciones en curso,
+ * y se acumula un histograma de duraciones del que se obtienen los percentiles.
+ * <div>Todo se registra con contadores atómicos sin bloqueos y el histograma
+ * tiene tamaño fijo –cuatro tramos por cada potencia de dos, en
+ * microsegundos–, de modo que la medición puede quedar siempre activa. Los
+ * percentiles tienen una precisión aproximada del 20 %.</div> <div>Ejemplo de
+ * uso:
+ *
+ * <pre>
+ * try (MetricasBD.Medición medición = MetricasBD.medir(MetricasBD.Tipo.LECTURA)) {
+ * 	…
+ * 	medición.terminar(númFilas);
+ * }
+ * </pre>
+ *
+ * Si la medición se cierra sin llamar a {@link Medición#terminar(long)} –por
+ * ejemplo, al saltar una excepción– se cuenta como error.</div>
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class MetricasBD implements MetricasBDMXBean {
+	/** Nombre con el que se registra el MBean. */
+	public static final String NOMBRE_MBEAN = "jcolonia.daw2024.e3b:type=AccesoBD";
+
+	/** Tipos de operación medidos. */
+	public enum Tipo {
+		/** Apertura de la conexión. */
+		CONEXIÓN,
+		/** Carga de un aula. */
+		LECTURA,
+		/** Inserción de un puesto. */
+		INSERCIÓN,
+		/** Inserción de un bloque de puestos en una transacción. */
+		INSERCIÓN_LOTE,
+		/** Grabación de un aula completa. */
+		ESCRITURA,
+		/** Importación de un archivo. */
+		IMPORTACIÓN
+	}
+
+	/** Número de tramos del histograma por cada potencia de dos. */
+	private static final int TRAMOS_POTENCIA = 4;
+
+	/** Número de tramos del histograma: hasta 2⁴⁰ µs, unos 12 días. */
+	private static final int NÚM_TRAMOS = 41 * TRAMOS_POTENCIA;
+
+	/** La instancia única, registrada en el servidor de MBean de plataforma. */
+	private static final MetricasBD MÉTRICAS = new MetricasBD();
+
+	static {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(MÉTRICAS, new ObjectName(NOMBRE_MBEAN));
+		} catch (JMException | SecurityException e) {
+			System.err.printf("Métricas JMX no disponibles: %s%n", e.getLocalizedMessage());
+		}
+	}
+
+	/** Los contadores de cada tipo de operación. */
+	private final Map<Tipo, Contadores> contadores;
+
+	/** Contadores de un tipo de operación. */
+	private static class Contadores {
+		/** Número de operaciones terminadas. */
+		private final LongAdder operaciones = new LongAdder();
+		/** Número de operaciones terminadas con error. */
+		private final LongAdder errores = new LongAdder();
+		/** Número de operaciones en curso. */
+		private final LongAdder enCurso = new LongAdder();
+		/** Número de filas leídas o grabadas. */
+		private final LongAdder filas = new LongAdder();
+		/** Duración acumulada, en nanosegundos. */
+		private final LongAdder nanosegundos = new LongAdder();
+		/** Número de operaciones por tramo de duración. */
+		private final AtomicLongArray histograma = new AtomicLongArray(NÚM_TRAMOS);
+
+		/** Prepara los contadores a cero. */
+		private Contadores() {
+		}
+	}
+
+	/**
+	 * Medición de una operación en curso. Se cierra al terminar la operación.
+	 */
+	public static final class Medición implements AutoCloseable {
+		/** Los contadores del tipo de operación. */
+		private final Contadores contadores;
+		/** El instante de comienzo, según {@link System#nanoTime()}. */
+		private final long inicio;
+		/** Número de filas; negativo mientras la operación no termine bien. */
+		private long filas = -1;
+
+		/**
+		 * Comienza la medición.
+		 *
+		 * @param contadores los contadores del tipo de operación
+		 */
+		private Medición(Contadores contadores) {
+			this.contadores = contadores;
+			contadores.enCurso.increment();
+			inicio = System.nanoTime();
+		}
+
+		/**
+		 * Anota que la operación ha terminado correctamente.
+		 *
+		 * @param númFilas el número de filas leídas o grabadas
+		 */
+		public void terminar(long númFilas) {
+			filas = Math.max(0, númFilas);
+		}
+
+		/**
+		 * Registra la duración y el resultado de la operación.
+		 */
+		@Override
+		public void close() {
+			long nanosegundos;
+
+			nanosegundos = System.nanoTime() - inicio;
+			contadores.enCurso.decrement();
+			contadores.operaciones.increment();
+			contadores.nanosegundos.add(nanosegundos);
+			contadores.histograma.incrementAndGet(tramo(nanosegundos / 1000));
+			if (filas < 0) {
+				contadores.errores.increment();
+			} else {
+				contadores.filas.add(filas);
+			}
+		}
+	}
+
+	/** Prepara los contadores a cero. */
+	private MetricasBD() {
+		contadores = new EnumMap<>(Tipo.class);
+		for (Tipo tipo : Tipo.values()) {
+			contadores.put(tipo, new Contadores());
+		}
+	}
+
+	/**
+	 * Comienza la medición de una operación.
+	 *
+	 * @param tipo el tipo de operación
+	 * @return la medición, a cerrar al terminar la operación
+	 */
+	public static Medición medir(Tipo tipo) {
+		return new Medición(MÉTRICAS.contadores.get(tipo));
+	}
+
+	/**
+	 * Facilita la instancia única, también accesible por JMX.
+	 *
+	 * @return las métricas
+	 */
+	public static MetricasBD getMétricas() {
+		return MÉTRICAS;
+	}
+
+	/**
+	 * Calcula el tramo del histograma de una duración.
+	 *
+	 * @param microsegundos la duración
+	 * @return la posición del tramo
+	 */
+	private static int tramo(long microsegundos) {
+		int potencia, fracción;
+
+		if (microsegundos < TRAMOS_POTENCIA) {
+			potencia = 0;
+			fracción = (int) Math.max(0, microsegundos);
+		} else {
+			potencia = 63 - Long.numberOfLeadingZeros(microsegundos) - 1;
+			fracción = (int) (microsegundos >>> (potencia - 1)) & (TRAMOS_POTENCIA - 1);
+		}
+		return Math.min(potencia * TRAMOS_POTENCIA + fracción, NÚM_TRAMOS - 1);
+	}
+
+	/**
+	 * Calcula el valor central de un tramo del histograma.
+	 *
+	 * @param tramo la posición del tramo
+	 * @return la duración representativa, en microsegundos
+	 */
+	private static double valorTramo(int tramo) {
+		int potencia, fracción;
+		double inferior;
+
+		potencia = tramo / TRAMOS_POTENCIA;
+		fracción = tramo % TRAMOS_POTENCIA;
+		if (potencia == 0) {
+			inferior = fracción;
+		} else {
+			inferior = (double) (TRAMOS_POTENCIA + fracción) * (1L << (potencia - 1));
+		}
+		return potencia == 0 ? inferior + 0.5 : inferior * (1 + 0.5 / (TRAMOS_POTENCIA + fracción));
+	}
+
+	/**
+	 * Calcula un percentil de la duración de un tipo de operación.
+	 *
+	 * @param contadores los contadores del tipo de operación
+	 * @param percentil  el percentil, entre 0 y 100
+	 * @return la duración en milisegundos; cero si no hay operaciones
+	 */
+	private static double percentil(Contadores contadores, double percentil) {
+		long total = 0, acumulado = 0, objetivo;
+		double milisegundos = 0;
+		int tramo;
+
+		for (int i = 0; i < NÚM_TRAMOS; i++) {
+			total += contadores.histograma.get(i);
+		}
+		if (total > 0) {
+			objetivo = (long) Math.ceil(total * percentil / 100);
+			tramo = 0;
+			while (acumulado < objetivo && tramo < NÚM_TRAMOS) {
+				acumulado += contadores.histograma.get(tramo++);
+			}
+			milisegundos = valorTramo(tramo - 1) / 1000;
+		}
+		return milisegundos;
+	}
+
+	/**
+	 * Genera una tabla con un valor entero por tipo de operación.
+	 *
+	 * @param valor la obtención del valor a partir de los contadores
+	 * @return la tabla, por nombre del tipo de operación
+	 */
+	private Map<String, Long> tabular(ToLongFunction<Contadores> valor) {
+		Map<String, Long> tabla;
+
+		tabla = new LinkedHashMap<>();
+		for (Map.Entry<Tipo, Contadores> entrada : contadores.entrySet()) {
+			tabla.put(entrada.getKey().name(), valor.applyAsLong(entrada.getValue()));
+		}
+		return tabla;
+	}
+
+	/**
+	 * Genera una tabla con un valor real por tipo de operación.
+	 *
+	 * @param valor la obtención del valor a partir de los contadores
+	 * @return la tabla, por nombre del tipo de operación
+	 */
+	private Map<String, Double> tabularReal(ToDoubleFunction<Contadores> valor) {
+		Map<String, Double> tabla;
+
+		tabla = new LinkedHashMap<>();
+		for (Map.Entry<Tipo, Contadores> entrada : contadores.entrySet()) {
+			tabla.put(entrada.getKey().name(), valor.applyAsDouble(entrada.getValue()));
+		}
+		return tabla;
+	}
+
+	@Override
+	public Map<String, Long> getOperaciones() {
+		return tabular(c -> c.operaciones.sum());
+	}
+
+	@Override
+	public Map<String, Long> getErrores() {
+		return tabular(c -> c.errores.sum());
+	}
+
+	@Override
+	public Map<String, Long> getEnCurso() {
+		return tabular(c -> c.enCurso.sum());
+	}
+
+	@Override
+	public Map<String, Long> getFilas() {
+		return tabular(c -> c.filas.sum());
+	}
+
+	@Override
+	public Map<String, Double> getP50Milisegundos() {
+		return tabularReal(c -> percentil(c, 50));
+	}
+
+	@Override
+	public Map<String, Double> getP95Milisegundos() {
+		return tabularReal(c -> percentil(c, 95));
+	}
+
+	@Override
+	public Map<String, Double> getP99Milisegundos() {
+		return tabularReal(c -> percentil(c, 99));
+	}
+
+	@Override
+	public Map<String, Double> getFilasPorSegundo() {
+		return tabularReal(c -> {
+			long nanosegundos = c.nanosegundos.sum();
+			return nanosegundos == 0 ? 0 : c.filas.sum() * 1e9 / nanosegundos;
+		});
+	}
+
+	@Override
+	public void reiniciar() {
+		for (Contadores c : contadores.values()) {
+			c.operaciones.reset();
+			c.errores.reset();
+			c.filas.reset();
+			c.nanosegundos.reset();
+			for (int i = 0; i < NÚM_TRAMOS; i++) {
+				c.histograma.set(i, 0);
+			}
+		}
+	}
+
+	/**
+	 * Genera una descripción de las métricas de cada tipo de operación con
+	 * actividad.<div>Ejemplo:
+	 *
+	 * <pre>
+	 *   LECTURA: 120 operaciones, 0 errores, 1440 filas, p50 0.42 ms, p95 1.10 ms, p99 3.20 ms
+	 * </pre>
+	 *
+	 * </div>
+	 *
+	 * @return el texto correspondiente
+	 */
+	@Override
+	public String toString() {
+		StringBuilder texto;
+
+		texto = new StringBuilder();
+		for (Map.Entry<Tipo, Contadores> entrada : contadores.entrySet()) {
+			Contadores c = entrada.getValue();
+			if (c.operaciones.sum() > 0) {
+				texto.append(String.format("%s: %d operaciones, %d errores, %d filas, p50 %.2f ms, p95 %.2f ms, "
+						+ "p99 %.2f ms%n", entrada.getKey(), c.operaciones.sum(), c.errores.sum(), c.filas.sum(),
+						percentil(c, 50), percentil(c, 95), percentil(c, 99)));
+			}
+		}
+		return texto.toString();
+	}
+}
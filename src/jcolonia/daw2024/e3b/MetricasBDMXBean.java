@@ -0,0 +1,75 @@
+package jcolonia.daw2024.e3b;
+
+import java.util.Map;
+
+/**
+ * Interfaz de gestión JMX de las métricas de acceso a la base de datos. Cada
+ * atributo de tipo tabla se indexa por el nombre de la operación –
+ * «CONEXIÓN», «LECTURA», «INSERCIÓN»…–.
+ *
+ * @see MetricasBD
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public interface MetricasBDMXBean {
+	/**
+	 * Informa del número de operaciones terminadas.
+	 *
+	 * @return el número de operaciones de cada tipo
+	 */
+	Map<String, Long> getOperaciones();
+
+	/**
+	 * Informa del número de operaciones terminadas con error.
+	 *
+	 * @return el número de errores de cada tipo
+	 */
+	Map<String, Long> getErrores();
+
+	/**
+	 * Informa del número de operaciones en curso.
+	 *
+	 * @return el número de operaciones en curso de cada tipo
+	 */
+	Map<String, Long> getEnCurso();
+
+	/**
+	 * Informa del número de filas –puestos– leídas o grabadas.
+	 *
+	 * @return el número de filas de cada tipo de operación
+	 */
+	Map<String, Long> getFilas();
+
+	/**
+	 * Calcula la mediana de la duración de las operaciones.
+	 *
+	 * @return los milisegundos de cada tipo de operación
+	 */
+	Map<String, Double> getP50Milisegundos();
+
+	/**
+	 * Calcula el percentil 95 de la duración de las operaciones.
+	 *
+	 * @return los milisegundos de cada tipo de operación
+	 */
+	Map<String, Double> getP95Milisegundos();
+
+	/**
+	 * Calcula el percentil 99 de la duración de las operaciones.
+	 *
+	 * @return los milisegundos de cada tipo de operación
+	 */
+	Map<String, Double> getP99Milisegundos();
+
+	/**
+	 * Calcula el rendimiento de cada tipo de operación: filas por segundo de
+	 * duración acumulada.
+	 *
+	 * @return las filas por segundo de cada tipo de operación
+	 */
+	Map<String, Double> getFilasPorSegundo();
+
+	/** Pone a cero todos los contadores, salvo las operaciones en curso. */
+	void reiniciar();
+}
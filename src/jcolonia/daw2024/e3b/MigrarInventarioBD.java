@@ -3,6 +3,7 @@ package jcolonia.daw2024.e3b;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
 
 /**
@@ -14,17 +15,44 @@ public class MigrarInventarioBD {
     /**
      * Método principal que ejecuta la migración de datos.
      * 
-     * @param args argumentos de línea de comandos (no utilizados)
+     * @param args argumentos de línea de comandos: «-c» para importar con el
+     *             {@link ImportadorConcurrente importador concurrente}; «-d
+     *             directorio» para quedar vigilando los archivos del directorio
+     *             e importar sus líneas nuevas según se añadan
      */
     public static void main(String[] args) {
+        boolean concurrente = args.length > 0 && "-c".equals(args[0]);
+        boolean vigilante = args.length > 0 && "-d".equals(args[0]);
+
+        if (vigilante && args.length < 2) {
+            System.err.println("Uso: MigrarInventarioBD [-c | -d directorio]");
+            return;
+        }
+
         // Usamos try-with-resources para asegurar el cierre de la conexión
         try (AccesoBD bd = new AccesoBD()) {
             // Configuración inicial de la base de datos
             bd.crearConexion();
             bd.crearTabla();
 
-            // Opción 1: Usar el método integrado de importación
-            bd.importarDesdeArchivo("Inventario ICXX.txt");
+            if (vigilante) {
+                // Opción 4: Seguimiento continuo de un directorio –sin fin–
+                System.out.printf("Vigilando «%s»…%n", args[1]);
+                try (VigilanteInventario vigilancia = new VigilanteInventario(bd, Path.of(args[1]))) {
+                    vigilancia.vigilar();
+                } catch (IOException e) {
+                    System.err.println("Error de vigilancia: " + e.getMessage());
+                }
+            } else if (concurrente) {
+                // Opción 3: Importación por etapas concurrentes
+                ImportadorConcurrente.Resultado resultado;
+                resultado = new ImportadorConcurrente(bd).importar("Inventario ICXX.txt");
+                System.out.printf("%d equipos importados, %d líneas descartadas (%d ms)%n",
+                        resultado.puestosGrabados(), resultado.rechazos().size(), resultado.milisegundos());
+            } else {
+                // Opción 1: Usar el método integrado de importación
+                bd.importarDesdeArchivo("Inventario ICXX.txt");
+            }
             
             // Opción 2: Procesar manualmente línea por línea
             // procesarArchivoManual(bd, "Inventario ICXX.txt");
@@ -0,0 +1,264 @@
+package jcolonia.daw2024.e3b;
+
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.swing.JFrame;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de tabla Swing con los puestos de un aula, ordenados por código, que
+ * se mantiene al día aplicando {@link CambioInventario cambios} sueltos en
+ * lugar de recargarse por completo.
+ * <div>Cada puesto añadido, modificado o retirado se traduce en el aviso de
+ * una sola fila a la tabla, de modo que solo se vuelve a dibujar esa fila. Los
+ * lotes grandes y las recargas completas se resuelven con un único aviso de
+ * cambio general. Se conecta a su origen a través de un
+ * {@link DespachadorCambios}:
+ *
+ * <pre>
+ * modelo = new ModeloTablaPuestos("IC", aula::stream);
+ * aula.añadirObservador(new DespachadorCambios(modelo));
+ * </pre>
+ *
+ * </div>
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ModeloTablaPuestos extends AbstractTableModel implements DespachadorCambios.Receptor {
+	/** Versión de la serialización. */
+	private static final long serialVersionUID = 1L;
+
+	/** Títulos de las columnas. */
+	private static final String[] COLUMNAS = { "Código", "Equipo", "Nombre", "Apellidos" };
+
+	/**
+	 * Proporción de filas afectadas por un lote a partir de la cual se avisa de
+	 * un cambio general en lugar de fila a fila.
+	 */
+	private static final int DIVISOR_CAMBIO_GENERAL = 8;
+
+	/** Número de repeticiones en la prueba de rendimiento. */
+	private static final int REPETICIONES_PRUEBA = 1_000;
+
+	/** El prefijo de los códigos mostrados; vacío para mostrarlos todos. */
+	private final String prefijo;
+
+	/** El origen del contenido completo, para las recargas. */
+	private final transient Supplier<Stream<Map.Entry<String, PuestoUsuario>>> origen;
+
+	/** Los códigos mostrados, en orden: el índice de cada uno es su fila. */
+	private final transient List<String> códigos;
+
+	/** Los datos de cada puesto mostrado, por código. */
+	private final transient Map<String, PuestoUsuario> puestos;
+
+	/**
+	 * Crea el modelo y carga el contenido inicial.
+	 *
+	 * @param prefijo el prefijo de los códigos a mostrar; vacío o
+	 *                <code>null</code> para mostrar todos los puestos recibidos
+	 * @param origen  el contenido completo, que se vuelve a pedir en cada recarga
+	 */
+	public ModeloTablaPuestos(String prefijo, Supplier<Stream<Map.Entry<String, PuestoUsuario>>> origen) {
+		this.prefijo = NormalizadorTexto.recortarMayúsculas(prefijo);
+		this.origen = origen;
+		códigos = new ArrayList<>();
+		puestos = new HashMap<>();
+		cargar();
+	}
+
+	/**
+	 * Sustituye el contenido por el que facilita el origen, sin avisar a la tabla.
+	 */
+	private void cargar() {
+		códigos.clear();
+		puestos.clear();
+		try (Stream<Map.Entry<String, PuestoUsuario>> contenido = origen.get()) {
+			contenido.filter(entrada -> entrada.getKey().startsWith(prefijo))
+					.forEach(entrada -> puestos.put(entrada.getKey(), entrada.getValue()));
+		}
+		códigos.addAll(puestos.keySet());
+		Collections.sort(códigos);
+	}
+
+	/**
+	 * Vuelve a cargar el contenido completo y avisa a la tabla.
+	 */
+	public void recargar() {
+		cargar();
+		fireTableDataChanged();
+	}
+
+	@Override
+	public void aplicar(List<CambioInventario> cambios) {
+		boolean cambioGeneral;
+
+		cambioGeneral = cambios.get(0).tipo() == CambioInventario.Tipo.RECARGADO
+				|| cambios.size() > códigos.size() / DIVISOR_CAMBIO_GENERAL + 1;
+		if (cambios.get(0).tipo() == CambioInventario.Tipo.RECARGADO) {
+			cargar();
+		}
+		for (CambioInventario cambio : cambios) {
+			if (cambio.tipo() != CambioInventario.Tipo.RECARGADO && cambio.código().startsWith(prefijo)) {
+				aplicar(cambio, !cambioGeneral);
+			}
+		}
+		if (cambioGeneral) {
+			fireTableDataChanged();
+		}
+	}
+
+	/**
+	 * Aplica un cambio sobre un puesto. Los puestos añadidos que ya estaban
+	 * presentes se modifican, y los retirados que no estaban se ignoran: así un
+	 * cambio ya incluido en una recarga no tiene efecto.
+	 *
+	 * @param cambio el cambio
+	 * @param avisar si se avisa a la tabla de la fila afectada
+	 */
+	private void aplicar(CambioInventario cambio, boolean avisar) {
+		int fila;
+
+		fila = Collections.binarySearch(códigos, cambio.código());
+		if (cambio.tipo() == CambioInventario.Tipo.RETIRADO) {
+			if (fila >= 0) {
+				códigos.remove(fila);
+				puestos.remove(cambio.código());
+				if (avisar) {
+					fireTableRowsDeleted(fila, fila);
+				}
+			}
+		} else if (fila >= 0) {
+			puestos.put(cambio.código(), cambio.actual());
+			if (avisar) {
+				fireTableRowsUpdated(fila, fila);
+			}
+		} else {
+			fila = -fila - 1;
+			códigos.add(fila, cambio.código());
+			puestos.put(cambio.código(), cambio.actual());
+			if (avisar) {
+				fireTableRowsInserted(fila, fila);
+			}
+		}
+	}
+
+	@Override
+	public int getRowCount() {
+		return códigos.size();
+	}
+
+	@Override
+	public int getColumnCount() {
+		return COLUMNAS.length;
+	}
+
+	@Override
+	public String getColumnName(int columna) {
+		return COLUMNAS[columna];
+	}
+
+	@Override
+	public Object getValueAt(int fila, int columna) {
+		String código;
+		PuestoUsuario puesto;
+
+		código = códigos.get(fila);
+		puesto = puestos.get(código);
+		return switch (columna) {
+		case 0 -> código;
+		case 1 -> puesto.ordenador();
+		case 2 -> puesto.nombre();
+		default -> puesto.apellidos();
+		};
+	}
+
+	/**
+	 * Compara, sobre un aula sintética mostrada en una tabla, el coste de añadir
+	 * un puesto recargando la tabla completa con el de aplicar solo el cambio. Si
+	 * hay pantalla, la tabla se muestra en una ventana.
+	 *
+	 * @param argumentos opciones de ejecución: número de puestos del aula (10000)
+	 */
+	public static void main(String[] argumentos) {
+		int númPuestos;
+		GeneradorInventario generador;
+		InventarioAula aula;
+		ModeloTablaPuestos modelo;
+		DespachadorCambios despachador;
+		JTable tabla;
+		String prefijo, código;
+		long inicio, completa, porCambio;
+		long[] soloModelo;
+
+		númPuestos = argumentos.length > 0 ? Integer.parseInt(argumentos[0]) : 10_000;
+		try (AlmacenMemoria almacén = new AlmacenMemoria()) {
+			generador = new GeneradorInventario(1, númPuestos, 1, 0);
+			generador.poblar(almacén);
+			prefijo = generador.generarPrefijo(0);
+			aula = almacén.leer(prefijo);
+
+			modelo = new ModeloTablaPuestos(prefijo, aula::stream);
+			despachador = new DespachadorCambios(modelo);
+			aula.añadirObservador(despachador);
+			tabla = new JTable(modelo);
+			if (!GraphicsEnvironment.isHeadless()) {
+				EventQueue.invokeAndWait(() -> {
+					JFrame ventana = new JFrame(aula.toString());
+					ventana.add(new JScrollPane(tabla));
+					ventana.setSize(640, 480);
+					ventana.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+					ventana.setVisible(true);
+				});
+			}
+
+			soloModelo = new long[1];
+			for (int vuelta = 0; vuelta < 2; vuelta++) { // La primera vuelta sirve de calentamiento
+				inicio = System.nanoTime();
+				for (int i = 0; i < REPETICIONES_PRUEBA / 10; i++) {
+					EventQueue.invokeAndWait(modelo::recargar);
+				}
+				completa = (System.nanoTime() - inicio) / (REPETICIONES_PRUEBA / 10);
+
+				inicio = System.nanoTime();
+				for (int i = 0; i < REPETICIONES_PRUEBA; i++) {
+					código = String.format("%s%d%d", prefijo, vuelta + 8, i);
+					aula.añadir(código, new PuestoUsuario("PC" + i, "Nuevo", "Puesto " + i));
+					EventQueue.invokeAndWait(() -> { // Espera a que se aplique el cambio
+					});
+				}
+				porCambio = (System.nanoTime() - inicio) / REPETICIONES_PRUEBA;
+
+				EventQueue.invokeAndWait(() -> { // Solo la aplicación en el modelo y la tabla
+					long antes = System.nanoTime();
+					for (int i = 0; i < REPETICIONES_PRUEBA; i++) {
+						modelo.aplicar(List.of(new CambioInventario(CambioInventario.Tipo.AÑADIDO,
+								prefijo + "7" + i, null, new PuestoUsuario("PC" + i, "Otro", "Puesto " + i))));
+					}
+					soloModelo[0] = (System.nanoTime() - antes) / REPETICIONES_PRUEBA;
+				});
+
+				if (vuelta > 0) {
+					System.out.printf(
+							"%d filas: recarga completa %.1f µs, un puesto nuevo %.1f µs (aplicado en la tabla %.1f µs)%n",
+							modelo.getRowCount(), completa / 1e3, porCambio / 1e3, soloModelo[0] / 1e3);
+				}
+			}
+			System.out.println(despachador);
+		} catch (AccesoBDException | InventarioException | InterruptedException | InvocationTargetException e) {
+			System.err.printf("Error en la prueba: %s%n", e.getLocalizedMessage());
+		}
+	}
+}
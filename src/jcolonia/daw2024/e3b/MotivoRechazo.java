@@ -0,0 +1,71 @@
+package jcolonia.daw2024.e3b;
+
+/**
+ * Motivos por los que un puesto no se incorpora a un {@link InventarioAula}.
+ * Cada motivo es un objeto único y reutilizable, de modo que la validación
+ * masiva –por ejemplo al importar un archivo con muchas líneas corruptas– no
+ * necesita generar excepciones ni componer textos por cada línea descartada.
+ *
+ * @see InventarioAula#of(java.util.List, java.util.List)
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public enum MotivoRechazo {
+	/** La línea no contiene exactamente cuatro campos. */
+	FORMATO_INCORRECTO("Formato de línea incorrecto"),
+	/** El inventario está bloqueado frente a modificaciones. */
+	SOLO_LECTURA("Inventario de solo lectura"),
+	/** El código de puesto es nulo o está vacío. */
+	CÓDIGO_REQUERIDO("Código de puesto requerido"),
+	/** El código de puesto no comienza por el prefijo del aula. */
+	CÓDIGO_AJENO("Código de puesto «%1$s» no corresponde a la relación «%2$s»"),
+	/** El código de puesto ya estaba presente. */
+	CÓDIGO_DUPLICADO("Código de puesto «%1$s» duplicado"),
+	/** Faltan los datos del puesto. */
+	DATOS_REQUERIDOS("Datos de puesto requeridos"),
+	/** El nombre del usuario es nulo o está vacío. */
+	NOMBRE_REQUERIDO("Nombre del usuario habitual requerido"),
+	/** Los apellidos del usuario son nulos o están vacíos. */
+	APELLIDOS_REQUERIDOS("Apellidos del usuario habitual requeridos"),
+	/** La identificación del equipo es nula o está vacía. */
+	ORDENADOR_REQUERIDO("Identificación del equipo informático requerida");
+
+	/**
+	 * Formato tipo «printf» del texto descriptivo. Admite como argumentos el
+	 * código del puesto y el prefijo del aula.
+	 */
+	private final String formato;
+
+	/**
+	 * Asocia el texto descriptivo.
+	 *
+	 * @param formato el formato tipo «printf» del texto
+	 */
+	private MotivoRechazo(String formato) {
+		this.formato = formato;
+	}
+
+	/**
+	 * Compone el texto descriptivo para un puesto concreto.
+	 *
+	 * @param códigoPuesto el código del puesto rechazado
+	 * @param prefijoAula  el prefijo del aula
+	 * @return el texto correspondiente
+	 */
+	public String generarMensaje(String códigoPuesto, String prefijoAula) {
+		return String.format(formato, códigoPuesto, prefijoAula);
+	}
+
+	/**
+	 * Genera una excepción ligera –sin traza de pila– con el texto descriptivo
+	 * para un puesto concreto.
+	 *
+	 * @param códigoPuesto el código del puesto rechazado
+	 * @param prefijoAula  el prefijo del aula
+	 * @return la excepción correspondiente
+	 */
+	public InventarioException generarExcepción(String códigoPuesto, String prefijoAula) {
+		return new InventarioException(generarMensaje(códigoPuesto, prefijoAula), null, false, false);
+	}
+}
@@ -0,0 +1,145 @@
+package jcolonia.daw2024.e3b;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Normalización de los textos de un puesto en una única pasada: recorta los
+ * espacios iniciales y finales, detecta textos vacíos y, si se pide, transforma
+ * en mayúsculas. Los textos ASCII se resuelven sin recurrir a la conversión
+ * general de Unicode y, cuando el texto ya estaba normalizado, se devuelve el
+ * mismo objeto sin generar copias.
+ *
+ * @see InventarioAula#añadir(String, PuestoUsuario)
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class NormalizadorTexto {
+	/** Configuración regional empleada en las conversiones a mayúsculas. */
+	public static final Locale LOCALE_ES = Locale.of("es", "ES");
+
+	/** Número de repeticiones en la prueba de rendimiento. */
+	private static final int REPETICIONES_PRUEBA = 1_000_000;
+
+	/** Clase de utilidades: no se generan objetos. */
+	private NormalizadorTexto() {
+	}
+
+	/**
+	 * Recorta los espacios –y demás caracteres de control– al comienzo y fin de un
+	 * texto, con el mismo criterio que {@link String#trim()}.
+	 *
+	 * @param texto el texto original, admite <code>null</code>
+	 * @return el texto recortado; el mismo objeto si no había nada que recortar, o
+	 *         vacío si era nulo o solo contenía espacios
+	 */
+	public static String recortar(String texto) {
+		return normalizar(texto, false);
+	}
+
+	/**
+	 * Recorta los espacios al comienzo y fin de un texto y lo transforma en
+	 * mayúsculas.
+	 *
+	 * @see #LOCALE_ES
+	 * @param texto el texto original, admite <code>null</code>
+	 * @return el texto normalizado; el mismo objeto si ya lo estaba, o vacío si era
+	 *         nulo o solo contenía espacios
+	 */
+	public static String recortarMayúsculas(String texto) {
+		return normalizar(texto, true);
+	}
+
+	/**
+	 * Recorre una sola vez el texto para localizar los límites útiles y averiguar
+	 * si hay algo que cambiar. Solo genera un texto nuevo en ese caso.
+	 *
+	 * @param texto      el texto original, admite <code>null</code>
+	 * @param mayúsculas si se transforma en mayúsculas
+	 * @return el texto normalizado
+	 */
+	private static String normalizar(String texto, boolean mayúsculas) {
+		String resultado;
+		int inicio, fin;
+		boolean ascii = true, minúsculas = false;
+		char letra;
+		char[] letras;
+
+		if (texto == null) {
+			resultado = "";
+		} else {
+			inicio = 0;
+			fin = texto.length();
+			while (inicio < fin && texto.charAt(inicio) <= ' ') {
+				inicio++;
+			}
+			while (fin > inicio && texto.charAt(fin - 1) <= ' ') {
+				fin--;
+			}
+
+			if (mayúsculas) {
+				for (int i = inicio; i < fin; i++) {
+					letra = texto.charAt(i);
+					ascii &= letra < 0x80;
+					minúsculas |= letra >= 'a' && letra <= 'z';
+				}
+			}
+
+			if (inicio == fin) {
+				resultado = "";
+			} else if (!mayúsculas || (ascii && !minúsculas)) {
+				resultado = inicio == 0 && fin == texto.length() ? texto : texto.substring(inicio, fin);
+			} else if (ascii) {
+				letras = new char[fin - inicio];
+				for (int i = inicio; i < fin; i++) {
+					letra = texto.charAt(i);
+					letras[i - inicio] = letra >= 'a' && letra <= 'z' ? (char) (letra - ('a' - 'A')) : letra;
+				}
+				resultado = new String(letras);
+			} else {
+				resultado = texto.substring(inicio, fin).toUpperCase(LOCALE_ES);
+			}
+		}
+		return resultado;
+	}
+
+	/**
+	 * Compara la memoria reservada por cada alta de un puesto siguiendo la
+	 * normalización anterior –recortes y conversión por separado, con una
+	 * configuración regional nueva cada vez– y la de esta clase.
+	 *
+	 * @param argumentos opciones de ejecución –no usado–
+	 */
+	public static void main(String[] argumentos) {
+		com.sun.management.ThreadMXBean hilos;
+		String[] campos = { " ic12 ", "ED09012096P382", "José", "García Pérez" };
+		long antes, bytesAnterior, bytesNuevo, control = 0;
+
+		hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		for (int vuelta = 0; vuelta < 2; vuelta++) { // La primera vuelta sirve de calentamiento
+			antes = hilos.getCurrentThreadAllocatedBytes();
+			for (int i = 0; i < REPETICIONES_PRUEBA; i++) {
+				control += campos[0].trim().toUpperCase(Locale.of("es", "ES")).length();
+				control += campos[1].trim().length() + campos[2].trim().length() + campos[3].trim().length();
+			}
+			bytesAnterior = hilos.getCurrentThreadAllocatedBytes() - antes;
+
+			antes = hilos.getCurrentThreadAllocatedBytes();
+			for (int i = 0; i < REPETICIONES_PRUEBA; i++) {
+				control += recortarMayúsculas(campos[0]).length();
+				control += recortar(campos[1]).length() + recortar(campos[2]).length() + recortar(campos[3]).length();
+			}
+			bytesNuevo = hilos.getCurrentThreadAllocatedBytes() - antes;
+
+			if (vuelta > 0) {
+				System.out.printf("Normalización anterior: %.1f bytes/puesto%n",
+						(double) bytesAnterior / REPETICIONES_PRUEBA);
+				System.out.printf("Normalización en una pasada: %.1f bytes/puesto%n",
+						(double) bytesNuevo / REPETICIONES_PRUEBA);
+				System.out.printf("(control: %d)%n", control);
+			}
+		}
+	}
+}
@@ -0,0 +1,264 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Registro de las sentencias SQL cuya duración supera un umbral. Cada anotación
+ * incluye la sentencia, los parámetros, el número de filas y el plan de
+ * ejecución de SQLite –<code>EXPLAIN QUERY PLAN</code>– obtenido en ese mismo
+ * momento, de modo que se detecten recorridos completos de tabla o índices que
+ * faltan sin necesidad de un perfilador.
+ * <div>Las anotaciones se guardan en archivos rotativos –{@link FileHandler}–
+ * que solo se crean con la primera sentencia lenta. Se configura en las
+ * propiedades del acceso a la base de datos:
+ *
+ * <pre>
+ * registro.lentas.umbral   milisegundos; negativo para desactivar (250)
+ * registro.lentas.archivo  patrón de los archivos (consultasLentas.%g.log)
+ * registro.lentas.tamaño   bytes por archivo antes de rotar (1048576)
+ * registro.lentas.número   número de archivos rotativos (5)
+ * </pre>
+ *
+ * </div>
+ *
+ * @see AccesoBD
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class RegistroConsultasLentas {
+	/** Umbral predeterminado, en milisegundos. */
+	public static final long UMBRAL_PREDETERMINADO = 250;
+
+	/** Patrón predeterminado de los archivos del registro. */
+	public static final String ARCHIVO_PREDETERMINADO = "consultasLentas.%g.log";
+
+	/** Tamaño predeterminado de cada archivo antes de rotar, en bytes. */
+	private static final int TAMAÑO_PREDETERMINADO = 1 << 20;
+
+	/** Número predeterminado de archivos rotativos. */
+	private static final int NÚMERO_PREDETERMINADO = 5;
+
+	/**
+	 * Los registros abiertos, por patrón de archivo, compartidos por todos los
+	 * accesos a bases de datos que escriban en los mismos archivos.
+	 */
+	private static final Map<String, Logger> REGISTROS = new HashMap<>();
+
+	/** El umbral, en nanosegundos. */
+	private final long umbral;
+
+	/** El patrón de los archivos. */
+	private final String patrónArchivo;
+
+	/** El tamaño de cada archivo antes de rotar. */
+	private final int tamañoArchivo;
+
+	/** El número de archivos rotativos. */
+	private final int númArchivos;
+
+	/** El registro; <code>null</code> hasta la primera sentencia lenta. */
+	private Logger registro;
+
+	/**
+	 * Formato de cada anotación: fecha y hora seguidas del texto preparado.
+	 */
+	private static class Formato extends Formatter {
+		/** Prepara el formato. */
+		private Formato() {
+		}
+
+		@Override
+		public String format(LogRecord anotación) {
+			return String.format("%1$tF %1$tT.%1$tL %2$s%n", anotación.getInstant().toEpochMilli(),
+					anotación.getMessage());
+		}
+	}
+
+	/**
+	 * Prepara el registro, sin crear todavía ningún archivo.
+	 *
+	 * @param umbralMilisegundos la duración a partir de la cual se anota una
+	 *                           sentencia
+	 * @param patrónArchivo      el patrón de los archivos, según
+	 *                           {@link FileHandler}
+	 * @param tamañoArchivo      los bytes de cada archivo antes de rotar
+	 * @param númArchivos        el número de archivos rotativos
+	 */
+	public RegistroConsultasLentas(long umbralMilisegundos, String patrónArchivo, int tamañoArchivo,
+			int númArchivos) {
+		umbral = umbralMilisegundos * 1_000_000;
+		this.patrónArchivo = patrónArchivo;
+		this.tamañoArchivo = tamañoArchivo;
+		this.númArchivos = númArchivos;
+	}
+
+	/**
+	 * Prepara el registro según la configuración del acceso a la base de datos.
+	 *
+	 * @param configuración la configuración
+	 * @return el registro; <code>null</code> si está desactivado
+	 */
+	public static RegistroConsultasLentas of(Properties configuración) {
+		RegistroConsultasLentas registro = null;
+		long umbral;
+
+		try {
+			umbral = Long.parseLong(configuración.getProperty("registro.lentas.umbral",
+					String.valueOf(UMBRAL_PREDETERMINADO)));
+			if (umbral >= 0) {
+				registro = new RegistroConsultasLentas(umbral,
+						configuración.getProperty("registro.lentas.archivo", ARCHIVO_PREDETERMINADO),
+						Integer.parseInt(configuración.getProperty("registro.lentas.tamaño",
+								String.valueOf(TAMAÑO_PREDETERMINADO))),
+						Integer.parseInt(configuración.getProperty("registro.lentas.número",
+								String.valueOf(NÚMERO_PREDETERMINADO))));
+			}
+		} catch (NumberFormatException e) {
+			System.err.printf("Registro de consultas lentas desactivado: %s%n", e.getLocalizedMessage());
+		}
+		return registro;
+	}
+
+	/**
+	 * Comprueba si una duración supera el umbral.
+	 *
+	 * @param nanosegundos la duración
+	 * @return <code>true</code> si la sentencia se debe anotar
+	 */
+	public boolean esLenta(long nanosegundos) {
+		return nanosegundos >= umbral;
+	}
+
+	/**
+	 * Anota una sentencia lenta junto con su plan de ejecución actual. Las
+	 * incidencias del propio registro se notifican sin interrumpir la operación.
+	 *
+	 * @param conexión     la conexión donde se ejecutó la sentencia
+	 * @param sql          la sentencia
+	 * @param parámetros   los parámetros asociados, en orden
+	 * @param filas        el número de filas leídas o modificadas
+	 * @param nanosegundos la duración
+	 */
+	public void anotar(Connection conexión, String sql, Object[] parámetros, long filas, long nanosegundos) {
+		String texto;
+
+		texto = String.format("— %.1f ms, %d filas%n%s%nParámetros: %s%nPlan:%n%s", nanosegundos / 1e6, filas, sql,
+				Arrays.toString(parámetros), explicar(conexión, sql, parámetros));
+		escribir(texto);
+	}
+
+	/**
+	 * Anota un lote lento de ejecuciones de una misma sentencia preparada junto
+	 * con su plan de ejecución actual. En lugar de los parámetros de cada
+	 * ejecución se anota el tamaño del lote.
+	 *
+	 * @param conexión     la conexión donde se ejecutó el lote
+	 * @param sql          la sentencia
+	 * @param sentencias   el número de ejecuciones del lote
+	 * @param filas        el número de filas modificadas
+	 * @param nanosegundos la duración
+	 */
+	public void anotarLote(Connection conexión, String sql, int sentencias, long filas, long nanosegundos) {
+		String texto;
+
+		texto = String.format("— %.1f ms, %d filas%n%s%nLote de %d sentencias%nPlan:%n%s", nanosegundos / 1e6, filas,
+				sql, sentencias, explicar(conexión, sql, new Object[0]));
+		escribir(texto);
+	}
+
+	/**
+	 * Escribe una anotación. Las incidencias del propio registro se notifican sin
+	 * interrumpir la operación.
+	 *
+	 * @param texto el texto de la anotación
+	 */
+	private void escribir(String texto) {
+		try {
+			abrirRegistro().info(texto);
+		} catch (IOException | SecurityException e) {
+			System.err.printf("Error en el registro de consultas lentas: %s%n", e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Obtiene el plan de ejecución de una sentencia con sus parámetros, con una
+	 * línea por paso sangrada según su profundidad.
+	 *
+	 * @param conexión   la conexión
+	 * @param sql        la sentencia
+	 * @param parámetros los parámetros, en orden; pueden faltar
+	 * @return el texto del plan, o la incidencia producida al obtenerlo
+	 */
+	private static String explicar(Connection conexión, String sql, Object[] parámetros) {
+		StringBuilder plan;
+		Map<Integer, Integer> profundidades;
+		int profundidad;
+
+		plan = new StringBuilder();
+		profundidades = new HashMap<>();
+		try (PreparedStatement explicación = conexión.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+			for (int i = 0; i < parámetros.length; i++) {
+				explicación.setObject(i + 1, parámetros[i]);
+			}
+			try (ResultSet pasos = explicación.executeQuery()) {
+				while (pasos.next()) {
+					profundidad = profundidades.getOrDefault(pasos.getInt("parent"), 0) + 1;
+					profundidades.put(pasos.getInt("id"), profundidad);
+					plan.append("  ".repeat(profundidad)).append(pasos.getString("detail"))
+							.append(System.lineSeparator());
+				}
+			}
+			if (plan.isEmpty()) { // Inserciones simples, sin recorrido de tablas
+				plan.append("  (sin pasos)").append(System.lineSeparator());
+			}
+		} catch (SQLException e) {
+			plan.append("  (no disponible: ").append(e.getLocalizedMessage()).append(')')
+					.append(System.lineSeparator());
+		}
+		return plan.toString();
+	}
+
+	/**
+	 * Abre –la primera vez– los archivos del registro, compartidos con los demás
+	 * registros del mismo patrón.
+	 *
+	 * @return el registro
+	 * @throws IOException si no se pueden crear los archivos
+	 */
+	private Logger abrirRegistro() throws IOException {
+		FileHandler archivos;
+		Logger abierto;
+
+		if (registro == null) {
+			synchronized (REGISTROS) {
+				abierto = REGISTROS.get(patrónArchivo);
+				if (abierto == null) {
+					archivos = new FileHandler(patrónArchivo, tamañoArchivo, númArchivos, true);
+					archivos.setEncoding("UTF-8");
+					archivos.setFormatter(new Formato());
+					abierto = Logger.getAnonymousLogger();
+					abierto.setUseParentHandlers(false);
+					abierto.setLevel(Level.INFO);
+					abierto.addHandler(archivos);
+					REGISTROS.put(patrónArchivo, abierto);
+				}
+				registro = abierto;
+			}
+		}
+		return registro;
+	}
+}
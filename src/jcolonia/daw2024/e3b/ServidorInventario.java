@@ -0,0 +1,604 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servicio HTTP de consulta del inventario, para que otras aplicaciones accedan
+ * a los puestos sin enlazar directamente con {@link AccesoBD}. Cada petición se
+ * atiende en su propio hilo virtual y las respuestas, en formato JSON, se
+ * generan a medida que avanza la consulta, sin reunir antes los resultados.
+ * <div>Rutas disponibles –solo lectura, método GET–:
+ *
+ * <pre>
+ * /aulas                          resumen de todas las aulas
+ * /aulas/{prefijo}                puestos de un aula
+ * /puestos/{código}               un puesto; 404 si no existe
+ * /buscar?texto=…[&amp;límite=20]     búsqueda por usuario o equipo; límite
+ *                                 entre 1 y 500
+ * </pre>
+ *
+ * </div> <div>Solo escucha en la interfaz local salvo que se indique otra
+ * dirección expresamente.</div> <div>Las consultas se reparten entre varias
+ * conexiones a la misma base de datos –en modo WAL admite lectores
+ * simultáneos–, cada una usada en exclusiva durante una petición. Las
+ * peticiones que no encuentran conexión libre esperan sin ocupar un hilo de
+ * plataforma.</div>
+ *
+ * @see ClienteCargaServidor
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ServidorInventario implements AutoCloseable {
+	/** Puerto predeterminado. */
+	public static final int PUERTO_PREDETERMINADO = 8080;
+
+	/** Número máximo predeterminado de resultados de una búsqueda. */
+	private static final int LÍMITE_BÚSQUEDA_PREDETERMINADO = 20;
+
+	/** Número máximo de resultados de una búsqueda que se admite pedir. */
+	private static final int MÁX_LÍMITE_BÚSQUEDA = 500;
+
+	/** Tamaño del búfer de cada respuesta, en caracteres. */
+	private static final int TAMAÑO_BÚFER = 16 * 1024;
+
+	/** Tipo de contenido de todas las respuestas. */
+	private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+	static {
+		// Sin algoritmo de Nagle: el fin de cada respuesta fragmentada se enviaría
+		// con la espera de la confirmación retardada de TCP, unos 40 ms
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	/** El servidor HTTP. */
+	private final HttpServer servidor;
+
+	/** Los hilos que atienden las peticiones, uno virtual por petición. */
+	private final ExecutorService hilos;
+
+	/** Las conexiones a la base de datos libres. */
+	private final BlockingQueue<AccesoBD> libres;
+
+	/** Todas las conexiones a la base de datos, para cerrarlas al terminar. */
+	private final List<AccesoBD> accesos;
+
+	/**
+	 * Respuesta JSON que se envía a medida que se genera. La cabecera no se manda
+	 * hasta escribir el primer dato, de modo que una incidencia previa todavía
+	 * puede responderse con su propio código de estado.
+	 */
+	private static class RespuestaJSON implements AutoCloseable {
+		/** El intercambio HTTP. */
+		private final HttpExchange intercambio;
+
+		/** La salida; <code>null</code> hasta enviar la cabecera. */
+		private Writer salida;
+
+		/** Si ya se ha enviado una respuesta de error completa. */
+		private boolean terminada;
+
+		/**
+		 * Prepara la respuesta, sin enviar nada todavía.
+		 *
+		 * @param intercambio el intercambio HTTP
+		 */
+		private RespuestaJSON(HttpExchange intercambio) {
+			this.intercambio = intercambio;
+		}
+
+		/**
+		 * Envía –la primera vez– la cabecera de una respuesta correcta de longitud
+		 * indeterminada.
+		 *
+		 * @return la salida del cuerpo de la respuesta
+		 * @throws IOException si se produce alguna incidencia en el envío
+		 */
+		private Writer abrir() throws IOException {
+			if (salida == null) {
+				intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+				intercambio.sendResponseHeaders(200, 0);
+				salida = new BufferedWriter(
+						new OutputStreamWriter(intercambio.getResponseBody(), StandardCharsets.UTF_8), TAMAÑO_BÚFER);
+			}
+			return salida;
+		}
+
+		/**
+		 * Comprueba si ya se ha enviado la cabecera.
+		 *
+		 * @return <code>true</code> si ya no se puede cambiar el código de estado
+		 */
+		private boolean estáAbierta() {
+			return salida != null || terminada;
+		}
+
+		/**
+		 * Envía completa una respuesta de error, con un objeto JSON que incluye el
+		 * mensaje.
+		 *
+		 * @param estado  el código de estado HTTP
+		 * @param mensaje el mensaje de error
+		 * @throws IOException si se produce alguna incidencia en el envío
+		 */
+		private void enviarError(int estado, String mensaje) throws IOException {
+			byte[] cuerpo;
+
+			cuerpo = String.format("{\"error\":%s}", cadenaJSON(mensaje)).getBytes(StandardCharsets.UTF_8);
+			intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+			intercambio.sendResponseHeaders(estado, cuerpo.length);
+			intercambio.getResponseBody().write(cuerpo);
+			terminada = true;
+		}
+
+		/**
+		 * Escribe un fragmento del cuerpo de la respuesta.
+		 *
+		 * @param texto el fragmento
+		 * @throws IOException si se produce alguna incidencia en el envío
+		 */
+		private void escribir(String texto) throws IOException {
+			abrir().write(texto);
+		}
+
+		/**
+		 * Escribe un texto como cadena JSON.
+		 *
+		 * @see ServidorInventario#cadenaJSON(String)
+		 * @param texto el texto; <code>null</code> se escribe como tal
+		 * @throws IOException si se produce alguna incidencia en el envío
+		 */
+		private void escribirCadena(String texto) throws IOException {
+			abrir().write(cadenaJSON(texto));
+		}
+
+		/**
+		 * Escribe un puesto como objeto JSON.
+		 *
+		 * @param código el código del puesto
+		 * @param puesto los datos del puesto
+		 * @throws IOException si se produce alguna incidencia en el envío
+		 */
+		private void escribirPuesto(String código, PuestoUsuario puesto) throws IOException {
+			escribir("{\"código\":");
+			escribirCadena(código);
+			escribir(",\"ordenador\":");
+			escribirCadena(puesto.ordenador());
+			escribir(",\"nombre\":");
+			escribirCadena(puesto.nombre());
+			escribir(",\"apellidos\":");
+			escribirCadena(puesto.apellidos());
+			escribir("}");
+		}
+
+		/**
+		 * Termina el envío de la respuesta. Si no se llegó a generar nada –por una
+		 * interrupción o una incidencia inesperada–, envía un error 500 en lugar de
+		 * una respuesta correcta vacía.
+		 *
+		 * @throws IOException si se produce alguna incidencia en el envío
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				if (salida != null) {
+					salida.flush();
+				} else if (!terminada) {
+					enviarError(500, "Respuesta no generada");
+				}
+			} finally {
+				intercambio.close();
+			}
+		}
+	}
+
+	/**
+	 * Convierte un texto en cadena JSON, entre comillas y con los caracteres
+	 * especiales escapados.
+	 *
+	 * @param texto el texto original
+	 * @return la cadena correspondiente; «null» si el texto es nulo
+	 */
+	private static String cadenaJSON(String texto) {
+		StringBuilder cadena;
+		char c;
+
+		if (texto == null) {
+			cadena = new StringBuilder("null");
+		} else {
+			cadena = new StringBuilder(texto.length() + 2);
+			cadena.append('"');
+			for (int i = 0; i < texto.length(); i++) {
+				c = texto.charAt(i);
+				switch (c) {
+				case '"' -> cadena.append("\\\"");
+				case '\\' -> cadena.append("\\\\");
+				case '\n' -> cadena.append("\\n");
+				case '\r' -> cadena.append("\\r");
+				case '\t' -> cadena.append("\\t");
+				default -> {
+					if (c < 0x20) {
+						cadena.append(String.format("\\u%04x", (int) c));
+					} else {
+						cadena.append(c);
+					}
+				}
+				}
+			}
+			cadena.append('"');
+		}
+		return cadena.toString();
+	}
+
+	/**
+	 * Prepara el servicio en un puerto de la interfaz local –solo accesible desde
+	 * el propio equipo–, sin ponerlo en marcha.
+	 *
+	 * @param configuración la configuración del acceso a la base de datos
+	 * @param puerto        el puerto de escucha
+	 * @param númConexiones el número de conexiones a la base de datos
+	 * @throws IOException si no se puede ocupar el puerto
+	 */
+	public ServidorInventario(Properties configuración, int puerto, int númConexiones) throws IOException {
+		this(configuración, new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), númConexiones);
+	}
+
+	/**
+	 * Prepara el servicio en una dirección y puerto concretos, sin ponerlo en
+	 * marcha. Las conexiones a la base de datos se abren al atender las primeras
+	 * peticiones.
+	 *
+	 * @param configuración la configuración del acceso a la base de datos
+	 * @param dirección     la dirección y puerto de escucha; con la dirección
+	 *                      comodín escucha en todas las interfaces de red
+	 * @param númConexiones el número de conexiones a la base de datos
+	 * @throws IOException si no se puede ocupar el puerto
+	 */
+	public ServidorInventario(Properties configuración, InetSocketAddress dirección, int númConexiones)
+			throws IOException {
+		AccesoBD acceso;
+
+		accesos = new ArrayList<>(númConexiones);
+		libres = new ArrayBlockingQueue<>(Math.max(1, númConexiones));
+		for (int i = 0; i < Math.max(1, númConexiones); i++) {
+			acceso = new AccesoBD(configuración);
+			accesos.add(acceso);
+			libres.add(acceso);
+		}
+
+		hilos = Executors.newVirtualThreadPerTaskExecutor();
+		servidor = HttpServer.create(dirección, 0);
+		servidor.setExecutor(hilos);
+		servidor.createContext("/aulas", intercambio -> atender(intercambio, this::responderAulas));
+		servidor.createContext("/puestos/", intercambio -> atender(intercambio, this::responderPuesto));
+		servidor.createContext("/buscar", intercambio -> atender(intercambio, this::responderBúsqueda));
+	}
+
+	/**
+	 * Generación de la respuesta a una ruta concreta.
+	 */
+	@FunctionalInterface
+	private interface Respuesta {
+		/**
+		 * Genera la respuesta a una petición.
+		 *
+		 * @param intercambio el intercambio HTTP
+		 * @param acceso      la conexión a la base de datos reservada para la
+		 *                    petición
+		 * @param respuesta   la respuesta a completar
+		 * @throws IOException       si se produce alguna incidencia en el envío
+		 * @throws AccesoBDException si se produce alguna incidencia en la consulta
+		 */
+		void responder(HttpExchange intercambio, AccesoBD acceso, RespuestaJSON respuesta)
+				throws IOException, AccesoBDException;
+	}
+
+	/**
+	 * Pone en marcha el servicio.
+	 */
+	public void iniciar() {
+		servidor.start();
+	}
+
+	/**
+	 * Informa del puerto de escucha, útil si se pidió uno libre cualquiera.
+	 *
+	 * @return el puerto
+	 */
+	public int getPuerto() {
+		return servidor.getAddress().getPort();
+	}
+
+	/**
+	 * Atiende una petición: comprueba el método y la ruta, reserva una conexión
+	 * a la base de datos, genera la respuesta y libera la conexión. Las
+	 * incidencias se responden como objeto JSON con un mensaje de error, salvo
+	 * que ya se hubiera empezado a enviar la respuesta.
+	 * <div>Cada contexto atiende todas las rutas que comienzan por su prefijo; se
+	 * rechazan las que no continúan tras él con «/» –«/aulasXYZ» no es
+	 * «/aulas»–.</div>
+	 *
+	 * @param intercambio el intercambio HTTP
+	 * @param generación  la generación de la respuesta
+	 */
+	private void atender(HttpExchange intercambio, Respuesta generación) {
+		AccesoBD acceso = null;
+
+		try (RespuestaJSON respuesta = new RespuestaJSON(intercambio)) {
+			try {
+				if (!"GET".equals(intercambio.getRequestMethod())) {
+					respuesta.enviarError(405, "Método no admitido");
+				} else if (!esRutaDelContexto(intercambio)) {
+					respuesta.enviarError(404, "Ruta desconocida");
+				} else {
+					acceso = libres.take();
+					generación.responder(intercambio, acceso, respuesta);
+				}
+			} catch (IllegalArgumentException e) {
+				if (!respuesta.estáAbierta()) {
+					respuesta.enviarError(400, e.getLocalizedMessage());
+				}
+			} catch (AccesoBDException e) {
+				if (respuesta.estáAbierta()) {
+					System.err.printf("Respuesta interrumpida: %s%n", e.getLocalizedMessage());
+				} else {
+					respuesta.enviarError(e.getCause() instanceof InventarioException ? 400 : 500,
+							e.getLocalizedMessage());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				if (acceso != null) {
+					libres.add(acceso);
+				}
+			}
+		} catch (IOException e) { // Cliente desconectado
+			intercambio.close();
+		}
+	}
+
+	/**
+	 * Comprueba que la ruta de una petición sea la de su contexto o continúe tras
+	 * ella con «/».
+	 *
+	 * @param intercambio el intercambio HTTP
+	 * @return <code>true</code> si la ruta corresponde al contexto
+	 */
+	private static boolean esRutaDelContexto(HttpExchange intercambio) {
+		String ruta, contexto;
+
+		ruta = intercambio.getRequestURI().getPath();
+		contexto = intercambio.getHttpContext().getPath();
+		return ruta.length() == contexto.length() || contexto.endsWith("/") || ruta.charAt(contexto.length()) == '/';
+	}
+
+	/**
+	 * Responde a «/aulas» con el resumen de todas las aulas y a
+	 * «/aulas/{prefijo}» con los puestos de un aula, enviados según se leen.
+	 *
+	 * @param intercambio el intercambio HTTP
+	 * @param acceso      la conexión a la base de datos
+	 * @param respuesta   la respuesta a completar
+	 * @throws IOException       si se produce alguna incidencia en el envío
+	 * @throws AccesoBDException si se produce alguna incidencia en la consulta
+	 */
+	private void responderAulas(HttpExchange intercambio, AccesoBD acceso, RespuestaJSON respuesta)
+			throws IOException, AccesoBDException {
+		String prefijo;
+		boolean[] primero = { true };
+
+		prefijo = extraerParámetroRuta(intercambio, "/aulas");
+		if (prefijo.isEmpty()) {
+			for (AccesoBD.ResumenAula resumen : acceso.resumen()) {
+				respuesta.escribir(primero[0] ? "[" : ",");
+				primero[0] = false;
+				respuesta.escribir("{\"prefijo\":");
+				respuesta.escribirCadena(resumen.prefijo());
+				respuesta.escribir(String.format(",\"puestos\":%d,\"modificado\":", resumen.puestos()));
+				respuesta.escribirCadena(resumen.modificado().toString());
+				respuesta.escribir("}");
+			}
+		} else {
+			acceso.recorrer(prefijo, (código, puesto) -> {
+				respuesta.escribir(primero[0] ? "[" : ",");
+				primero[0] = false;
+				respuesta.escribirPuesto(código, puesto);
+			});
+		}
+		respuesta.escribir(primero[0] ? "[]" : "]");
+	}
+
+	/**
+	 * Responde a «/puestos/{código}» con los datos de un puesto.
+	 *
+	 * @param intercambio el intercambio HTTP
+	 * @param acceso      la conexión a la base de datos
+	 * @param respuesta   la respuesta a completar
+	 * @throws IOException       si se produce alguna incidencia en el envío
+	 * @throws AccesoBDException si se produce alguna incidencia en la consulta
+	 */
+	private void responderPuesto(HttpExchange intercambio, AccesoBD acceso, RespuestaJSON respuesta)
+			throws IOException, AccesoBDException {
+		String código;
+		PuestoUsuario puesto;
+
+		código = extraerParámetroRuta(intercambio, "/puestos");
+		if (código.isEmpty()) {
+			throw new IllegalArgumentException("Código de puesto requerido");
+		}
+
+		puesto = acceso.leerPuesto(código);
+		if (puesto == null) {
+			respuesta.enviarError(404, String.format("Puesto «%s» no encontrado", código));
+		} else {
+			respuesta.escribirPuesto(NormalizadorTexto.recortarMayúsculas(código), puesto);
+		}
+	}
+
+	/**
+	 * Responde a «/buscar?texto=…&amp;límite=…» con los puestos encontrados, del
+	 * más al menos relevante. Un límite menor que 1 se rechaza y uno mayor que
+	 * {@value #MÁX_LÍMITE_BÚSQUEDA} se reduce a este.
+	 *
+	 * @param intercambio el intercambio HTTP
+	 * @param acceso      la conexión a la base de datos
+	 * @param respuesta   la respuesta a completar
+	 * @throws IOException       si se produce alguna incidencia en el envío
+	 * @throws AccesoBDException si se produce alguna incidencia en la consulta
+	 */
+	private void responderBúsqueda(HttpExchange intercambio, AccesoBD acceso, RespuestaJSON respuesta)
+			throws IOException, AccesoBDException {
+		Map<String, String> parámetros;
+		String texto, separador = "[";
+		int límite;
+
+		parámetros = extraerParámetrosConsulta(intercambio);
+		texto = parámetros.get("texto");
+		if (texto == null || texto.isBlank()) {
+			throw new IllegalArgumentException("Texto de búsqueda requerido");
+		}
+		límite = Integer.parseInt(parámetros.getOrDefault("límite", String.valueOf(LÍMITE_BÚSQUEDA_PREDETERMINADO)));
+		if (límite < 1) {
+			throw new IllegalArgumentException(String.format("Límite de búsqueda no válido: %d", límite));
+		}
+		límite = Math.min(límite, MÁX_LÍMITE_BÚSQUEDA);
+
+		for (AccesoBD.Coincidencia coincidencia : acceso.buscarCoincidencias(texto, límite)) {
+			respuesta.escribir(separador);
+			separador = ",";
+			respuesta.escribirPuesto(coincidencia.código(), coincidencia.puesto());
+		}
+		respuesta.escribir(separador.equals("[") ? "[]" : "]");
+	}
+
+	/**
+	 * Obtiene el último tramo de la ruta de una petición, tras el prefijo de su
+	 * contexto.
+	 *
+	 * @param intercambio el intercambio HTTP
+	 * @param contexto    el prefijo de la ruta
+	 * @return el tramo restante, sin barras; vacío si no hay
+	 */
+	private static String extraerParámetroRuta(HttpExchange intercambio, String contexto) {
+		String ruta;
+
+		ruta = intercambio.getRequestURI().getPath().substring(contexto.length());
+		while (ruta.startsWith("/")) {
+			ruta = ruta.substring(1);
+		}
+		if (ruta.contains("/")) {
+			throw new IllegalArgumentException("Ruta desconocida");
+		}
+		return ruta;
+	}
+
+	/**
+	 * Descompone los parámetros de consulta de una petición.
+	 *
+	 * @param intercambio el intercambio HTTP
+	 * @return los parámetros, por nombre
+	 */
+	private static Map<String, String> extraerParámetrosConsulta(HttpExchange intercambio) {
+		Map<String, String> parámetros;
+		String consulta;
+		int separador;
+
+		parámetros = new HashMap<>();
+		consulta = intercambio.getRequestURI().getRawQuery();
+		if (consulta != null) {
+			for (String par : consulta.split("&")) {
+				separador = par.indexOf('=');
+				if (separador > 0) {
+					parámetros.put(URLDecoder.decode(par.substring(0, separador), StandardCharsets.UTF_8),
+							URLDecoder.decode(par.substring(separador + 1), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return parámetros;
+	}
+
+	/**
+	 * Detiene el servicio, esperando como mucho un segundo a que terminen las
+	 * peticiones en curso, y cierra las conexiones a la base de datos.
+	 *
+	 * @throws AccesoBDException si se produce alguna incidencia al cerrar alguna
+	 *                           conexión
+	 */
+	@Override
+	public void close() throws AccesoBDException {
+		servidor.stop(1);
+		hilos.close();
+		for (AccesoBD acceso : accesos) {
+			acceso.close();
+		}
+	}
+
+	/**
+	 * Pone en marcha el servicio hasta que se detenga el programa.
+	 *
+	 * @param argumentos opciones de ejecución: puerto –8080 si no se indica–,
+	 *                   archivo de base de datos –si no se indica, el del
+	 *                   archivo de configuración predeterminado– y dirección de
+	 *                   escucha –la local si no se indica; «0.0.0.0» para todas
+	 *                   las interfaces–
+	 */
+	public static void main(String[] argumentos) {
+		Properties configuración;
+		ServidorInventario servicio;
+		InetSocketAddress dirección;
+		int puerto;
+
+		puerto = argumentos.length > 0 ? Integer.parseInt(argumentos[0]) : PUERTO_PREDETERMINADO;
+		if (argumentos.length > 1) {
+			configuración = AccesoBD.generarConfiguración(argumentos[1]);
+		} else {
+			try {
+				configuración = AccesoBD.cargarConfiguración(AccesoBD.ARCHIVO_CONFIG_PREDETERMINADO);
+			} catch (AccesoBDException e) {
+				System.err.printf("Error cargando configuración de «%s»: %s%n", AccesoBD.ARCHIVO_CONFIG_PREDETERMINADO,
+						e.getMessage());
+				configuración = AccesoBD.crearConfiguración(AccesoBD.ARCHIVO_CONFIG_PREDETERMINADO,
+						AccesoBD.ARCHIVO_BD_PREDETERMINADO);
+			}
+		}
+
+		try {
+			dirección = new InetSocketAddress(argumentos.length > 2 ? InetAddress.getByName(argumentos[2])
+					: InetAddress.getLoopbackAddress(), puerto);
+			servicio = new ServidorInventario(configuración, dirección, Runtime.getRuntime().availableProcessors());
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					servicio.close();
+				} catch (AccesoBDException e) {
+					System.err.println(e.getLocalizedMessage());
+				}
+			}));
+			servicio.iniciar();
+			System.out.printf("Servicio de inventario en http://%s:%d/aulas%n", dirección.getHostString(),
+					servicio.getPuerto());
+		} catch (IOException e) {
+			System.err.printf("No se puede iniciar el servicio: %s%n", e.getLocalizedMessage());
+		}
+	}
+}
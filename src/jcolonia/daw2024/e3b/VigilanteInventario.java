@@ -0,0 +1,223 @@
+package jcolonia.daw2024.e3b;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seguimiento continuo de un directorio de archivos de exportación: cada vez que
+ * se crea un archivo o se le añaden líneas, se importan únicamente las líneas
+ * nuevas. Los avisos del sistema de archivos llegan a través de un
+ * {@link WatchService}; los que llegan casi a la vez se agrupan para procesar
+ * cada archivo una sola vez.
+ * <div>Para cada archivo se conserva en memoria la huella de la última
+ * importación –posición alcanzada y número de línea–, de modo que cada
+ * ampliación solo lee los bytes añadidos y el final de lo ya importado, para
+ * comprobar que no ha cambiado. El registro de importaciones de la base de
+ * datos se consulta únicamente al descubrir un archivo, al arrancar o si el
+ * archivo encoge o se ha reescrito.</div>
+ *
+ * @see ImportadorIncremental#continuar(HuellaArchivo)
+ *
+ * @version 1.0 (20261018000)
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class VigilanteInventario implements AutoCloseable {
+	/** Patrón predeterminado de los nombres de archivo vigilados. */
+	public static final String PATRÓN_PREDETERMINADO = "*.txt";
+
+	/**
+	 * Tiempo de espera, en milisegundos, para agrupar los avisos que llegan
+	 * seguidos.
+	 */
+	private static final long ESPERA_AGRUPACIÓN = 500;
+
+	/** El directorio vigilado. */
+	private final Path directorio;
+
+	/** El patrón de los nombres de archivo vigilados. */
+	private final String patrón;
+
+	/** El importador de las líneas nuevas. */
+	private final ImportadorIncremental importador;
+
+	/** El servicio de avisos del sistema de archivos. */
+	private final WatchService servicio;
+
+	/** La última huella de cada archivo vigilado. */
+	private final Map<Path, HuellaArchivo> huellas;
+
+	/**
+	 * Prepara la vigilancia de los archivos «*.txt» de un directorio.
+	 *
+	 * @param accesoBD   el acceso a la base de datos
+	 * @param directorio el directorio a vigilar
+	 * @throws IOException si no se puede vigilar el directorio
+	 */
+	public VigilanteInventario(AccesoBD accesoBD, Path directorio) throws IOException {
+		this(accesoBD, directorio, PATRÓN_PREDETERMINADO);
+	}
+
+	/**
+	 * Prepara la vigilancia de un directorio.
+	 *
+	 * @param accesoBD   el acceso a la base de datos
+	 * @param directorio el directorio a vigilar
+	 * @param patrón     el patrón tipo «glob» de los nombres de archivo vigilados
+	 * @throws IOException si no se puede vigilar el directorio
+	 */
+	public VigilanteInventario(AccesoBD accesoBD, Path directorio, String patrón) throws IOException {
+		this.directorio = directorio.toAbsolutePath().normalize();
+		this.patrón = patrón;
+		importador = new ImportadorIncremental(accesoBD);
+		huellas = new HashMap<>();
+		servicio = this.directorio.getFileSystem().newWatchService();
+		this.directorio.register(servicio, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+				StandardWatchEventKinds.ENTRY_DELETE);
+	}
+
+	/**
+	 * Importa lo pendiente de los archivos ya presentes y a continuación atiende
+	 * los avisos del sistema de archivos hasta que se cierre la vigilancia o se
+	 * interrumpa el hilo. Las incidencias de cada archivo se notifican sin detener
+	 * la vigilancia.
+	 *
+	 * @throws IOException si no se puede recorrer el directorio
+	 */
+	public void vigilar() throws IOException {
+		Set<Path> pendientes;
+		WatchKey clave;
+		boolean activo = true;
+
+		pendientes = new LinkedHashSet<>();
+		recorrer(pendientes);
+		try {
+			while (activo) {
+				procesar(pendientes);
+				pendientes.clear();
+
+				clave = servicio.take();
+				do { // Agrupa los avisos que llegan seguidos
+					for (WatchEvent<?> aviso : clave.pollEvents()) {
+						anotar(aviso, pendientes);
+					}
+					activo = clave.reset();
+					clave = servicio.poll(ESPERA_AGRUPACIÓN, TimeUnit.MILLISECONDS);
+				} while (clave != null && activo);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// Fin de la vigilancia
+		}
+	}
+
+	/**
+	 * Anota todos los archivos vigilados del directorio.
+	 *
+	 * @param pendientes la colección donde anotarlos
+	 * @throws IOException si no se puede recorrer el directorio
+	 */
+	private void recorrer(Set<Path> pendientes) throws IOException {
+		try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, patrón)) {
+			for (Path archivo : archivos) {
+				if (Files.isRegularFile(archivo)) {
+					pendientes.add(archivo);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Interpreta un aviso del sistema de archivos.
+	 *
+	 * @param aviso      el aviso
+	 * @param pendientes la colección donde anotar los archivos a procesar
+	 * @throws IOException si hay que recorrer el directorio y no se puede
+	 */
+	private void anotar(WatchEvent<?> aviso, Set<Path> pendientes) throws IOException {
+		Path archivo;
+
+		if (aviso.kind() == StandardWatchEventKinds.OVERFLOW) { // Avisos perdidos: se revisa todo
+			recorrer(pendientes);
+		} else {
+			archivo = directorio.resolve((Path) aviso.context());
+			if (archivo.getFileSystem().getPathMatcher("glob:" + patrón).matches(archivo.getFileName())) {
+				if (aviso.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+					huellas.remove(archivo);
+					pendientes.remove(archivo);
+				} else {
+					pendientes.add(archivo);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Importa las líneas nuevas de cada archivo anotado.
+	 *
+	 * @param pendientes los archivos a procesar
+	 */
+	private void procesar(Set<Path> pendientes) {
+		ImportadorIncremental.Resultado resultado;
+		HuellaArchivo anterior;
+		long tamaño;
+
+		for (Path archivo : pendientes) {
+			try {
+				if (Files.isRegularFile(archivo)) {
+					tamaño = Files.size(archivo);
+					anterior = huellas.get(archivo);
+					if (anterior == null || tamaño < anterior.posición()) {
+						resultado = importador.importar(archivo.toString(), false);
+					} else {
+						resultado = importador.continuar(anterior);
+					}
+
+					huellas.put(archivo, resultado.huella());
+					informar(archivo, resultado);
+				}
+			} catch (IOException | AccesoBDException e) {
+				VistaGeneral.mostrarAviso(e.getLocalizedMessage());
+			}
+		}
+	}
+
+	/**
+	 * Muestra el resultado de una importación si ha procesado alguna línea.
+	 *
+	 * @param archivo   el archivo importado
+	 * @param resultado el resumen de la importación
+	 */
+	private static void informar(Path archivo, ImportadorIncremental.Resultado resultado) {
+		String mensaje;
+
+		if (resultado.líneasLeídas() > 0) {
+			mensaje = String.format("%s: %d líneas nuevas, %d equipos grabados, %d descartadas (%d ms)",
+					archivo.getFileName(), resultado.líneasLeídas(), resultado.puestosGrabados(),
+					resultado.númRechazos(), resultado.milisegundos());
+			VistaGeneral.mostrarTexto(mensaje);
+		}
+	}
+
+	/**
+	 * Termina la vigilancia.
+	 *
+	 * @throws IOException si se produce alguna incidencia
+	 */
+	@Override
+	public void close() throws IOException {
+		servicio.close();
+	}
+}
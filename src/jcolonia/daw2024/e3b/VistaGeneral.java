@@ -2,7 +2,14 @@ package jcolonia.daw2024.e3b;
 
 import static java.lang.System.out;
 
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.Iterator;
 import java.util.Scanner;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Utilidades básicas para interface en consola de texto.
@@ -16,6 +23,19 @@ public class VistaGeneral {
 	/** Secuencia de escape ANSI para restablecer la visualización normal. */
 	public static final String ANSI_NORMAL = "\33[m";
 
+	/** Número predeterminado de líneas por página en los listados. */
+	public static final int LÍNEAS_PÁGINA = 22;
+
+	/** Tamaño del búfer de la salida de listados. */
+	private static final int TAMAÑO_BÚFER = 1 << 16;
+
+	/**
+	 * Salida de los listados: la salida estándar, sin volcado automático y con un
+	 * búfer amplio, de modo que cada página –o el listado completo si no hay
+	 * usuario– se envía de una vez en lugar de línea a línea.
+	 */
+	private static PrintStream salidaListados;
+
 	/**
 	 * Interface ({@link java.util.Scanner Scanner}) asociado a la entrada por
 	 * consola de texto –entrada estándar–.
@@ -150,6 +170,78 @@ public class VistaGeneral {
 		out.println(texto);
 	}
 
+	/**
+	 * Facilita la salida de los listados, creándola la primera vez.
+	 * 
+	 * @see #salidaListados
+	 * @return la salida
+	 */
+	private static PrintStream getSalidaListados() {
+		if (salidaListados == null) {
+			salidaListados = new PrintStream(
+					new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), TAMAÑO_BÚFER), false,
+					out.charset());
+		}
+		return salidaListados;
+	}
+
+	/**
+	 * Indica si hay un usuario ante la consola o si, por el contrario, la salida o
+	 * la entrada están redirigidas –a un archivo o a otro programa–.
+	 * 
+	 * @return <code>true</code> si la consola es interactiva
+	 */
+	public static boolean esInteractiva() {
+		return System.console() != null;
+	}
+
+	/**
+	 * Muestra un listado de líneas de texto a medida que se recorre, sin
+	 * necesidad de reunirlo antes en memoria. Con un usuario ante la consola se
+	 * detiene tras cada {@link #LÍNEAS_PÁGINA página}; si la salida está
+	 * redirigida se envía completo de una vez.
+	 * 
+	 * @see #mostrarListado(Iterator, int)
+	 * @param líneas el listado
+	 * @return el número de líneas mostradas
+	 */
+	public static int mostrarListado(Stream<String> líneas) {
+		return mostrarListado(líneas.iterator(), esInteractiva() ? LÍNEAS_PÁGINA : 0);
+	}
+
+	/**
+	 * Muestra un listado de líneas de texto a medida que se recorre, por páginas.
+	 * Tras cada página se vuelca la salida y se espera a que el usuario pulse
+	 * «Intro» para continuar o «F» para terminar.<div>Las líneas se escriben en
+	 * una salida con búfer amplio que solo se vuelca al completar cada página, o
+	 * al terminar el listado si no se pagina, en lugar de hacerlo en cada línea
+	 * como la salida estándar.</div>
+	 * 
+	 * @param líneas       el listado
+	 * @param líneasPágina el número de líneas de cada página; cero o negativo
+	 *                     para mostrarlo de una vez, sin pausas
+	 * @return el número de líneas mostradas
+	 */
+	public static int mostrarListado(Iterator<String> líneas, int líneasPágina) {
+		PrintStream salida;
+		int númLíneas = 0;
+		boolean seguir = true;
+
+		out.flush(); // Lo ya enviado por la salida estándar va antes del listado
+		salida = getSalidaListados();
+		while (seguir && líneas.hasNext()) {
+			salida.println(líneas.next());
+			númLíneas++;
+			if (líneasPágina > 0 && númLíneas % líneasPágina == 0 && líneas.hasNext()) {
+				salida.print("-- Más: «Intro» para seguir, «F» para terminar -- ");
+				salida.flush();
+				seguir = !"F".equalsIgnoreCase(getScEntrada().nextLine().trim());
+			}
+		}
+		salida.flush();
+		return númLíneas;
+	}
+
 	/**
 	 * Envía a la salida un texto destacado en color rojo, a modo de aviso.
 	 * 
@@ -249,4 +341,35 @@ public class VistaGeneral {
 		dejarEspacio();
 		preguntaSeguir();
 	}
+
+	/**
+	 * Compara el envío de un listado sintético línea a línea por la salida
+	 * estándar con el de {@link #mostrarListado(Iterator, int)} sin paginar. Los
+	 * tiempos se muestran por la salida de error; conviene redirigir la salida
+	 * estándar –a «/dev/null» o a otro programa– o ejecutarlo por SSH.
+	 * 
+	 * @param argumentos opciones de ejecución: número de líneas (200000)
+	 */
+	public static void main(String[] argumentos) {
+		int númLíneas;
+		long inicio, líneaALínea, conBúfer;
+
+		númLíneas = argumentos.length > 0 ? Integer.parseInt(argumentos[0]) : 200_000;
+
+		inicio = System.nanoTime();
+		for (int i = 0; i < númLíneas; i++) {
+			out.println(String.format("AA%04d – ED%08dP%03d (Nombre%d Apellidos%d)", i, i, i % 1000, i, i));
+		}
+		out.flush();
+		líneaALínea = System.nanoTime() - inicio;
+
+		inicio = System.nanoTime();
+		mostrarListado(IntStream.range(0, númLíneas)
+				.mapToObj(i -> String.format("AA%04d – ED%08dP%03d (Nombre%d Apellidos%d)", i, i, i % 1000, i, i))
+				.iterator(), 0);
+		conBúfer = System.nanoTime() - inicio;
+
+		System.err.printf("%d líneas: línea a línea %.0f ms, con búfer %.0f ms%n", númLíneas, líneaALínea / 1e6,
+				conBúfer / 1e6);
+	}
 }
\ No newline at end of file